@@ -26,6 +26,11 @@ dependencies {
     compileOnly("io.netty:netty-all:4.1.111.Final")
     compileOnly(files(architecturyJarFile).builtBy(downloadArchitecturyJar))
     compileOnly(files(mtrCommonJar))
+
+    testImplementation("io.netty:netty-all:4.1.111.Final")
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 java {
@@ -37,3 +42,7 @@ tasks.withType<JavaCompile>().configureEach {
     options.encoding = "UTF-8"
     options.release.set(8)
 }
+
+tasks.test {
+    useJUnitPlatform()
+}
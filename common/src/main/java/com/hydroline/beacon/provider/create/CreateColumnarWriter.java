@@ -0,0 +1,230 @@
+package com.hydroline.beacon.provider.create;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code format: "columnar"} rendering of {@code create:get_network}. Node, edge and polyline geometry is
+ * written as struct-of-arrays: repeated strings become indexes into one {@code strings} table, and coordinates
+ * are packed little-endian float32 runs encoded as base64. Graphs, stations, signal boundaries and edge
+ * segments are small and keep the row layout of {@link CreateJsonWriter}.
+ */
+public final class CreateColumnarWriter {
+    public static final String FORMAT = "columnar";
+
+    private CreateColumnarWriter() {
+    }
+
+    /**
+     * @param version appended as {@code version} when not {@code null}
+     */
+    public static void writeNetworkSnapshot(JsonWriter writer, CreateNetworkSnapshot snapshot, boolean includePolylines,
+                                            boolean packedPolylines, String version) throws IOException {
+        StringTable strings = new StringTable();
+        for (CreateNetworkSnapshot.NodeInfo node : snapshot.getNodes()) {
+            strings.add(node.getGraphId());
+            strings.add(node.getDimension());
+        }
+        for (CreateNetworkSnapshot.EdgeInfo edge : snapshot.getEdges()) {
+            strings.add(edge.getEdgeId());
+            strings.add(edge.getGraphId());
+            strings.add(edge.getMaterialId());
+        }
+        Map<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> polylines = includePolylines
+            ? CreatePolylineCodec.groupByEdge(snapshot.getEdgePolylines())
+            : null;
+        if (polylines != null) {
+            for (String edgeId : polylines.keySet()) {
+                strings.add(edgeId);
+            }
+        }
+
+        writer.beginObject();
+        writer.name("timestamp").value(System.currentTimeMillis());
+        writer.name("format").value(FORMAT);
+        writer.name("strings").beginArray();
+        for (String value : strings.values) {
+            writer.value(value);
+        }
+        writer.endArray();
+        writer.name("graphs");
+        CreateJsonWriter.writeGraphs(writer, snapshot.getGraphs());
+        writer.name("nodes");
+        writeNodes(writer, snapshot.getNodes(), strings);
+        writer.name("edges");
+        writeEdges(writer, snapshot.getEdges(), strings);
+        if (polylines != null) {
+            if (packedPolylines) {
+                writer.name("polylineScale").value(CreatePolylineCodec.SCALE);
+            }
+            writer.name("edgePolylines");
+            writeEdgePolylines(writer, polylines, strings, packedPolylines);
+        }
+        writer.name("stations");
+        CreateJsonWriter.writeStations(writer, snapshot.getStations());
+        writer.name("signalBoundaries");
+        CreateJsonWriter.writeSignalBoundaries(writer, snapshot.getSignalBoundaries());
+        writer.name("edgeSegments");
+        CreateJsonWriter.writeEdgeSegments(writer, snapshot.getEdgeSegments());
+        if (version != null) {
+            writer.name("version").value(version);
+        }
+        writer.endObject();
+    }
+
+    private static void writeNodes(JsonWriter writer, List<CreateNetworkSnapshot.NodeInfo> nodes, StringTable strings) throws IOException {
+        Float32Column position = new Float32Column(nodes.size() * 3);
+        Float32Column normal = new Float32Column(nodes.size() * 3);
+        writer.beginObject();
+        writer.name("count").value(nodes.size());
+        writer.name("graphId").beginArray();
+        for (CreateNetworkSnapshot.NodeInfo node : nodes) {
+            writer.value(strings.indexOf(node.getGraphId()));
+            position.add(node.getX()).add(node.getY()).add(node.getZ());
+            normal.add(node.getNormalX()).add(node.getNormalY()).add(node.getNormalZ());
+        }
+        writer.endArray();
+        writer.name("netId").beginArray();
+        for (CreateNetworkSnapshot.NodeInfo node : nodes) {
+            writer.value(node.getNetId());
+        }
+        writer.endArray();
+        writer.name("dimension").beginArray();
+        for (CreateNetworkSnapshot.NodeInfo node : nodes) {
+            writer.value(strings.indexOf(node.getDimension()));
+        }
+        writer.endArray();
+        writer.name("position").value(position.toBase64());
+        writer.name("normal").value(normal.toBase64());
+        writer.name("yOffsetPixels").beginArray();
+        for (CreateNetworkSnapshot.NodeInfo node : nodes) {
+            writer.value(node.getYOffsetPixels());
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private static void writeEdges(JsonWriter writer, List<CreateNetworkSnapshot.EdgeInfo> edges, StringTable strings) throws IOException {
+        Float32Column length = new Float32Column(edges.size());
+        writer.beginObject();
+        writer.name("count").value(edges.size());
+        writer.name("edgeId").beginArray();
+        for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
+            writer.value(strings.indexOf(edge.getEdgeId()));
+            length.add(edge.getLength());
+        }
+        writer.endArray();
+        writer.name("graphId").beginArray();
+        for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
+            writer.value(strings.indexOf(edge.getGraphId()));
+        }
+        writer.endArray();
+        writer.name("node1NetId").beginArray();
+        for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
+            writer.value(edge.getNode1NetId());
+        }
+        writer.endArray();
+        writer.name("node2NetId").beginArray();
+        for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
+            writer.value(edge.getNode2NetId());
+        }
+        writer.endArray();
+        writer.name("isTurn").beginArray();
+        for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
+            writer.value(edge.isTurn() ? 1 : 0);
+        }
+        writer.endArray();
+        writer.name("isPortal").beginArray();
+        for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
+            writer.value(edge.isPortal() ? 1 : 0);
+        }
+        writer.endArray();
+        writer.name("length").value(length.toBase64());
+        writer.name("materialId").beginArray();
+        for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
+            writer.value(strings.indexOf(edge.getMaterialId()));
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private static void writeEdgePolylines(JsonWriter writer, Map<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> polylines,
+                                           StringTable strings, boolean packed) throws IOException {
+        int totalPoints = 0;
+        for (List<CreateNetworkSnapshot.EdgePolylinePoint> points : polylines.values()) {
+            totalPoints += points.size();
+        }
+        Float32Column coordinates = packed ? null : new Float32Column(totalPoints * 3);
+        ByteArrayOutputStream deltas = packed ? new ByteArrayOutputStream(totalPoints * 3) : null;
+        writer.beginObject();
+        writer.name("count").value(polylines.size());
+        writer.name("edgeId").beginArray();
+        for (String edgeId : polylines.keySet()) {
+            writer.value(strings.indexOf(edgeId));
+        }
+        writer.endArray();
+        writer.name("pointCounts").beginArray();
+        for (List<CreateNetworkSnapshot.EdgePolylinePoint> points : polylines.values()) {
+            writer.value(points.size());
+            if (packed) {
+                CreatePolylineCodec.encodeTo(points, deltas);
+            } else {
+                for (CreateNetworkSnapshot.EdgePolylinePoint point : points) {
+                    coordinates.add(point.getX()).add(point.getY()).add(point.getZ());
+                }
+            }
+        }
+        writer.endArray();
+        if (packed) {
+            writer.name("data").value(Base64.getEncoder().encodeToString(deltas.toByteArray()));
+        } else {
+            writer.name("points").value(coordinates.toBase64());
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Interns strings in first-seen order; {@code null} maps to {@code -1}.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        private final List<String> values = new ArrayList<String>();
+
+        void add(String value) {
+            if (value != null && !indexes.containsKey(value)) {
+                indexes.put(value, values.size());
+                values.add(value);
+            }
+        }
+
+        int indexOf(String value) {
+            Integer index = value == null ? null : indexes.get(value);
+            return index == null ? -1 : index;
+        }
+    }
+
+    private static final class Float32Column {
+        private final ByteBuffer buffer;
+
+        Float32Column(int capacity) {
+            this.buffer = ByteBuffer.allocate(capacity * 4).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        Float32Column add(double value) {
+            buffer.putFloat((float) value);
+            return this;
+        }
+
+        String toBase64() {
+            return Base64.getEncoder().encodeToString(buffer.array());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -18,6 +19,12 @@ import java.util.Map;
 import java.util.Set;
 
 public final class CreateDatabase implements AutoCloseable {
+    /**
+     * Stores polylines as quantized deltas ({@link CreatePolylineCodec}) instead of one row per point. Roughly an
+     * order of magnitude smaller, but coordinates are rounded to 1/64 block for every output format.
+     */
+    private static final boolean PACKED_POLYLINES = Boolean.getBoolean("beacon.createPackedPolylines");
+
     private final Path dbPath;
     private final Object lock = new Object();
 
@@ -43,7 +50,9 @@ public final class CreateDatabase implements AutoCloseable {
                 stmt.execute("CREATE TABLE IF NOT EXISTS create_graphs (graph_id TEXT PRIMARY KEY, checksum INTEGER NOT NULL, color INTEGER NOT NULL, updated_at INTEGER NOT NULL)");
                 stmt.execute("CREATE TABLE IF NOT EXISTS create_nodes (graph_id TEXT NOT NULL, node_net_id INTEGER NOT NULL, dimension TEXT NOT NULL, x REAL, y REAL, z REAL, normal_x REAL, normal_y REAL, normal_z REAL, y_offset_pixels INTEGER, PRIMARY KEY(graph_id, node_net_id))");
                 stmt.execute("CREATE TABLE IF NOT EXISTS create_edges (edge_id TEXT PRIMARY KEY, graph_id TEXT NOT NULL, node1_net_id INTEGER NOT NULL, node2_net_id INTEGER NOT NULL, is_turn INTEGER NOT NULL, is_portal INTEGER NOT NULL, length REAL NOT NULL, material_id TEXT)");
+                // Lossless one-row-per-point layout, the default; the packed table is opt-in. Both are always read.
                 stmt.execute("CREATE TABLE IF NOT EXISTS create_edge_polyline (edge_id TEXT NOT NULL, seq INTEGER NOT NULL, x REAL, y REAL, z REAL, PRIMARY KEY(edge_id, seq))");
+                stmt.execute("CREATE TABLE IF NOT EXISTS create_edge_polyline_packed (edge_id TEXT PRIMARY KEY, point_count INTEGER NOT NULL, data BLOB NOT NULL)");
                 stmt.execute("CREATE TABLE IF NOT EXISTS create_stations (station_id TEXT PRIMARY KEY, graph_id TEXT NOT NULL, edge_id TEXT NOT NULL, position REAL, name TEXT, dimension TEXT, x REAL, y REAL, z REAL)");
                 stmt.execute("CREATE TABLE IF NOT EXISTS create_signal_boundaries (boundary_id TEXT PRIMARY KEY, graph_id TEXT NOT NULL, edge_id TEXT NOT NULL, position REAL, group_id_primary TEXT, group_id_secondary TEXT, dimension TEXT, x REAL, y REAL, z REAL)");
                 stmt.execute("CREATE TABLE IF NOT EXISTS create_edge_segments (segment_id TEXT PRIMARY KEY, edge_id TEXT NOT NULL, start_pos REAL, end_pos REAL, group_id TEXT)");
@@ -123,6 +132,7 @@ public final class CreateDatabase implements AutoCloseable {
                 insertSignalBoundaries(connection, snapshot.getSignalBoundaries());
                 insertEdgeSegments(connection, snapshot.getEdgeSegments());
                 connection.commit();
+                CreateQueryRegistry.markNetworkChanged();
             } catch (SQLException ex) {
                 BeaconProviderMod.LOGGER.warn("Failed to upsert Create graph {}", graphId, ex);
             }
@@ -135,6 +145,7 @@ public final class CreateDatabase implements AutoCloseable {
                 connection.setAutoCommit(false);
                 deleteGraphInternal(connection, graphId);
                 connection.commit();
+                CreateQueryRegistry.markNetworkChanged();
             } catch (SQLException ex) {
                 BeaconProviderMod.LOGGER.warn("Failed to delete Create graph {}", graphId, ex);
             }
@@ -194,6 +205,13 @@ public final class CreateDatabase implements AutoCloseable {
                 }
                 stmt.executeBatch();
             }
+            try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM create_edge_polyline_packed WHERE edge_id = ?")) {
+                for (String edgeId : edgeIds) {
+                    stmt.setString(1, edgeId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
             try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM create_edge_segments WHERE edge_id = ?")) {
                 for (String edgeId : edgeIds) {
                     stmt.setString(1, edgeId);
@@ -282,6 +300,10 @@ public final class CreateDatabase implements AutoCloseable {
         if (points.isEmpty()) {
             return;
         }
+        if (PACKED_POLYLINES) {
+            insertPackedPolyline(connection, points);
+            return;
+        }
         try (PreparedStatement stmt = connection.prepareStatement(
             "INSERT INTO create_edge_polyline (edge_id, seq, x, y, z) VALUES (?, ?, ?, ?, ?)")) {
             for (CreateNetworkSnapshot.EdgePolylinePoint point : points) {
@@ -296,6 +318,21 @@ public final class CreateDatabase implements AutoCloseable {
         }
     }
 
+    private void insertPackedPolyline(Connection connection, List<CreateNetworkSnapshot.EdgePolylinePoint> points) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+            "INSERT OR REPLACE INTO create_edge_polyline_packed (edge_id, point_count, data) VALUES (?, ?, ?)")) {
+            for (Map.Entry<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> entry : CreatePolylineCodec.groupByEdge(points).entrySet()) {
+                List<CreateNetworkSnapshot.EdgePolylinePoint> edgePoints = entry.getValue();
+                edgePoints.sort(Comparator.comparingInt(CreateNetworkSnapshot.EdgePolylinePoint::getSeq));
+                stmt.setString(1, entry.getKey());
+                stmt.setInt(2, edgePoints.size());
+                stmt.setBytes(3, CreatePolylineCodec.encode(edgePoints));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
     private void insertStations(Connection connection, List<CreateNetworkSnapshot.StationInfo> stations) throws SQLException {
         if (stations.isEmpty()) {
             return;
@@ -433,6 +470,19 @@ public final class CreateDatabase implements AutoCloseable {
     }
 
     private List<CreateNetworkSnapshot.EdgePolylinePoint> queryPolylines(Connection connection, String graphId) throws SQLException {
+        List<CreateNetworkSnapshot.EdgePolylinePoint> points = new ArrayList<CreateNetworkSnapshot.EdgePolylinePoint>();
+        String packedSql = graphId == null
+            ? "SELECT edge_id, data FROM create_edge_polyline_packed ORDER BY edge_id"
+            : "SELECT ep.edge_id, ep.data FROM create_edge_polyline_packed ep INNER JOIN create_edges e ON ep.edge_id = e.edge_id WHERE e.graph_id = ? ORDER BY ep.edge_id";
+        try (PreparedStatement stmt = connection.prepareStatement(packedSql)) {
+            if (graphId != null) {
+                stmt.setString(1, graphId);
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                points.addAll(CreatePolylineCodec.decode(rs.getString("edge_id"), rs.getBytes("data")));
+            }
+        }
         String sql = graphId == null
             ? "SELECT edge_id, seq, x, y, z FROM create_edge_polyline ORDER BY edge_id, seq"
             : "SELECT ep.edge_id, ep.seq, ep.x, ep.y, ep.z FROM create_edge_polyline ep INNER JOIN create_edges e ON ep.edge_id = e.edge_id WHERE e.graph_id = ? ORDER BY ep.edge_id, ep.seq";
@@ -441,7 +491,6 @@ public final class CreateDatabase implements AutoCloseable {
                 stmt.setString(1, graphId);
             }
             ResultSet rs = stmt.executeQuery();
-            List<CreateNetworkSnapshot.EdgePolylinePoint> points = new ArrayList<CreateNetworkSnapshot.EdgePolylinePoint>();
             while (rs.next()) {
                 points.add(new CreateNetworkSnapshot.EdgePolylinePoint(
                     rs.getString("edge_id"),
@@ -451,8 +500,8 @@ public final class CreateDatabase implements AutoCloseable {
                     rs.getDouble("z")
                 ));
             }
-            return points;
         }
+        return points;
     }
 
     private List<CreateNetworkSnapshot.StationInfo> queryStations(Connection connection, String graphId) throws SQLException {
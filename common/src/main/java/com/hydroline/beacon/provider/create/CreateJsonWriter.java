@@ -1,304 +1,363 @@
 package com.hydroline.beacon.provider.create;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import com.google.gson.stream.JsonWriter;
+import com.hydroline.beacon.provider.util.PayloadWriter;
+import com.hydroline.beacon.provider.util.TreeJsonWriter;
+import java.io.IOException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Writes Create snapshots straight to a {@link JsonWriter}. The tree-returning methods are kept for callers that
+ * still want a {@link JsonObject} and produce the same structure.
+ */
 public final class CreateJsonWriter {
     private CreateJsonWriter() {
     }
 
     public static JsonObject writeNetworkSnapshot(CreateNetworkSnapshot snapshot, boolean includePolylines) {
-        JsonObject payload = new JsonObject();
-        payload.addProperty("timestamp", System.currentTimeMillis());
-        payload.add("graphs", writeGraphs(snapshot.getGraphs()));
-        payload.add("nodes", writeNodes(snapshot.getNodes()));
-        payload.add("edges", writeEdges(snapshot.getEdges()));
-        if (includePolylines) {
-            payload.add("edgePolylines", writeEdgePolylines(snapshot.getEdgePolylines()));
-        }
-        payload.add("stations", writeStations(snapshot.getStations()));
-        payload.add("signalBoundaries", writeSignalBoundaries(snapshot.getSignalBoundaries()));
-        payload.add("edgeSegments", writeEdgeSegments(snapshot.getEdgeSegments()));
-        return payload;
+        return TreeJsonWriter.build(writer -> writeNetworkSnapshot(writer, snapshot, includePolylines, false, null)).getAsJsonObject();
     }
 
     public static JsonObject writeRealtimeSnapshot(CreateRealtimeSnapshot snapshot) {
-        JsonObject payload = new JsonObject();
-        payload.addProperty("timestamp", snapshot.getCapturedAt());
-        payload.add("trains", writeTrains(snapshot.getTrains()));
-        payload.add("groups", writeGroups(snapshot.getGroups()));
-        return payload;
+        return TreeJsonWriter.build(writer -> writeRealtimeSnapshot(writer, snapshot)).getAsJsonObject();
+    }
+
+    /**
+     * @param packedPolylines write each polyline as {@link CreatePolylineCodec} bytes (base64) instead of points
+     * @param version appended as {@code version} when not {@code null}
+     */
+    public static void writeNetworkSnapshot(JsonWriter writer, CreateNetworkSnapshot snapshot, boolean includePolylines,
+                                            boolean packedPolylines, String version) throws IOException {
+        writer.beginObject();
+        writer.name("timestamp").value(System.currentTimeMillis());
+        writer.name("graphs");
+        writeGraphs(writer, snapshot.getGraphs());
+        if (PayloadWriter.keeps(writer, "nodes")) {
+            writer.name("nodes");
+            writeNodes(writer, snapshot.getNodes());
+        }
+        if (PayloadWriter.keeps(writer, "edges")) {
+            writer.name("edges");
+            writeEdges(writer, snapshot.getEdges());
+        }
+        if (includePolylines && PayloadWriter.keeps(writer, "edgePolylines")) {
+            if (packedPolylines) {
+                writer.name("polylineScale").value(CreatePolylineCodec.SCALE);
+            }
+            writer.name("edgePolylines");
+            writeEdgePolylines(writer, snapshot.getEdgePolylines(), packedPolylines);
+        }
+        writer.name("stations");
+        writeStations(writer, snapshot.getStations());
+        writer.name("signalBoundaries");
+        writeSignalBoundaries(writer, snapshot.getSignalBoundaries());
+        writer.name("edgeSegments");
+        writeEdgeSegments(writer, snapshot.getEdgeSegments());
+        if (version != null) {
+            writer.name("version").value(version);
+        }
+        writer.endObject();
     }
 
-    private static JsonArray writeGraphs(List<CreateNetworkSnapshot.GraphInfo> graphs) {
-        JsonArray array = new JsonArray();
+    public static void writeRealtimeSnapshot(JsonWriter writer, CreateRealtimeSnapshot snapshot) throws IOException {
+        writer.beginObject();
+        writer.name("timestamp").value(snapshot.getCapturedAt());
+        if (PayloadWriter.keeps(writer, "trains")) {
+            writer.name("trains");
+            writeTrains(writer, snapshot.getTrains());
+        }
+        if (PayloadWriter.keeps(writer, "groups")) {
+            writer.name("groups");
+            writeGroups(writer, snapshot.getGroups());
+        }
+        writer.endObject();
+    }
+
+    static void writeGraphs(JsonWriter writer, List<CreateNetworkSnapshot.GraphInfo> graphs) throws IOException {
+        writer.beginArray();
         for (CreateNetworkSnapshot.GraphInfo graph : graphs) {
-            JsonObject json = new JsonObject();
-            json.addProperty("graphId", graph.getGraphId());
-            json.addProperty("checksum", graph.getChecksum());
-            json.addProperty("color", graph.getColor());
-            json.addProperty("updatedAt", graph.getUpdatedAt());
-            array.add(json);
+            writer.beginObject();
+            writeString(writer, "graphId", graph.getGraphId());
+            writer.name("checksum").value(graph.getChecksum());
+            writer.name("color").value(graph.getColor());
+            writer.name("updatedAt").value(graph.getUpdatedAt());
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeNodes(List<CreateNetworkSnapshot.NodeInfo> nodes) {
-        JsonArray array = new JsonArray();
+    private static void writeNodes(JsonWriter writer, List<CreateNetworkSnapshot.NodeInfo> nodes) throws IOException {
+        writer.beginArray();
         for (CreateNetworkSnapshot.NodeInfo node : nodes) {
-            JsonObject json = new JsonObject();
-            json.addProperty("graphId", node.getGraphId());
-            json.addProperty("netId", node.getNetId());
-            json.addProperty("dimension", node.getDimension());
-            json.addProperty("x", node.getX());
-            json.addProperty("y", node.getY());
-            json.addProperty("z", node.getZ());
-            JsonArray normal = new JsonArray();
-            normal.add(node.getNormalX());
-            normal.add(node.getNormalY());
-            normal.add(node.getNormalZ());
-            json.add("normal", normal);
-            json.addProperty("yOffsetPixels", node.getYOffsetPixels());
-            array.add(json);
+            writer.beginObject();
+            writeString(writer, "graphId", node.getGraphId());
+            writer.name("netId").value(node.getNetId());
+            writeString(writer, "dimension", node.getDimension());
+            writer.name("x").value(node.getX());
+            writer.name("y").value(node.getY());
+            writer.name("z").value(node.getZ());
+            writer.name("normal").beginArray()
+                .value(node.getNormalX())
+                .value(node.getNormalY())
+                .value(node.getNormalZ())
+                .endArray();
+            writer.name("yOffsetPixels").value(node.getYOffsetPixels());
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeEdges(List<CreateNetworkSnapshot.EdgeInfo> edges) {
-        JsonArray array = new JsonArray();
+    private static void writeEdges(JsonWriter writer, List<CreateNetworkSnapshot.EdgeInfo> edges) throws IOException {
+        writer.beginArray();
         for (CreateNetworkSnapshot.EdgeInfo edge : edges) {
-            JsonObject json = new JsonObject();
-            json.addProperty("edgeId", edge.getEdgeId());
-            json.addProperty("graphId", edge.getGraphId());
-            json.addProperty("node1NetId", edge.getNode1NetId());
-            json.addProperty("node2NetId", edge.getNode2NetId());
-            json.addProperty("isTurn", edge.isTurn());
-            json.addProperty("isPortal", edge.isPortal());
-            json.addProperty("length", edge.getLength());
+            writer.beginObject();
+            writeString(writer, "edgeId", edge.getEdgeId());
+            writeString(writer, "graphId", edge.getGraphId());
+            writer.name("node1NetId").value(edge.getNode1NetId());
+            writer.name("node2NetId").value(edge.getNode2NetId());
+            writer.name("isTurn").value(edge.isTurn());
+            writer.name("isPortal").value(edge.isPortal());
+            writer.name("length").value(edge.getLength());
             if (edge.getMaterialId() != null) {
-                json.addProperty("materialId", edge.getMaterialId());
+                writeString(writer, "materialId", edge.getMaterialId());
             }
-            array.add(json);
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeEdgePolylines(List<CreateNetworkSnapshot.EdgePolylinePoint> points) {
-        Map<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> grouped = new LinkedHashMap<String, List<CreateNetworkSnapshot.EdgePolylinePoint>>();
-        for (CreateNetworkSnapshot.EdgePolylinePoint point : points) {
-            List<CreateNetworkSnapshot.EdgePolylinePoint> bucket = grouped.get(point.getEdgeId());
-            if (bucket == null) {
-                bucket = new ArrayList<CreateNetworkSnapshot.EdgePolylinePoint>();
-                grouped.put(point.getEdgeId(), bucket);
-            }
-            bucket.add(point);
-        }
-        JsonArray array = new JsonArray();
+    private static void writeEdgePolylines(JsonWriter writer, List<CreateNetworkSnapshot.EdgePolylinePoint> points,
+                                           boolean packed) throws IOException {
+        Map<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> grouped = CreatePolylineCodec.groupByEdge(points);
+        writer.beginArray();
         for (Map.Entry<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> entry : grouped.entrySet()) {
-            JsonObject json = new JsonObject();
-            json.addProperty("edgeId", entry.getKey());
-            JsonArray path = new JsonArray();
+            writer.beginObject();
+            writeString(writer, "edgeId", entry.getKey());
+            if (packed) {
+                writer.name("pointCount").value(entry.getValue().size());
+                writer.name("data").value(Base64.getEncoder().encodeToString(CreatePolylineCodec.encode(entry.getValue())));
+                writer.endObject();
+                continue;
+            }
+            writer.name("points").beginArray();
             for (CreateNetworkSnapshot.EdgePolylinePoint point : entry.getValue()) {
-                JsonArray coords = new JsonArray();
-                coords.add(point.getX());
-                coords.add(point.getY());
-                coords.add(point.getZ());
-                path.add(coords);
+                writer.beginArray()
+                    .value(point.getX())
+                    .value(point.getY())
+                    .value(point.getZ())
+                    .endArray();
             }
-            json.add("points", path);
-            array.add(json);
+            writer.endArray();
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeStations(List<CreateNetworkSnapshot.StationInfo> stations) {
-        JsonArray array = new JsonArray();
+    static void writeStations(JsonWriter writer, List<CreateNetworkSnapshot.StationInfo> stations) throws IOException {
+        writer.beginArray();
         for (CreateNetworkSnapshot.StationInfo station : stations) {
-            JsonObject json = new JsonObject();
-            json.addProperty("stationId", station.getStationId());
-            json.addProperty("graphId", station.getGraphId());
-            json.addProperty("edgeId", station.getEdgeId());
-            json.addProperty("position", station.getPosition());
+            writer.beginObject();
+            writeString(writer, "stationId", station.getStationId());
+            writeString(writer, "graphId", station.getGraphId());
+            writeString(writer, "edgeId", station.getEdgeId());
+            writer.name("position").value(station.getPosition());
             if (station.getName() != null) {
-                json.addProperty("name", station.getName());
+                writer.name("name").value(station.getName());
             }
-            json.addProperty("dimension", station.getDimension());
-            json.addProperty("x", station.getX());
-            json.addProperty("y", station.getY());
-            json.addProperty("z", station.getZ());
-            array.add(json);
+            writeString(writer, "dimension", station.getDimension());
+            writer.name("x").value(station.getX());
+            writer.name("y").value(station.getY());
+            writer.name("z").value(station.getZ());
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeSignalBoundaries(List<CreateNetworkSnapshot.SignalBoundaryInfo> boundaries) {
-        JsonArray array = new JsonArray();
+    static void writeSignalBoundaries(JsonWriter writer, List<CreateNetworkSnapshot.SignalBoundaryInfo> boundaries) throws IOException {
+        writer.beginArray();
         for (CreateNetworkSnapshot.SignalBoundaryInfo boundary : boundaries) {
-            JsonObject json = new JsonObject();
-            json.addProperty("boundaryId", boundary.getBoundaryId());
-            json.addProperty("graphId", boundary.getGraphId());
-            json.addProperty("edgeId", boundary.getEdgeId());
-            json.addProperty("position", boundary.getPosition());
+            writer.beginObject();
+            writer.name("boundaryId").value(boundary.getBoundaryId());
+            writeString(writer, "graphId", boundary.getGraphId());
+            writeString(writer, "edgeId", boundary.getEdgeId());
+            writer.name("position").value(boundary.getPosition());
             if (boundary.getGroupIdPrimary() != null) {
-                json.addProperty("groupIdPrimary", boundary.getGroupIdPrimary());
+                writeString(writer, "groupIdPrimary", boundary.getGroupIdPrimary());
             }
             if (boundary.getGroupIdSecondary() != null) {
-                json.addProperty("groupIdSecondary", boundary.getGroupIdSecondary());
+                writeString(writer, "groupIdSecondary", boundary.getGroupIdSecondary());
             }
-            json.addProperty("dimension", boundary.getDimension());
-            json.addProperty("x", boundary.getX());
-            json.addProperty("y", boundary.getY());
-            json.addProperty("z", boundary.getZ());
-            array.add(json);
+            writeString(writer, "dimension", boundary.getDimension());
+            writer.name("x").value(boundary.getX());
+            writer.name("y").value(boundary.getY());
+            writer.name("z").value(boundary.getZ());
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeEdgeSegments(List<CreateNetworkSnapshot.EdgeSegmentInfo> segments) {
-        JsonArray array = new JsonArray();
+    static void writeEdgeSegments(JsonWriter writer, List<CreateNetworkSnapshot.EdgeSegmentInfo> segments) throws IOException {
+        writer.beginArray();
         for (CreateNetworkSnapshot.EdgeSegmentInfo segment : segments) {
-            JsonObject json = new JsonObject();
-            json.addProperty("segmentId", segment.getSegmentId());
-            json.addProperty("edgeId", segment.getEdgeId());
-            json.addProperty("startPos", segment.getStartPos());
-            json.addProperty("endPos", segment.getEndPos());
+            writer.beginObject();
+            writer.name("segmentId").value(segment.getSegmentId());
+            writeString(writer, "edgeId", segment.getEdgeId());
+            writer.name("startPos").value(segment.getStartPos());
+            writer.name("endPos").value(segment.getEndPos());
             if (segment.getGroupId() != null) {
-                json.addProperty("groupId", segment.getGroupId());
+                writeString(writer, "groupId", segment.getGroupId());
             }
-            array.add(json);
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeTrains(List<CreateRealtimeSnapshot.TrainStatus> trains) {
-        JsonArray array = new JsonArray();
+    private static void writeTrains(JsonWriter writer, List<CreateRealtimeSnapshot.TrainStatus> trains) throws IOException {
+        writer.beginArray();
         for (CreateRealtimeSnapshot.TrainStatus train : trains) {
-            JsonObject json = new JsonObject();
-            json.addProperty("trainId", train.getTrainId());
-            json.addProperty("name", train.getName());
+            writer.beginObject();
+            writeString(writer, "trainId", train.getTrainId());
+            writer.name("name").value(train.getName());
             if (train.getIconId() != null) {
-                json.addProperty("iconId", train.getIconId());
+                writer.name("iconId").value(train.getIconId());
             }
-            json.addProperty("mapColorIndex", train.getMapColorIndex());
+            writer.name("mapColorIndex").value(train.getMapColorIndex());
             if (train.getStatus() != null) {
-                json.addProperty("status", train.getStatus());
+                writeString(writer, "status", train.getStatus());
             }
-            json.addProperty("speed", train.getSpeed());
-            json.addProperty("targetSpeed", train.getTargetSpeed());
-            json.addProperty("throttle", train.getThrottle());
-            json.addProperty("derailed", train.isDerailed());
+            writer.name("speed").value(train.getSpeed());
+            writer.name("targetSpeed").value(train.getTargetSpeed());
+            writer.name("throttle").value(train.getThrottle());
+            writer.name("derailed").value(train.isDerailed());
             if (train.getGraphId() != null) {
-                json.addProperty("graphId", train.getGraphId());
+                writeString(writer, "graphId", train.getGraphId());
             }
             if (train.getCurrentStationId() != null) {
-                json.addProperty("currentStationId", train.getCurrentStationId());
+                writeString(writer, "currentStationId", train.getCurrentStationId());
             }
             if (train.getScheduleTitle() != null) {
-                json.addProperty("scheduleTitle", train.getScheduleTitle());
+                writer.name("scheduleTitle").value(train.getScheduleTitle());
             }
             if (train.getScheduleEntry() != null) {
-                json.addProperty("scheduleEntry", train.getScheduleEntry());
+                writer.name("scheduleEntry").value(train.getScheduleEntry());
             }
             if (train.getScheduleState() != null) {
-                json.addProperty("scheduleState", train.getScheduleState());
+                writer.name("scheduleState").value(train.getScheduleState());
             }
-            json.addProperty("schedulePaused", train.isSchedulePaused());
-            json.addProperty("scheduleCompleted", train.isScheduleCompleted());
-            json.addProperty("scheduleAuto", train.isScheduleAuto());
-            json.add("positions", writeTrainPositions(train.getPositions()));
-            json.add("carriages", writeCarriages(train.getCarriages()));
-            array.add(json);
+            writer.name("schedulePaused").value(train.isSchedulePaused());
+            writer.name("scheduleCompleted").value(train.isScheduleCompleted());
+            writer.name("scheduleAuto").value(train.isScheduleAuto());
+            if (PayloadWriter.keeps(writer, "positions")) {
+                writer.name("positions");
+                writeTrainPositions(writer, train.getPositions());
+            }
+            if (PayloadWriter.keeps(writer, "carriages")) {
+                writer.name("carriages");
+                writeCarriages(writer, train.getCarriages());
+            }
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeTrainPositions(List<CreateRealtimeSnapshot.DimensionPosition> positions) {
-        JsonArray array = new JsonArray();
+    private static void writeTrainPositions(JsonWriter writer, List<CreateRealtimeSnapshot.DimensionPosition> positions) throws IOException {
+        writer.beginArray();
         for (CreateRealtimeSnapshot.DimensionPosition position : positions) {
-            JsonObject json = new JsonObject();
-            json.addProperty("dimension", position.getDimension());
-            json.addProperty("x", position.getX());
-            json.addProperty("y", position.getY());
-            json.addProperty("z", position.getZ());
-            array.add(json);
+            writer.beginObject();
+            writeString(writer, "dimension", position.getDimension());
+            writer.name("x").value(position.getX());
+            writer.name("y").value(position.getY());
+            writer.name("z").value(position.getZ());
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeCarriages(List<CreateRealtimeSnapshot.CarriageInfo> carriages) {
-        JsonArray array = new JsonArray();
+    private static void writeCarriages(JsonWriter writer, List<CreateRealtimeSnapshot.CarriageInfo> carriages) throws IOException {
+        writer.beginArray();
         for (CreateRealtimeSnapshot.CarriageInfo carriage : carriages) {
-            JsonObject json = new JsonObject();
-            json.addProperty("id", carriage.getId());
-            json.addProperty("bogeySpacing", carriage.getBogeySpacing());
+            writer.beginObject();
+            writer.name("id").value(carriage.getId());
+            writer.name("bogeySpacing").value(carriage.getBogeySpacing());
             if (carriage.getLeading() != null) {
-                json.add("leading", writeTravellingPoint(carriage.getLeading()));
+                writer.name("leading");
+                writeTravellingPoint(writer, carriage.getLeading());
             }
             if (carriage.getTrailing() != null) {
-                json.add("trailing", writeTravellingPoint(carriage.getTrailing()));
+                writer.name("trailing");
+                writeTravellingPoint(writer, carriage.getTrailing());
             }
             if (carriage.getLeadingBogey() != null) {
-                json.add("leadingBogey", writeBogey(carriage.getLeadingBogey()));
+                writer.name("leadingBogey");
+                writeBogey(writer, carriage.getLeadingBogey());
             }
             if (carriage.getTrailingBogey() != null) {
-                json.add("trailingBogey", writeBogey(carriage.getTrailingBogey()));
+                writer.name("trailingBogey");
+                writeBogey(writer, carriage.getTrailingBogey());
             }
-            array.add(json);
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonObject writeTravellingPoint(CreateRealtimeSnapshot.TravellingPointInfo point) {
-        JsonObject json = new JsonObject();
+    private static void writeTravellingPoint(JsonWriter writer, CreateRealtimeSnapshot.TravellingPointInfo point) throws IOException {
+        writer.beginObject();
         if (point.getEdgeId() != null) {
-            json.addProperty("edgeId", point.getEdgeId());
+            writeString(writer, "edgeId", point.getEdgeId());
         }
-        json.addProperty("node1NetId", point.getNode1NetId());
-        json.addProperty("node2NetId", point.getNode2NetId());
-        json.addProperty("position", point.getPosition());
+        writer.name("node1NetId").value(point.getNode1NetId());
+        writer.name("node2NetId").value(point.getNode2NetId());
+        writer.name("position").value(point.getPosition());
         if (point.getDimension() != null) {
-            json.addProperty("dimension", point.getDimension());
+            writeString(writer, "dimension", point.getDimension());
         }
-        json.addProperty("x", point.getX());
-        json.addProperty("y", point.getY());
-        json.addProperty("z", point.getZ());
-        return json;
+        writer.name("x").value(point.getX());
+        writer.name("y").value(point.getY());
+        writer.name("z").value(point.getZ());
+        writer.endObject();
     }
 
-    private static JsonObject writeBogey(CreateRealtimeSnapshot.BogeyInfo bogey) {
-        JsonObject json = new JsonObject();
+    private static void writeBogey(JsonWriter writer, CreateRealtimeSnapshot.BogeyInfo bogey) throws IOException {
+        writer.beginObject();
         if (bogey.getStyleId() != null) {
-            json.addProperty("styleId", bogey.getStyleId());
+            writeString(writer, "styleId", bogey.getStyleId());
         }
         if (bogey.getSize() != null) {
-            json.addProperty("size", bogey.getSize());
+            writer.name("size").value(bogey.getSize());
         }
-        json.addProperty("upsideDown", bogey.isUpsideDown());
-        return json;
+        writer.name("upsideDown").value(bogey.isUpsideDown());
+        writer.endObject();
+    }
+
+    /**
+     * Ids and names repeat across rows, so they go through the string table when the request enables it.
+     */
+    private static void writeString(JsonWriter writer, String name, String value) throws IOException {
+        writer.name(name);
+        PayloadWriter.string(writer, value);
     }
 
-    private static JsonArray writeGroups(List<CreateRealtimeSnapshot.GroupStatus> groups) {
-        JsonArray array = new JsonArray();
+    private static void writeGroups(JsonWriter writer, List<CreateRealtimeSnapshot.GroupStatus> groups) throws IOException {
+        writer.beginArray();
         for (CreateRealtimeSnapshot.GroupStatus group : groups) {
-            JsonObject json = new JsonObject();
-            json.addProperty("groupId", group.getGroupId());
+            writer.beginObject();
+            writeString(writer, "groupId", group.getGroupId());
             if (group.getColor() != null) {
-                json.addProperty("color", group.getColor());
+                writer.name("color").value(group.getColor());
             }
             if (group.getReservedBoundaryId() != null) {
-                json.addProperty("reservedBoundaryId", group.getReservedBoundaryId());
+                writeString(writer, "reservedBoundaryId", group.getReservedBoundaryId());
             }
-            JsonArray trains = new JsonArray();
+            writer.name("trainIds").beginArray();
             for (String trainId : group.getTrainIds()) {
-                trains.add(trainId);
+                PayloadWriter.string(writer, trainId);
             }
-            json.add("trainIds", trains);
-            array.add(json);
+            writer.endArray();
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 }
@@ -0,0 +1,119 @@
+package com.hydroline.beacon.provider.create;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact form of one edge polyline: every coordinate is quantized to {@code 1/SCALE} of a block, the first
+ * point is stored as-is and each following point as the difference to its predecessor, and each value is written
+ * as a zigzag varint. Block-scale curves mostly need one byte per coordinate.
+ */
+public final class CreatePolylineCodec {
+    /** {@code polylineEncoding} value of {@code create:get_network} that selects this form. */
+    public static final String ENCODING = "delta";
+    /** Fixed-point steps per block. */
+    public static final int SCALE = 64;
+
+    private CreatePolylineCodec() {
+    }
+
+    /**
+     * @param points the points of a single edge, in {@code seq} order
+     */
+    public static byte[] encode(List<CreateNetworkSnapshot.EdgePolylinePoint> points) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(points.size() * 3 + 8);
+        encodeTo(points, out);
+        return out.toByteArray();
+    }
+
+    static void encodeTo(List<CreateNetworkSnapshot.EdgePolylinePoint> points, ByteArrayOutputStream out) {
+        long lastX = 0L;
+        long lastY = 0L;
+        long lastZ = 0L;
+        for (CreateNetworkSnapshot.EdgePolylinePoint point : points) {
+            long x = quantize(point.getX());
+            long y = quantize(point.getY());
+            long z = quantize(point.getZ());
+            writeVarLong(out, zigzag(x - lastX));
+            writeVarLong(out, zigzag(y - lastY));
+            writeVarLong(out, zigzag(z - lastZ));
+            lastX = x;
+            lastY = y;
+            lastZ = z;
+        }
+    }
+
+    /**
+     * Inverse of {@link #encode(List)}; points get {@code seq} 0..n-1.
+     */
+    public static List<CreateNetworkSnapshot.EdgePolylinePoint> decode(String edgeId, byte[] data) {
+        List<CreateNetworkSnapshot.EdgePolylinePoint> points = new ArrayList<CreateNetworkSnapshot.EdgePolylinePoint>();
+        int[] cursor = {0};
+        long x = 0L;
+        long y = 0L;
+        long z = 0L;
+        while (cursor[0] < data.length) {
+            x += unzigzag(readVarLong(data, cursor));
+            y += unzigzag(readVarLong(data, cursor));
+            z += unzigzag(readVarLong(data, cursor));
+            points.add(new CreateNetworkSnapshot.EdgePolylinePoint(edgeId, points.size(),
+                (double) x / SCALE, (double) y / SCALE, (double) z / SCALE));
+        }
+        return points;
+    }
+
+    /**
+     * Groups points by edge, keeping first-seen edge order and the points' relative order.
+     */
+    public static Map<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> groupByEdge(List<CreateNetworkSnapshot.EdgePolylinePoint> points) {
+        Map<String, List<CreateNetworkSnapshot.EdgePolylinePoint>> grouped = new LinkedHashMap<String, List<CreateNetworkSnapshot.EdgePolylinePoint>>();
+        for (CreateNetworkSnapshot.EdgePolylinePoint point : points) {
+            List<CreateNetworkSnapshot.EdgePolylinePoint> bucket = grouped.get(point.getEdgeId());
+            if (bucket == null) {
+                bucket = new ArrayList<CreateNetworkSnapshot.EdgePolylinePoint>();
+                grouped.put(point.getEdgeId(), bucket);
+            }
+            bucket.add(point);
+        }
+        return grouped;
+    }
+
+    private static long quantize(double value) {
+        return Math.round(value * SCALE);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0L) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] data, int[] cursor) {
+        long value = 0L;
+        int shift = 0;
+        while (true) {
+            if (cursor[0] >= data.length || shift > 63) {
+                throw new IllegalArgumentException("Truncated polyline data");
+            }
+            byte b = data[cursor[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
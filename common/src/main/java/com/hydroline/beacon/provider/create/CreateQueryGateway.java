@@ -1,5 +1,7 @@
 package com.hydroline.beacon.provider.create;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CreateQueryGateway {
@@ -9,6 +11,13 @@ public interface CreateQueryGateway {
 
     CreateRealtimeSnapshot fetchRealtimeSnapshot();
 
+    /**
+     * @return checksum per cached graph; the cached network only changes when one of these does.
+     */
+    default Map<String, Integer> fetchGraphChecksums() {
+        return Collections.emptyMap();
+    }
+
     CreateQueryGateway UNAVAILABLE = new CreateQueryGateway() {
         @Override
         public boolean isReady() {
@@ -1,9 +1,18 @@
 package com.hydroline.beacon.provider.create;
 
+import com.hydroline.beacon.provider.BeaconProviderMod;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public final class CreateQueryRegistry {
     private static final AtomicReference<CreateQueryGateway> GATEWAY = new AtomicReference<CreateQueryGateway>(CreateQueryGateway.UNAVAILABLE);
+    private static final List<Consumer<CreateRealtimeSnapshot>> REALTIME_LISTENERS = new CopyOnWriteArrayList<Consumer<CreateRealtimeSnapshot>>();
+    private static final ThreadLocal<CreateRealtimeSnapshot> SCOPED_REALTIME = new ThreadLocal<CreateRealtimeSnapshot>();
+    private static final AtomicLong NETWORK_GENERATION = new AtomicLong();
 
     private CreateQueryRegistry() {
     }
@@ -14,5 +23,69 @@ public final class CreateQueryRegistry {
 
     public static void register(CreateQueryGateway gateway) {
         GATEWAY.set(gateway == null ? CreateQueryGateway.UNAVAILABLE : gateway);
+        markNetworkChanged();
+    }
+
+    /**
+     * @return a counter bumped whenever the stored Create network changes.
+     */
+    public static long networkGeneration() {
+        return NETWORK_GENERATION.get();
+    }
+
+    public static void markNetworkChanged() {
+        NETWORK_GENERATION.incrementAndGet();
+    }
+
+    /**
+     * @return the snapshot set by {@link #withRealtime} on this thread if any, otherwise the gateway's latest one.
+     */
+    public static CreateRealtimeSnapshot fetchRealtimeSnapshot() {
+        CreateRealtimeSnapshot scoped = SCOPED_REALTIME.get();
+        return scoped != null ? scoped : GATEWAY.get().fetchRealtimeSnapshot();
+    }
+
+    /**
+     * Runs {@code task} with {@link #fetchRealtimeSnapshot()} returning {@code snapshot} on the current thread.
+     */
+    public static <T> T withRealtime(CreateRealtimeSnapshot snapshot, Supplier<T> task) {
+        CreateRealtimeSnapshot previous = SCOPED_REALTIME.get();
+        SCOPED_REALTIME.set(snapshot);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                SCOPED_REALTIME.set(previous);
+            } else {
+                SCOPED_REALTIME.remove();
+            }
+        }
+    }
+
+    /**
+     * Registers a callback invoked every time the loader captures a new realtime snapshot. Callbacks run on the
+     * capturing thread (usually the server thread) and must hand heavy work off.
+     */
+    public static void addRealtimeListener(Consumer<CreateRealtimeSnapshot> listener) {
+        if (listener != null) {
+            REALTIME_LISTENERS.add(listener);
+        }
+    }
+
+    public static void removeRealtimeListener(Consumer<CreateRealtimeSnapshot> listener) {
+        REALTIME_LISTENERS.remove(listener);
+    }
+
+    public static void publishRealtime(CreateRealtimeSnapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        for (Consumer<CreateRealtimeSnapshot> listener : REALTIME_LISTENERS) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException ex) {
+                BeaconProviderMod.LOGGER.warn("Create realtime listener failed", ex);
+            }
+        }
     }
 }
@@ -21,7 +21,7 @@ public final class BeaconGatewayManager {
             return;
         }
         GatewayConfig config = configLoader.load(configDir);
-        if (config.listenPort() <= 0) {
+        if (!config.hasListener()) {
             BeaconProviderMod.LOGGER.info("Beacon Netty gateway disabled via config");
             return;
         }
@@ -4,6 +4,20 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.MessageSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.UUID;
@@ -14,26 +28,106 @@ public final class GatewayCodec {
     private GatewayCodec() {
     }
 
-    public static GatewayEnvelope decode(byte[] payload) {
-        JsonObject root = GSON.fromJson(new String(payload, StandardCharsets.UTF_8), JsonObject.class);
-        if (root == null || !root.has("type")) {
-            throw new JsonParseException("Missing type field");
+    /**
+     * Decodes a frame in a single streaming pass. Request bodies are read straight into a
+     * {@link BeaconMessage}; other bodies become a {@link JsonObject}.
+     */
+    public static GatewayEnvelope decode(ByteBuf frame) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteBufInputStream(frame), StandardCharsets.UTF_8))) {
+            GatewayMessageType type = null;
+            UUID connectionId = null;
+            JsonObject body = null;
+            BeaconMessage request = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "type":
+                        type = GatewayMessageType.fromWireName(reader.nextString());
+                        break;
+                    case "connectionId":
+                        connectionId = UUID.fromString(reader.nextString());
+                        break;
+                    case "body":
+                        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                            reader.skipValue();
+                        } else if (type == GatewayMessageType.REQUEST) {
+                            request = MessageSerializer.read(reader);
+                        } else {
+                            body = GSON.fromJson(reader, JsonObject.class);
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            if (type == null) {
+                throw new JsonParseException("Missing type field");
+            }
+            if (body == null) {
+                body = new JsonObject();
+            }
+            if (type == GatewayMessageType.REQUEST && request == null) {
+                // body appeared before type, fall back to the tree we already built
+                request = MessageSerializer.read(body);
+            }
+            return new GatewayEnvelope(type, connectionId, body, request);
         }
-        GatewayMessageType type = GatewayMessageType.fromWireName(root.get("type").getAsString());
-        UUID connectionId = root.has("connectionId") ? UUID.fromString(root.get("connectionId").getAsString()) : null;
-        JsonObject body = root.has("body") && root.get("body").isJsonObject() ? root.getAsJsonObject("body") : new JsonObject();
-        return new GatewayEnvelope(type, connectionId, body);
     }
 
-    public static byte[] encode(GatewayMessageType type, UUID connectionId, JsonObject body) {
-        JsonObject root = new JsonObject();
-        root.addProperty("type", type.wireName());
-        root.addProperty("timestamp", Instant.now().toEpochMilli());
-        if (connectionId != null) {
-            root.addProperty("connectionId", connectionId.toString());
+    public static ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body) {
+        JsonObject value = body != null ? body : new JsonObject();
+        return writeFrame(alloc, type, connectionId, (writer, out) -> GSON.toJson(value, writer));
+    }
+
+    public static ByteBuf encodeResponse(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, BeaconResponse response) {
+        return writeFrame(alloc, type, connectionId, (writer, out) -> MessageSerializer.write(response, writer, out));
+    }
+
+    /**
+     * Streams the envelope straight into a pooled buffer behind a 4-byte length placeholder that is
+     * back-patched once the body has been written, so no intermediate String/byte[] copy is made.
+     */
+    private static ByteBuf writeFrame(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, BodyWriter bodyWriter) {
+        ByteBuf buffer = alloc.ioBuffer();
+        boolean success = false;
+        try {
+            buffer.writeInt(0);
+            ByteBufOutputStream out = new ByteBufOutputStream(buffer);
+            try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                writer.beginObject();
+                writer.name("type").value(type.wireName());
+                writer.name("timestamp").value(Instant.now().toEpochMilli());
+                if (connectionId != null) {
+                    writer.name("connectionId").value(connectionId.toString());
+                }
+                writer.name("body");
+                bodyWriter.write(writer, out);
+                writer.endObject();
+            }
+            buffer.setInt(0, buffer.readableBytes() - GatewayServer.LENGTH_FIELD_BYTES);
+            success = true;
+            return buffer;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to encode gateway frame", ex);
+        } finally {
+            if (!success) {
+                buffer.release();
+            }
         }
-        root.add("body", body != null ? body : new JsonObject());
-        return GSON.toJson(root).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface BodyWriter {
+        /**
+         * @param out the stream beneath {@code writer}; only touch it right after {@code writer.flush()}.
+         */
+        void write(JsonWriter writer, OutputStream out) throws IOException;
     }
 
     public static JsonObject parseBody(byte[] payload) {
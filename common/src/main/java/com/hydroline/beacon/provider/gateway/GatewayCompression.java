@@ -0,0 +1,131 @@
+package com.hydroline.beacon.provider.gateway;
+
+import com.google.gson.JsonParseException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Per-frame compression negotiated via {@code compression} in the handshake. Once negotiated, every frame
+ * payload (after the length prefix) starts with a one-byte flag: {@link #FLAG_PLAIN} or {@link #FLAG_DEFLATE}.
+ * Only frames at or above the configured threshold are compressed.
+ */
+public enum GatewayCompression {
+    NONE("none"),
+    DEFLATE("deflate");
+
+    static final byte FLAG_PLAIN = 0;
+    static final byte FLAG_DEFLATE = 1;
+    private static final int MAX_INFLATED_BYTES = 64 * 1024 * 1024;
+
+    private final String wireName;
+
+    GatewayCompression(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String wireName() {
+        return wireName;
+    }
+
+    /**
+     * Rewrites an encoded frame (length prefix included) so it carries the compression flag. Takes ownership
+     * of {@code frame}.
+     */
+    ByteBuf wrap(ByteBufAllocator alloc, ByteBuf frame, int thresholdBytes) {
+        if (this == NONE) {
+            return frame;
+        }
+        int bodyLength = frame.readableBytes() - GatewayServer.LENGTH_FIELD_BYTES;
+        try {
+            if (bodyLength < thresholdBytes) {
+                ByteBuf header = alloc.ioBuffer(GatewayServer.LENGTH_FIELD_BYTES + 1);
+                header.writeInt(bodyLength + 1).writeByte(FLAG_PLAIN);
+                CompositeByteBuf composite = alloc.compositeBuffer(2);
+                composite.addComponents(true, header,
+                    frame.retainedSlice(frame.readerIndex() + GatewayServer.LENGTH_FIELD_BYTES, bodyLength));
+                return composite;
+            }
+            return deflate(alloc, frame, bodyLength);
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * Strips the flag byte from an inbound frame. Returns {@code frame} itself for plain frames, or a newly
+     * allocated buffer the caller must release for compressed ones.
+     */
+    ByteBuf unwrap(ByteBufAllocator alloc, ByteBuf frame) throws IOException {
+        if (this == NONE) {
+            return frame;
+        }
+        byte flag = frame.readByte();
+        if (flag == FLAG_PLAIN) {
+            return frame;
+        }
+        if (flag != FLAG_DEFLATE) {
+            throw new JsonParseException("Unknown compression flag: " + flag);
+        }
+        return inflate(alloc, frame);
+    }
+
+    private static ByteBuf deflate(ByteBufAllocator alloc, ByteBuf frame, int bodyLength) {
+        ByteBuf out = alloc.ioBuffer(Math.max(256, bodyLength / 4));
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        boolean success = false;
+        try {
+            out.writeInt(0).writeByte(FLAG_DEFLATE);
+            try (DeflaterOutputStream stream = new DeflaterOutputStream(new ByteBufOutputStream(out), deflater, 8192)) {
+                frame.getBytes(frame.readerIndex() + GatewayServer.LENGTH_FIELD_BYTES, stream, bodyLength);
+            }
+            out.setInt(0, out.readableBytes() - GatewayServer.LENGTH_FIELD_BYTES);
+            success = true;
+            return out;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to compress gateway frame", ex);
+        } finally {
+            deflater.end();
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    private static ByteBuf inflate(ByteBufAllocator alloc, ByteBuf frame) throws IOException {
+        ByteBuf out = alloc.heapBuffer(frame.readableBytes() * 4);
+        boolean success = false;
+        try (InputStream stream = new InflaterInputStream(new ByteBufInputStream(frame))) {
+            while (out.writeBytes(stream, 8192) > 0) {
+                if (out.readableBytes() > MAX_INFLATED_BYTES) {
+                    throw new JsonParseException("Inflated frame exceeds " + MAX_INFLATED_BYTES + " bytes");
+                }
+            }
+            success = true;
+            return out;
+        } finally {
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * @return the matching mode, or {@code null} if the name is unknown.
+     */
+    public static GatewayCompression fromWireName(String wireName) {
+        for (GatewayCompression compression : values()) {
+            if (compression.wireName.equalsIgnoreCase(wireName)) {
+                return compression;
+            }
+        }
+        return null;
+    }
+}
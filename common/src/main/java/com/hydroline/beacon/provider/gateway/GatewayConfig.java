@@ -8,6 +8,20 @@ public final class GatewayConfig {
     private final String authToken;
     private final int handshakeTimeoutSeconds;
     private final int idleTimeoutSeconds;
+    private final int dispatchThreads;
+    private final int dispatchQueueCapacity;
+    private final int maxInFlightRequests;
+    private final int compressionThresholdBytes;
+    private final int responseChunkBytes;
+    private final String transport;
+    private final int workerThreads;
+    private final int writeBufferLowWaterMark;
+    private final int writeBufferHighWaterMark;
+    private final boolean pooledDirectBuffers;
+    private final int slowConsumerTimeoutSeconds;
+    private final int subscriptionPollIntervalMillis;
+    private final int maxSubscriptionsPerConnection;
+    private final String unixSocketPath;
 
     private GatewayConfig(Builder builder) {
         this.listenAddress = builder.listenAddress;
@@ -15,6 +29,20 @@ public final class GatewayConfig {
         this.authToken = builder.authToken;
         this.handshakeTimeoutSeconds = builder.handshakeTimeoutSeconds;
         this.idleTimeoutSeconds = builder.idleTimeoutSeconds;
+        this.dispatchThreads = builder.dispatchThreads;
+        this.dispatchQueueCapacity = builder.dispatchQueueCapacity;
+        this.maxInFlightRequests = builder.maxInFlightRequests;
+        this.compressionThresholdBytes = builder.compressionThresholdBytes;
+        this.responseChunkBytes = builder.responseChunkBytes;
+        this.transport = builder.transport;
+        this.workerThreads = builder.workerThreads;
+        this.writeBufferLowWaterMark = builder.writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = builder.writeBufferHighWaterMark;
+        this.pooledDirectBuffers = builder.pooledDirectBuffers;
+        this.slowConsumerTimeoutSeconds = builder.slowConsumerTimeoutSeconds;
+        this.subscriptionPollIntervalMillis = builder.subscriptionPollIntervalMillis;
+        this.maxSubscriptionsPerConnection = builder.maxSubscriptionsPerConnection;
+        this.unixSocketPath = builder.unixSocketPath;
     }
 
     public static Builder builder() {
@@ -28,6 +56,20 @@ public final class GatewayConfig {
             .authToken("change-me")
             .handshakeTimeoutSeconds(10)
             .idleTimeoutSeconds(240)
+            .dispatchThreads(2)
+            .dispatchQueueCapacity(128)
+            .maxInFlightRequests(16)
+            .compressionThresholdBytes(16 * 1024)
+            .responseChunkBytes(512 * 1024)
+            .transport("auto")
+            .workerThreads(2)
+            .writeBufferLowWaterMark(256 * 1024)
+            .writeBufferHighWaterMark(1024 * 1024)
+            .pooledDirectBuffers(true)
+            .slowConsumerTimeoutSeconds(30)
+            .subscriptionPollIntervalMillis(500)
+            .maxSubscriptionsPerConnection(32)
+            .unixSocketPath("")
             .build();
     }
 
@@ -51,12 +93,102 @@ public final class GatewayConfig {
         return idleTimeoutSeconds;
     }
 
+    public int dispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public int dispatchQueueCapacity() {
+        return dispatchQueueCapacity;
+    }
+
+    public int maxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public int compressionThresholdBytes() {
+        return compressionThresholdBytes;
+    }
+
+    public int responseChunkBytes() {
+        return responseChunkBytes;
+    }
+
+    /**
+     * @return {@code auto}, {@code epoll} or {@code nio}.
+     */
+    public String transport() {
+        return transport;
+    }
+
+    public int workerThreads() {
+        return workerThreads;
+    }
+
+    public int writeBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int writeBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public boolean pooledDirectBuffers() {
+        return pooledDirectBuffers;
+    }
+
+    /**
+     * @return how long a connection may stay above the write buffer high water mark before it is closed;
+     * {@code 0} disables the deadline.
+     */
+    public int slowConsumerTimeoutSeconds() {
+        return slowConsumerTimeoutSeconds;
+    }
+
+    /**
+     * @return how often polled subscription topics (MTR trains/schedules) are re-evaluated.
+     */
+    public int subscriptionPollIntervalMillis() {
+        return subscriptionPollIntervalMillis;
+    }
+
+    public int maxSubscriptionsPerConnection() {
+        return maxSubscriptionsPerConnection;
+    }
+
+    /**
+     * @return path of an additional AF_UNIX listener, or an empty string when disabled.
+     */
+    public String unixSocketPath() {
+        return unixSocketPath;
+    }
+
+    /**
+     * @return {@code true} if at least one listener (TCP or unix socket) is configured.
+     */
+    public boolean hasListener() {
+        return listenPort > 0 || !unixSocketPath.isEmpty();
+    }
+
     public static final class Builder {
         private String listenAddress;
         private int listenPort;
         private String authToken;
         private int handshakeTimeoutSeconds;
         private int idleTimeoutSeconds;
+        private int dispatchThreads;
+        private int dispatchQueueCapacity;
+        private int maxInFlightRequests;
+        private int compressionThresholdBytes;
+        private int responseChunkBytes;
+        private String transport = "auto";
+        private int workerThreads;
+        private int writeBufferLowWaterMark;
+        private int writeBufferHighWaterMark;
+        private boolean pooledDirectBuffers;
+        private int slowConsumerTimeoutSeconds;
+        private int subscriptionPollIntervalMillis;
+        private int maxSubscriptionsPerConnection;
+        private String unixSocketPath = "";
 
         private Builder() {
         }
@@ -86,6 +218,76 @@ public final class GatewayConfig {
             return this;
         }
 
+        public Builder dispatchThreads(int threads) {
+            this.dispatchThreads = threads;
+            return this;
+        }
+
+        public Builder dispatchQueueCapacity(int capacity) {
+            this.dispatchQueueCapacity = capacity;
+            return this;
+        }
+
+        public Builder maxInFlightRequests(int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        public Builder compressionThresholdBytes(int bytes) {
+            this.compressionThresholdBytes = bytes;
+            return this;
+        }
+
+        public Builder responseChunkBytes(int bytes) {
+            this.responseChunkBytes = bytes;
+            return this;
+        }
+
+        public Builder transport(String transport) {
+            this.transport = Objects.requireNonNull(transport, "transport");
+            return this;
+        }
+
+        public Builder workerThreads(int threads) {
+            this.workerThreads = threads;
+            return this;
+        }
+
+        public Builder writeBufferLowWaterMark(int bytes) {
+            this.writeBufferLowWaterMark = bytes;
+            return this;
+        }
+
+        public Builder writeBufferHighWaterMark(int bytes) {
+            this.writeBufferHighWaterMark = bytes;
+            return this;
+        }
+
+        public Builder pooledDirectBuffers(boolean pooled) {
+            this.pooledDirectBuffers = pooled;
+            return this;
+        }
+
+        public Builder slowConsumerTimeoutSeconds(int seconds) {
+            this.slowConsumerTimeoutSeconds = seconds;
+            return this;
+        }
+
+        public Builder subscriptionPollIntervalMillis(int millis) {
+            this.subscriptionPollIntervalMillis = millis;
+            return this;
+        }
+
+        public Builder maxSubscriptionsPerConnection(int max) {
+            this.maxSubscriptionsPerConnection = max;
+            return this;
+        }
+
+        public Builder unixSocketPath(String path) {
+            this.unixSocketPath = path == null ? "" : path.trim();
+            return this;
+        }
+
         public GatewayConfig build() {
             if (listenAddress == null) {
                 throw new IllegalStateException("listenAddress not set");
@@ -102,6 +304,39 @@ public final class GatewayConfig {
             if (idleTimeoutSeconds <= 0) {
                 throw new IllegalStateException("idleTimeoutSeconds must be > 0");
             }
+            if (dispatchThreads <= 0) {
+                throw new IllegalStateException("dispatchThreads must be > 0");
+            }
+            if (dispatchQueueCapacity <= 0) {
+                throw new IllegalStateException("dispatchQueueCapacity must be > 0");
+            }
+            if (maxInFlightRequests <= 0) {
+                throw new IllegalStateException("maxInFlightRequests must be > 0");
+            }
+            if (compressionThresholdBytes <= 0) {
+                throw new IllegalStateException("compressionThresholdBytes must be > 0");
+            }
+            if (responseChunkBytes <= 0) {
+                throw new IllegalStateException("responseChunkBytes must be > 0");
+            }
+            if (!"auto".equalsIgnoreCase(transport) && !"epoll".equalsIgnoreCase(transport) && !"nio".equalsIgnoreCase(transport)) {
+                throw new IllegalStateException("transport must be one of auto, epoll, nio");
+            }
+            if (workerThreads < 0) {
+                throw new IllegalStateException("workerThreads must be >= 0");
+            }
+            if (writeBufferLowWaterMark <= 0 || writeBufferHighWaterMark < writeBufferLowWaterMark) {
+                throw new IllegalStateException("writeBuffer water marks must satisfy 0 < low <= high");
+            }
+            if (slowConsumerTimeoutSeconds < 0) {
+                throw new IllegalStateException("slowConsumerTimeoutSeconds must be >= 0");
+            }
+            if (subscriptionPollIntervalMillis <= 0) {
+                throw new IllegalStateException("subscriptionPollIntervalMillis must be > 0");
+            }
+            if (maxSubscriptionsPerConnection < 0) {
+                throw new IllegalStateException("maxSubscriptionsPerConnection must be >= 0");
+            }
             return new GatewayConfig(this);
         }
     }
@@ -56,6 +56,20 @@ public final class GatewayConfigLoader {
         builder.authToken(json.has("authToken") ? json.get("authToken").getAsString() : "change-me");
         builder.handshakeTimeoutSeconds(json.has("handshakeTimeoutSeconds") ? json.get("handshakeTimeoutSeconds").getAsInt() : 10);
         builder.idleTimeoutSeconds(json.has("idleTimeoutSeconds") ? json.get("idleTimeoutSeconds").getAsInt() : 240);
+        builder.dispatchThreads(json.has("dispatchThreads") ? json.get("dispatchThreads").getAsInt() : 2);
+        builder.dispatchQueueCapacity(json.has("dispatchQueueCapacity") ? json.get("dispatchQueueCapacity").getAsInt() : 128);
+        builder.maxInFlightRequests(json.has("maxInFlightRequests") ? json.get("maxInFlightRequests").getAsInt() : 16);
+        builder.compressionThresholdBytes(json.has("compressionThresholdBytes") ? json.get("compressionThresholdBytes").getAsInt() : 16 * 1024);
+        builder.responseChunkBytes(json.has("responseChunkBytes") ? json.get("responseChunkBytes").getAsInt() : 512 * 1024);
+        builder.transport(json.has("transport") ? json.get("transport").getAsString() : "auto");
+        builder.workerThreads(json.has("workerThreads") ? json.get("workerThreads").getAsInt() : 2);
+        builder.writeBufferLowWaterMark(json.has("writeBufferLowWaterMark") ? json.get("writeBufferLowWaterMark").getAsInt() : 256 * 1024);
+        builder.writeBufferHighWaterMark(json.has("writeBufferHighWaterMark") ? json.get("writeBufferHighWaterMark").getAsInt() : 1024 * 1024);
+        builder.pooledDirectBuffers(!json.has("pooledDirectBuffers") || json.get("pooledDirectBuffers").getAsBoolean());
+        builder.slowConsumerTimeoutSeconds(json.has("slowConsumerTimeoutSeconds") ? json.get("slowConsumerTimeoutSeconds").getAsInt() : 30);
+        builder.subscriptionPollIntervalMillis(json.has("subscriptionPollIntervalMillis") ? json.get("subscriptionPollIntervalMillis").getAsInt() : 500);
+        builder.maxSubscriptionsPerConnection(json.has("maxSubscriptionsPerConnection") ? json.get("maxSubscriptionsPerConnection").getAsInt() : 32);
+        builder.unixSocketPath(json.has("unixSocketPath") ? json.get("unixSocketPath").getAsString() : "");
         try {
             return builder.build();
         } catch (IllegalStateException ex) {
@@ -71,6 +85,20 @@ public final class GatewayConfigLoader {
         json.addProperty("authToken", config.authToken());
         json.addProperty("handshakeTimeoutSeconds", config.handshakeTimeoutSeconds());
         json.addProperty("idleTimeoutSeconds", config.idleTimeoutSeconds());
+        json.addProperty("dispatchThreads", config.dispatchThreads());
+        json.addProperty("dispatchQueueCapacity", config.dispatchQueueCapacity());
+        json.addProperty("maxInFlightRequests", config.maxInFlightRequests());
+        json.addProperty("compressionThresholdBytes", config.compressionThresholdBytes());
+        json.addProperty("responseChunkBytes", config.responseChunkBytes());
+        json.addProperty("transport", config.transport());
+        json.addProperty("workerThreads", config.workerThreads());
+        json.addProperty("writeBufferLowWaterMark", config.writeBufferLowWaterMark());
+        json.addProperty("writeBufferHighWaterMark", config.writeBufferHighWaterMark());
+        json.addProperty("pooledDirectBuffers", config.pooledDirectBuffers());
+        json.addProperty("slowConsumerTimeoutSeconds", config.slowConsumerTimeoutSeconds());
+        json.addProperty("subscriptionPollIntervalMillis", config.subscriptionPollIntervalMillis());
+        json.addProperty("maxSubscriptionsPerConnection", config.maxSubscriptionsPerConnection());
+        json.addProperty("unixSocketPath", config.unixSocketPath());
         return json;
     }
 }
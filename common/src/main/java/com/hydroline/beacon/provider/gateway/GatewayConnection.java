@@ -1,18 +1,41 @@
 package com.hydroline.beacon.provider.gateway;
 
 import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
 import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 final class GatewayConnection {
+    private static final long WRITABILITY_RECHECK_MS = 1_000L;
+
     private final Channel channel;
     private final UUID tempId = UUID.randomUUID();
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final Map<String, CoalescedPush> coalescedPushes = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedPushCount = new AtomicLong();
+    private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+    private final Object writability = new Object();
     private UUID connectionId;
     private boolean handshakeComplete;
+    private volatile GatewayWireFormat wireFormat = GatewayWireFormat.JSON;
+    private volatile GatewayCompression compression = GatewayCompression.NONE;
+    private volatile int compressionThresholdBytes;
+    private volatile boolean chunkedResponses;
     private ScheduledFuture<?> handshakeTimeout;
+    private ScheduledFuture<?> slowConsumerDeadline;
 
     GatewayConnection(Channel channel) {
         this.channel = channel;
@@ -35,8 +58,205 @@ final class GatewayConnection {
         return handshakeComplete;
     }
 
+    GatewayWireFormat wireFormat() {
+        return wireFormat;
+    }
+
+    void useWireFormat(GatewayWireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    GatewayCompression compression() {
+        return compression;
+    }
+
+    void useCompression(GatewayCompression compression, int thresholdBytes) {
+        this.compressionThresholdBytes = thresholdBytes;
+        this.compression = compression;
+    }
+
+    /**
+     * Reserves a slot for a pipelined request; callers must {@link #releaseInFlight()} once the response is queued.
+     */
+    boolean tryAcquireInFlight(int limit) {
+        while (true) {
+            int current = inFlightRequests.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlightRequests.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void releaseInFlight() {
+        inFlightRequests.decrementAndGet();
+    }
+
     void send(GatewayMessageType type, JsonObject body) {
-        channel.writeAndFlush(channel.alloc().buffer().writeBytes(GatewayCodec.encode(type, connectionId, body)));
+        channel.writeAndFlush(frame(wireFormat.encode(channel.alloc(), type, connectionId, body)));
+    }
+
+    void sendResponse(BeaconResponse response) {
+        channel.writeAndFlush(frame(wireFormat.encodeResponse(channel.alloc(), GatewayMessageType.RESPONSE, connectionId, response)));
+    }
+
+    /**
+     * Encodes on the calling worker thread and hands the write over to the channel's event loop.
+     */
+    void sendAsync(GatewayMessageType type, JsonObject body) {
+        if (channel.isActive()) {
+            writeOnEventLoop(frame(wireFormat.encode(channel.alloc(), type, connectionId, body)));
+        }
+    }
+
+    void sendResponseAsync(GatewayMessageType type, BeaconResponse response) {
+        if (channel.isActive()) {
+            writeOnEventLoop(frame(wireFormat.encodeResponse(channel.alloc(), type, connectionId, response)));
+        }
+    }
+
+    /**
+     * Blocking send for response streams, called from a worker thread. Waits until the channel is below its high
+     * water mark before encoding, and writes through the pipeline so the frame counts against that mark at once.
+     *
+     * @param data raw bytes added to {@code body.payload} by {@link GatewayWireFormat#encode(ByteBufAllocator,
+     *             GatewayMessageType, UUID, JsonObject, byte[])}, or {@code null}
+     * @return {@code false} if the connection closed before the frame could be written.
+     */
+    boolean sendWhenWritable(GatewayMessageType type, JsonObject body, byte[] data) throws InterruptedException {
+        synchronized (writability) {
+            while (channel.isActive() && !channel.isWritable()) {
+                // Timed so a missed signal only delays the stream; the slow-consumer deadline ends the wait.
+                writability.wait(WRITABILITY_RECHECK_MS);
+            }
+        }
+        if (!channel.isActive()) {
+            return false;
+        }
+        ByteBuf encoded = data != null
+            ? wireFormat.encode(channel.alloc(), type, connectionId, body, data)
+            : wireFormat.encode(channel.alloc(), type, connectionId, body);
+        channel.writeAndFlush(frame(encoded));
+        return true;
+    }
+
+    /**
+     * Wakes streams blocked in {@link #sendWhenWritable}; called from the event loop when the channel drains or closes.
+     */
+    void signalWritability() {
+        synchronized (writability) {
+            writability.notifyAll();
+        }
+    }
+
+    /**
+     * Sends a push update keyed by {@code key}. While the channel is over its high water mark the update is not
+     * encoded; it replaces any earlier pending update with the same key and is sent once the channel drains.
+     *
+     * @return {@code false} if the update was coalesced instead of written.
+     */
+    boolean sendPush(String key, GatewayMessageType type, JsonObject body) {
+        if (!channel.isActive()) {
+            return false;
+        }
+        if (channel.isWritable() && coalescedPushes.isEmpty()) {
+            sendAsync(type, body);
+            return true;
+        }
+        if (coalescedPushes.put(key, new CoalescedPush(type, body)) != null) {
+            coalescedPushCount.incrementAndGet();
+        }
+        if (channel.isWritable()) {
+            // The channel drained between the check above and the put; don't leave the update parked.
+            try {
+                channel.eventLoop().execute(this::flushCoalescedPushes);
+            } catch (RejectedExecutionException ignored) {
+                // Event loop is shutting down; the connection is going away anyway.
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the latest coalesced push per key; called from the event loop when the channel becomes writable.
+     */
+    void flushCoalescedPushes() {
+        Iterator<Map.Entry<String, CoalescedPush>> iterator = coalescedPushes.entrySet().iterator();
+        while (iterator.hasNext() && channel.isWritable()) {
+            CoalescedPush push = iterator.next().getValue();
+            iterator.remove();
+            channel.write(frame(wireFormat.encode(channel.alloc(), push.type, connectionId, push.body)));
+        }
+        channel.flush();
+    }
+
+    /**
+     * @return number of push updates dropped because a newer one with the same key superseded them.
+     */
+    long coalescedPushCount() {
+        return coalescedPushCount.get();
+    }
+
+    /**
+     * @return bytes queued in the channel's outbound buffer and not yet written to the socket.
+     */
+    long pendingOutboundBytes() {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer != null ? buffer.totalPendingWriteBytes() : 0L;
+    }
+
+    boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    private void writeOnEventLoop(ByteBuf frame) {
+        try {
+            channel.eventLoop().execute(() -> channel.writeAndFlush(frame));
+        } catch (RejectedExecutionException ex) {
+            frame.release();
+        }
+    }
+
+    private ByteBuf frame(ByteBuf encoded) {
+        return compression.wrap(channel.alloc(), encoded, compressionThresholdBytes);
+    }
+
+    boolean chunkedResponses() {
+        return chunkedResponses;
+    }
+
+    void enableChunkedResponses() {
+        this.chunkedResponses = true;
+    }
+
+    int subscriptionCount() {
+        return subscriptions.size();
+    }
+
+    boolean hasSubscription(String subscriptionId) {
+        return subscriptions.containsKey(subscriptionId);
+    }
+
+    void addSubscription(String subscriptionId, String topicKey) {
+        subscriptions.put(subscriptionId, topicKey);
+    }
+
+    String removeSubscription(String subscriptionId) {
+        coalescedPushes.remove(subscriptionId);
+        return subscriptions.remove(subscriptionId);
+    }
+
+    /**
+     * Removes every subscription of this connection.
+     *
+     * @return the removed topic keys by subscription id.
+     */
+    Map<String, String> clearSubscriptions() {
+        Map<String, String> removed = new HashMap<>(subscriptions);
+        subscriptions.keySet().removeAll(removed.keySet());
+        return removed;
     }
 
     void scheduleHandshakeTimeout(Runnable action, long delay, TimeUnit unit) {
@@ -50,8 +270,21 @@ final class GatewayConnection {
         }
     }
 
+    void scheduleSlowConsumerDeadline(Runnable action, long delay, TimeUnit unit) {
+        cancelSlowConsumerDeadline();
+        this.slowConsumerDeadline = channel.eventLoop().schedule(action, delay, unit);
+    }
+
+    void cancelSlowConsumerDeadline() {
+        if (slowConsumerDeadline != null) {
+            slowConsumerDeadline.cancel(false);
+            slowConsumerDeadline = null;
+        }
+    }
+
     void close() {
         cancelHandshakeTimeout();
+        cancelSlowConsumerDeadline();
         channel.close();
     }
 
@@ -62,4 +295,14 @@ final class GatewayConnection {
     Channel channel() {
         return channel;
     }
+
+    private static final class CoalescedPush {
+        private final GatewayMessageType type;
+        private final JsonObject body;
+
+        private CoalescedPush(GatewayMessageType type, JsonObject body) {
+            this.type = type;
+            this.body = body;
+        }
+    }
 }
@@ -1,17 +1,24 @@
 package com.hydroline.beacon.provider.gateway;
 
 import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import java.util.UUID;
 
 public final class GatewayEnvelope {
     private final GatewayMessageType type;
     private final UUID connectionId;
     private final JsonObject body;
+    private final BeaconMessage request;
 
     public GatewayEnvelope(GatewayMessageType type, UUID connectionId, JsonObject body) {
+        this(type, connectionId, body, null);
+    }
+
+    public GatewayEnvelope(GatewayMessageType type, UUID connectionId, JsonObject body, BeaconMessage request) {
         this.type = type;
         this.connectionId = connectionId;
         this.body = body;
+        this.request = request;
     }
 
     public GatewayMessageType type() {
@@ -25,4 +32,11 @@ public final class GatewayEnvelope {
     public JsonObject body() {
         return body;
     }
+
+    /**
+     * @return the decoded Beacon request for {@link GatewayMessageType#REQUEST} frames, otherwise {@code null}.
+     */
+    public BeaconMessage request() {
+        return request;
+    }
 }
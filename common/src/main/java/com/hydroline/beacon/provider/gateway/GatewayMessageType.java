@@ -5,6 +5,11 @@ public enum GatewayMessageType {
     HANDSHAKE_ACK("handshake_ack"),
     REQUEST("request"),
     RESPONSE("response"),
+    RESPONSE_CHUNK("response_chunk"),
+    RESPONSE_END("response_end"),
+    SUBSCRIBE("subscribe"),
+    UNSUBSCRIBE("unsubscribe"),
+    EVENT("event"),
     PING("ping"),
     PONG("pong"),
     ERROR("error");
@@ -0,0 +1,426 @@
+package com.hydroline.beacon.provider.gateway;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.ChannelConstants;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
+import com.hydroline.beacon.provider.protocol.MessageSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.ValueType;
+
+/**
+ * Binary envelope codec negotiated via {@code codec: "msgpack"} in the handshake. The envelope keeps the
+ * same keys as the JSON variant, but the body is written as native MessagePack maps/arrays/scalars.
+ */
+public final class GatewayMsgpackCodec {
+    private GatewayMsgpackCodec() {
+    }
+
+    public static GatewayEnvelope decode(ByteBuf frame) {
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(new ByteBufInputStream(frame))) {
+            if (!unpacker.hasNext() || unpacker.getNextFormat().getValueType() != ValueType.MAP) {
+                throw new JsonParseException("Envelope must be a map");
+            }
+            GatewayMessageType type = null;
+            UUID connectionId = null;
+            JsonObject body = null;
+            BeaconMessage request = null;
+            int size = unpacker.unpackMapHeader();
+            for (int i = 0; i < size; i++) {
+                String key = unpacker.unpackString();
+                switch (key) {
+                    case "type":
+                        type = GatewayMessageType.fromWireName(unpacker.unpackString());
+                        break;
+                    case "connectionId":
+                        JsonElement id = unpackElement(unpacker);
+                        connectionId = id.isJsonNull() ? null : UUID.fromString(id.getAsString());
+                        break;
+                    case "body":
+                        if (type == GatewayMessageType.REQUEST && unpacker.getNextFormat().getValueType() == ValueType.MAP) {
+                            request = unpackRequest(unpacker);
+                        } else {
+                            JsonElement element = unpackElement(unpacker);
+                            body = element.isJsonObject() ? element.getAsJsonObject() : null;
+                        }
+                        break;
+                    default:
+                        unpacker.skipValue();
+                        break;
+                }
+            }
+            if (type == null) {
+                throw new JsonParseException("Missing type field");
+            }
+            if (body == null) {
+                body = new JsonObject();
+            }
+            if (type == GatewayMessageType.REQUEST && request == null) {
+                request = MessageSerializer.read(body);
+            }
+            return new GatewayEnvelope(type, connectionId, body, request);
+        } catch (IOException ex) {
+            throw new JsonParseException("Invalid MessagePack envelope", ex);
+        }
+    }
+
+    private static BeaconMessage unpackRequest(MessageUnpacker unpacker) throws IOException {
+        int protocolVersion = 0;
+        String requestId = null;
+        String action = ChannelConstants.DEFAULT_ACTION;
+        JsonObject payload = null;
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            String key = unpacker.unpackString();
+            if (unpacker.getNextFormat().getValueType() == ValueType.NIL) {
+                unpacker.unpackNil();
+                continue;
+            }
+            switch (key) {
+                case "protocolVersion":
+                    protocolVersion = unpacker.unpackInt();
+                    break;
+                case "requestId":
+                    requestId = unpacker.unpackString();
+                    break;
+                case "action":
+                    action = unpacker.unpackString();
+                    break;
+                case "payload":
+                    JsonElement element = unpackElement(unpacker);
+                    payload = element.isJsonObject() ? element.getAsJsonObject() : null;
+                    break;
+                default:
+                    unpacker.skipValue();
+                    break;
+            }
+        }
+        return new BeaconMessage(protocolVersion, requestId, action, payload != null ? payload : new JsonObject());
+    }
+
+    public static ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body) {
+        JsonObject value = body != null ? body : new JsonObject();
+        return writeFrame(alloc, type, connectionId, packer -> packElement(packer, value));
+    }
+
+    /**
+     * Encodes {@code body} with {@code data} written into its {@code payload} object as a {@code bin} value, next to
+     * {@code encoding: "binary"}.
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body, byte[] data) {
+        return writeFrame(alloc, type, connectionId, packer -> {
+            packer.packMapHeader(body.size());
+            for (Map.Entry<String, JsonElement> entry : body.entrySet()) {
+                packer.packString(entry.getKey());
+                if (!"payload".equals(entry.getKey())) {
+                    packElement(packer, entry.getValue());
+                    continue;
+                }
+                JsonObject payload = entry.getValue().getAsJsonObject();
+                packer.packMapHeader(payload.size() + 2);
+                for (Map.Entry<String, JsonElement> member : payload.entrySet()) {
+                    packer.packString(member.getKey());
+                    packElement(packer, member.getValue());
+                }
+                packer.packString("encoding").packString("binary");
+                packer.packString("data").packBinaryHeader(data.length);
+                packer.writePayload(data);
+            }
+        });
+    }
+
+    public static ByteBuf encodeResponse(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, BeaconResponse response) {
+        return writeFrame(alloc, type, connectionId, packer -> packResponse(packer, response));
+    }
+
+    private static ByteBuf writeFrame(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, BodyWriter bodyWriter) {
+        ByteBuf buffer = alloc.ioBuffer();
+        boolean success = false;
+        try {
+            buffer.writeInt(0);
+            try (MessagePacker packer = MessagePack.newDefaultPacker(new ByteBufOutputStream(buffer))) {
+                packer.packMapHeader(connectionId != null ? 4 : 3);
+                packer.packString("type").packString(type.wireName());
+                packer.packString("timestamp").packLong(Instant.now().toEpochMilli());
+                if (connectionId != null) {
+                    packer.packString("connectionId").packString(connectionId.toString());
+                }
+                packer.packString("body");
+                bodyWriter.write(packer);
+            }
+            buffer.setInt(0, buffer.readableBytes() - GatewayServer.LENGTH_FIELD_BYTES);
+            success = true;
+            return buffer;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to encode MessagePack envelope", ex);
+        } finally {
+            if (!success) {
+                buffer.release();
+            }
+        }
+    }
+
+    private static void packResponse(MessagePacker packer, BeaconResponse response) throws IOException {
+        boolean hasMessage = response.getMessage() != null;
+        EncodedPayload encoded = response.getEncodedPayload();
+        JsonObject payload = encoded == null ? response.getPayload() : null;
+        boolean hasPayload = encoded != null || payload != null;
+        List<byte[]> attachments = response.getAttachments();
+        boolean hasAttachments = !attachments.isEmpty();
+        packer.packMapHeader(3 + (hasMessage ? 1 : 0) + (hasPayload ? 1 : 0) + (hasAttachments ? 1 : 0));
+        packer.packString("protocolVersion").packInt(ChannelConstants.PROTOCOL_VERSION);
+        packer.packString("requestId").packString(response.getRequestId());
+        packer.packString("result").packString(response.getResult().name());
+        if (hasMessage) {
+            packer.packString("message").packString(response.getMessage());
+        }
+        if (hasPayload) {
+            packer.packString("payload");
+            if (encoded != null) {
+                packJson(packer, encoded);
+            } else {
+                packElement(packer, payload);
+            }
+        }
+        if (hasAttachments) {
+            packer.packString("attachments").packArrayHeader(attachments.size());
+            for (byte[] attachment : attachments) {
+                packer.packBinaryHeader(attachment.length);
+                packer.writePayload(attachment);
+            }
+        }
+    }
+
+    private interface BodyWriter {
+        void write(MessagePacker packer) throws IOException;
+    }
+
+    /**
+     * Transcodes pre-encoded JSON straight into the packer. MessagePack headers need container sizes up front, so
+     * a first pass over the bytes only counts each container's entries (in opening order) and the second pass
+     * emits values, without ever building a tree.
+     */
+    static void packJson(MessagePacker packer, EncodedPayload payload) throws IOException {
+        int[] sizes = countContainers(payload);
+        int next = 0;
+        try (JsonReader reader = payload.reader()) {
+            while (true) {
+                switch (reader.peek()) {
+                    case BEGIN_OBJECT:
+                        reader.beginObject();
+                        packer.packMapHeader(sizes[next++]);
+                        break;
+                    case BEGIN_ARRAY:
+                        reader.beginArray();
+                        packer.packArrayHeader(sizes[next++]);
+                        break;
+                    case END_OBJECT:
+                        reader.endObject();
+                        break;
+                    case END_ARRAY:
+                        reader.endArray();
+                        break;
+                    case NAME:
+                        packer.packString(reader.nextName());
+                        break;
+                    case STRING:
+                        packer.packString(reader.nextString());
+                        break;
+                    case NUMBER:
+                        packNumber(packer, reader.nextString());
+                        break;
+                    case BOOLEAN:
+                        packer.packBoolean(reader.nextBoolean());
+                        break;
+                    case NULL:
+                        reader.nextNull();
+                        packer.packNil();
+                        break;
+                    default:
+                        return;
+                }
+            }
+        }
+    }
+
+    private static int[] countContainers(EncodedPayload payload) throws IOException {
+        int[] sizes = new int[16];
+        int count = 0;
+        int[] open = new int[16];
+        int depth = 0;
+        try (JsonReader reader = payload.reader()) {
+            while (true) {
+                JsonToken token = reader.peek();
+                if (token == JsonToken.END_DOCUMENT) {
+                    return sizes;
+                }
+                switch (token) {
+                    case BEGIN_OBJECT:
+                    case BEGIN_ARRAY:
+                        if (depth > 0) {
+                            sizes[open[depth - 1]]++;
+                        }
+                        if (count == sizes.length) {
+                            sizes = Arrays.copyOf(sizes, count * 2);
+                        }
+                        if (depth == open.length) {
+                            open = Arrays.copyOf(open, depth * 2);
+                        }
+                        sizes[count] = 0;
+                        open[depth++] = count++;
+                        if (token == JsonToken.BEGIN_OBJECT) {
+                            reader.beginObject();
+                        } else {
+                            reader.beginArray();
+                        }
+                        break;
+                    case END_OBJECT:
+                        reader.endObject();
+                        depth--;
+                        break;
+                    case END_ARRAY:
+                        reader.endArray();
+                        depth--;
+                        break;
+                    case NAME:
+                        reader.nextName();
+                        break;
+                    default:
+                        reader.skipValue();
+                        sizes[open[depth - 1]]++;
+                        break;
+                }
+            }
+        }
+    }
+
+    static void packElement(MessagePacker packer, JsonElement element) throws IOException {
+        if (element == null || element.isJsonNull()) {
+            packer.packNil();
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            packer.packMapHeader(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                packer.packString(entry.getKey());
+                packElement(packer, entry.getValue());
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            packer.packArrayHeader(array.size());
+            for (JsonElement child : array) {
+                packElement(packer, child);
+            }
+        } else {
+            packPrimitive(packer, element.getAsJsonPrimitive());
+        }
+    }
+
+    private static void packPrimitive(MessagePacker packer, JsonPrimitive primitive) throws IOException {
+        if (primitive.isBoolean()) {
+            packer.packBoolean(primitive.getAsBoolean());
+            return;
+        }
+        if (!primitive.isNumber()) {
+            packer.packString(primitive.getAsString());
+            return;
+        }
+        Number number = primitive.getAsNumber();
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            packer.packLong(number.longValue());
+        } else if (number instanceof Double || number instanceof Float) {
+            packer.packDouble(number.doubleValue());
+        } else if (number instanceof BigInteger) {
+            packer.packBigInteger((BigInteger) number);
+        } else {
+            // LazilyParsedNumber / BigDecimal: keep integers integral so ids survive the round-trip.
+            packNumber(packer, number.toString());
+        }
+    }
+
+    private static void packNumber(MessagePacker packer, String text) throws IOException {
+        if (isIntegral(text)) {
+            BigInteger value = new BigInteger(text);
+            if (value.bitLength() < 64) {
+                packer.packLong(value.longValue());
+            } else {
+                packer.packBigInteger(value);
+            }
+        } else {
+            packer.packDouble(Double.parseDouble(text));
+        }
+    }
+
+    private static boolean isIntegral(String text) {
+        int start = text.startsWith("-") ? 1 : 0;
+        if (start == text.length()) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static JsonElement unpackElement(MessageUnpacker unpacker) throws IOException {
+        ValueType valueType = unpacker.getNextFormat().getValueType();
+        switch (valueType) {
+            case NIL:
+                unpacker.unpackNil();
+                return JsonNull.INSTANCE;
+            case BOOLEAN:
+                return new JsonPrimitive(unpacker.unpackBoolean());
+            case INTEGER:
+                BigInteger integer = unpacker.unpackBigInteger();
+                return integer.bitLength() < 64 ? new JsonPrimitive(integer.longValue()) : new JsonPrimitive(integer);
+            case FLOAT:
+                return new JsonPrimitive(unpacker.unpackDouble());
+            case STRING:
+                return new JsonPrimitive(unpacker.unpackString());
+            case BINARY:
+                byte[] data = unpacker.readPayload(unpacker.unpackBinaryHeader());
+                return new JsonPrimitive(Base64.getEncoder().encodeToString(data));
+            case ARRAY:
+                int length = unpacker.unpackArrayHeader();
+                JsonArray array = new JsonArray();
+                for (int i = 0; i < length; i++) {
+                    array.add(unpackElement(unpacker));
+                }
+                return array;
+            case MAP:
+                int size = unpacker.unpackMapHeader();
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    JsonElement key = unpackElement(unpacker);
+                    object.add(key.isJsonPrimitive() ? key.getAsString() : key.toString(), unpackElement(unpacker));
+                }
+                return object;
+            default:
+                unpacker.skipValue();
+                return JsonNull.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.hydroline.beacon.provider.gateway;
+
+import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.transport.ResponseStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes handler-produced chunks as {@code response_chunk} frames as soon as they are available. Each write waits
+ * for the channel to drain below its high water mark, so at most one water mark of chunks is buffered per stream.
+ */
+final class GatewayResponseStream implements ResponseStream {
+    private final GatewayConnection connection;
+    private final String requestId;
+    private final int maxChunkBytes;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    GatewayResponseStream(GatewayConnection connection, String requestId, int maxChunkBytes) {
+        this.connection = connection;
+        this.requestId = requestId;
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    @Override
+    public int maxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    @Override
+    public void write(JsonObject chunk) {
+        write(chunk, null);
+    }
+
+    @Override
+    public void write(JsonObject chunk, byte[] data) {
+        JsonObject body = new JsonObject();
+        body.addProperty("requestId", requestId);
+        body.addProperty("index", nextIndex.getAndIncrement());
+        body.add("payload", chunk != null ? chunk : new JsonObject());
+        try {
+            if (!connection.sendWhenWritable(GatewayMessageType.RESPONSE_CHUNK, body, data)) {
+                throw new IllegalStateException("Gateway connection closed while streaming " + requestId);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while streaming " + requestId, ex);
+        }
+    }
+
+    int chunkCount() {
+        return nextIndex.get();
+    }
+}
@@ -1,88 +1,200 @@
 package com.hydroline.beacon.provider.gateway;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.hydroline.beacon.provider.BeaconProviderMod;
+import com.hydroline.beacon.provider.create.CreateQueryRegistry;
+import com.hydroline.beacon.provider.create.CreateRealtimeSnapshot;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
 import com.hydroline.beacon.provider.protocol.ChannelConstants;
-import com.hydroline.beacon.provider.protocol.MessageSerializer;
+import com.hydroline.beacon.provider.protocol.RequestId;
 import com.hydroline.beacon.provider.protocol.ResultCode;
 import com.hydroline.beacon.provider.transport.BeaconRequestDispatcher;
 import com.hydroline.beacon.provider.transport.TransportContext;
 import com.hydroline.beacon.provider.transport.TransportKind;
+import com.hydroline.beacon.provider.util.DispatchExecutor;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
-import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public final class GatewayServer implements AutoCloseable {
+    static final int LENGTH_FIELD_BYTES = 4;
+
     private final GatewayConfig config;
     private final BeaconRequestDispatcher dispatcher;
+    private final GatewaySubscriptionHub subscriptionHub;
+    private final Consumer<CreateRealtimeSnapshot> realtimeListener;
 
-    private NioEventLoopGroup bossGroup;
-    private NioEventLoopGroup workerGroup;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private DispatchExecutor dispatchExecutor;
     private Channel serverChannel;
+    private Channel domainChannel;
+    private Path domainSocketPath;
+    private ScheduledFuture<?> subscriptionPoll;
 
     public GatewayServer(GatewayConfig config, BeaconRequestDispatcher dispatcher) {
         this.config = config;
         this.dispatcher = dispatcher;
+        this.subscriptionHub = new GatewaySubscriptionHub(dispatcher, () -> dispatchExecutor);
+        this.realtimeListener = subscriptionHub::onCreateRealtime;
     }
 
     public synchronized void start() {
-        if (serverChannel != null) {
+        if (serverChannel != null || domainChannel != null) {
             return;
         }
-        if (config.listenPort() <= 0) {
+        boolean tcpEnabled = config.listenPort() > 0;
+        boolean domainEnabled = !config.unixSocketPath().isEmpty();
+        if (domainEnabled && !GatewayTransport.epollAvailable()) {
+            BeaconProviderMod.LOGGER.warn(
+                "Unix domain socket {} requires the native epoll transport, which is not available; skipping it",
+                config.unixSocketPath());
+            domainEnabled = false;
+        }
+        if (!tcpEnabled && !domainEnabled) {
             BeaconProviderMod.LOGGER.info("Beacon Netty gateway disabled (listenPort={})", config.listenPort());
             return;
         }
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
-        ServerBootstrap bootstrap = new ServerBootstrap()
+        dispatchExecutor = new DispatchExecutor("beacon-gateway-dispatch", config.dispatchThreads(), config.dispatchQueueCapacity());
+        GatewayTransport transport = GatewayTransport.resolve(config.transport());
+        if ("epoll".equalsIgnoreCase(config.transport()) && transport != GatewayTransport.EPOLL) {
+            BeaconProviderMod.LOGGER.warn("Epoll transport requested but not available, falling back to NIO");
+        }
+        if (domainEnabled && transport != GatewayTransport.EPOLL) {
+            // Domain socket channels only run on epoll event loops; keep a single set of loops for both listeners.
+            BeaconProviderMod.LOGGER.info("Using epoll transport because unixSocketPath is configured");
+            transport = GatewayTransport.EPOLL;
+        }
+        ByteBufAllocator allocator = config.pooledDirectBuffers()
+            ? PooledByteBufAllocator.DEFAULT
+            : new UnpooledByteBufAllocator(false);
+        bossGroup = transport.createGroup(1, "beacon-gateway-boss");
+        workerGroup = transport.createGroup(config.workerThreads(), "beacon-gateway-worker");
+        if (tcpEnabled) {
+            ServerBootstrap bootstrap = newBootstrap(allocator)
+                .channel(transport.serverChannelClass())
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true);
+            ChannelFuture bound = bootstrap.bind(new InetSocketAddress(config.listenAddress(), config.listenPort()));
+            bound.syncUninterruptibly();
+            serverChannel = bound.channel();
+        }
+        if (domainEnabled) {
+            Path socketPath = Paths.get(config.unixSocketPath()).toAbsolutePath();
+            deleteStaleSocket(socketPath);
+            ServerBootstrap bootstrap = newBootstrap(allocator)
+                .channel(GatewayTransport.domainSocketServerChannelClass());
+            ChannelFuture bound = bootstrap.bind(new DomainSocketAddress(socketPath.toFile()));
+            bound.syncUninterruptibly();
+            domainChannel = bound.channel();
+            domainSocketPath = socketPath;
+        }
+        CreateQueryRegistry.addRealtimeListener(realtimeListener);
+        subscriptionPoll = workerGroup.next().scheduleAtFixedRate(subscriptionHub::pollTick,
+            config.subscriptionPollIntervalMillis(), config.subscriptionPollIntervalMillis(), TimeUnit.MILLISECONDS);
+        BeaconProviderMod.LOGGER.info(
+            "Beacon Netty gateway listening on {} (transport={}, workerThreads={}, dispatchThreads={}, dispatchQueueCapacity={})",
+            describeListeners(), transport.configName(), config.workerThreads(),
+            config.dispatchThreads(), config.dispatchQueueCapacity());
+    }
+
+    private ServerBootstrap newBootstrap(ByteBufAllocator allocator) {
+        return new ServerBootstrap()
             .group(bossGroup, workerGroup)
-            .channel(NioServerSocketChannel.class)
             .childHandler(new ChannelInitializer<Channel>() {
                 @Override
                 protected void initChannel(Channel ch) {
                     ChannelPipeline pipeline = ch.pipeline();
-                    pipeline.addLast(new LengthFieldBasedFrameDecoder(1024 * 1024, 0, 4, 0, 4));
-                    pipeline.addLast(new LengthFieldPrepender(4));
+                    pipeline.addLast(new LengthFieldBasedFrameDecoder(1024 * 1024, 0, LENGTH_FIELD_BYTES, 0, LENGTH_FIELD_BYTES));
+                    // Outbound frames carry their own back-patched length prefix (see GatewayWireFormat#encode).
                     if (config.idleTimeoutSeconds() > 0) {
                         pipeline.addLast(new IdleStateHandler(config.idleTimeoutSeconds(), 0, 0));
                     }
                     pipeline.addLast(new GatewayChannelHandler());
                 }
             })
-            .childOption(ChannelOption.TCP_NODELAY, true)
-            .childOption(ChannelOption.SO_KEEPALIVE, true);
-        ChannelFuture bound = bootstrap.bind(new InetSocketAddress(config.listenAddress(), config.listenPort()));
-        bound.syncUninterruptibly();
-        serverChannel = bound.channel();
-        BeaconProviderMod.LOGGER.info(
-            "Beacon Netty gateway listening on {}:{}", config.listenAddress(), config.listenPort());
+            .option(ChannelOption.ALLOCATOR, allocator)
+            .childOption(ChannelOption.ALLOCATOR, allocator)
+            .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(config.writeBufferLowWaterMark(), config.writeBufferHighWaterMark()));
+    }
+
+    private String describeListeners() {
+        StringBuilder builder = new StringBuilder();
+        if (serverChannel != null) {
+            builder.append(config.listenAddress()).append(':').append(config.listenPort());
+        }
+        if (domainSocketPath != null) {
+            if (builder.length() > 0) {
+                builder.append(" and ");
+            }
+            builder.append("unix:").append(domainSocketPath);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A socket file left behind by an unclean shutdown would make bind fail with EADDRINUSE.
+     */
+    private static void deleteStaleSocket(Path socketPath) {
+        try {
+            Files.createDirectories(socketPath.getParent());
+            Files.deleteIfExists(socketPath);
+        } catch (IOException ex) {
+            BeaconProviderMod.LOGGER.warn("Failed to prepare unix socket path {}", socketPath, ex);
+        }
     }
 
     @Override
     public synchronized void close() {
+        CreateQueryRegistry.removeRealtimeListener(realtimeListener);
+        if (subscriptionPoll != null) {
+            subscriptionPoll.cancel(false);
+            subscriptionPoll = null;
+        }
         if (serverChannel != null) {
             serverChannel.close().syncUninterruptibly();
             serverChannel = null;
         }
+        if (domainChannel != null) {
+            domainChannel.close().syncUninterruptibly();
+            domainChannel = null;
+        }
+        if (domainSocketPath != null) {
+            try {
+                Files.deleteIfExists(domainSocketPath);
+            } catch (IOException ex) {
+                BeaconProviderMod.LOGGER.debug("Failed to delete unix socket {}", domainSocketPath, ex);
+            }
+            domainSocketPath = null;
+        }
         if (bossGroup != null) {
             bossGroup.shutdownGracefully();
             bossGroup = null;
@@ -91,6 +203,10 @@ public final class GatewayServer implements AutoCloseable {
             workerGroup.shutdownGracefully();
             workerGroup = null;
         }
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdown();
+            dispatchExecutor = null;
+        }
     }
 
     private final class GatewayChannelHandler extends SimpleChannelInboundHandler<ByteBuf> {
@@ -112,13 +228,18 @@ public final class GatewayServer implements AutoCloseable {
 
         @Override
         protected void channelRead0(io.netty.channel.ChannelHandlerContext ctx, ByteBuf msg) {
-            byte[] bytes = ByteBufUtil.getBytes(msg);
+            ByteBuf payload = null;
             try {
-                GatewayEnvelope envelope = GatewayCodec.decode(bytes);
+                payload = connection.compression().unwrap(ctx.alloc(), msg);
+                GatewayEnvelope envelope = connection.wireFormat().decode(payload);
                 handleEnvelope(ctx, connection, envelope);
             } catch (Exception ex) {
                 BeaconProviderMod.LOGGER.error("Failed to parse gateway message", ex);
                 sendErrorAndClose(connection, ResultCode.INVALID_PAYLOAD, "Invalid gateway message");
+            } finally {
+                if (payload != null && payload != msg) {
+                    payload.release();
+                }
             }
         }
 
@@ -132,6 +253,31 @@ public final class GatewayServer implements AutoCloseable {
             super.userEventTriggered(ctx, evt);
         }
 
+        @Override
+        public void channelWritabilityChanged(io.netty.channel.ChannelHandlerContext ctx) {
+            if (ctx.channel().isWritable()) {
+                connection.cancelSlowConsumerDeadline();
+                connection.flushCoalescedPushes();
+                connection.signalWritability();
+                ctx.channel().config().setAutoRead(true);
+            } else {
+                // Stop reading new requests until the client drains what we already queued for it.
+                ctx.channel().config().setAutoRead(false);
+                if (config.slowConsumerTimeoutSeconds() > 0) {
+                    connection.scheduleSlowConsumerDeadline(() -> {
+                        if (!connection.isWritable()) {
+                            BeaconProviderMod.LOGGER.warn(
+                                "Closing slow gateway connection {} ({} bytes pending for {}s)",
+                                connection.connectionId(), connection.pendingOutboundBytes(),
+                                config.slowConsumerTimeoutSeconds());
+                            connection.close();
+                        }
+                    }, config.slowConsumerTimeoutSeconds(), TimeUnit.SECONDS);
+                }
+            }
+            ctx.fireChannelWritabilityChanged();
+        }
+
         @Override
         public void exceptionCaught(io.netty.channel.ChannelHandlerContext ctx, Throwable cause) {
             BeaconProviderMod.LOGGER.warn("Gateway connection {} error", connection.temporaryId(), cause);
@@ -141,6 +287,9 @@ public final class GatewayServer implements AutoCloseable {
         @Override
         public void channelInactive(io.netty.channel.ChannelHandlerContext ctx) {
             connection.cancelHandshakeTimeout();
+            connection.cancelSlowConsumerDeadline();
+            connection.signalWritability();
+            subscriptionHub.removeConnection(connection);
         }
     }
 
@@ -150,7 +299,13 @@ public final class GatewayServer implements AutoCloseable {
                 handleHandshake(ctx, connection, envelope.body());
                 break;
             case REQUEST:
-                handleRequest(connection, envelope.body());
+                handleRequest(connection, envelope.request());
+                break;
+            case SUBSCRIBE:
+                handleSubscribe(connection, envelope.body());
+                break;
+            case UNSUBSCRIBE:
+                handleUnsubscribe(connection, envelope.body());
                 break;
             case PING:
                 handlePing(connection, envelope.body());
@@ -176,6 +331,9 @@ public final class GatewayServer implements AutoCloseable {
             sendErrorAndClose(connection, ResultCode.INVALID_PAYLOAD, "Unsupported protocol version");
             return;
         }
+        GatewayWireFormat wireFormat = negotiateWireFormat(body);
+        GatewayCompression compression = negotiateCompression(body);
+        boolean chunkedResponses = hasCapability(body, "chunked_responses");
         UUID connectionId = UUID.randomUUID();
         connection.markHandshakeComplete(connectionId);
         connection.cancelHandshakeTimeout();
@@ -185,27 +343,156 @@ public final class GatewayServer implements AutoCloseable {
         ack.addProperty("serverName", BeaconProviderMod.MOD_NAME);
         ack.addProperty("modVersion", BeaconProviderMod.getVersion());
         ack.addProperty("heartbeatIntervalSeconds", Math.max(5, config.idleTimeoutSeconds() / 2));
+        ack.addProperty("maxInFlightRequests", config.maxInFlightRequests());
+        ack.addProperty("codec", wireFormat.wireName());
+        ack.addProperty("compression", compression.wireName());
+        ack.addProperty("compressionThresholdBytes", config.compressionThresholdBytes());
+        ack.addProperty("chunkedResponses", chunkedResponses);
+        ack.addProperty("responseChunkBytes", config.responseChunkBytes());
+        JsonArray topics = new JsonArray();
+        for (String topic : GatewaySubscriptionHub.TOPICS.keySet()) {
+            topics.add(topic);
+        }
+        ack.add("subscriptionTopics", topics);
+        ack.addProperty("maxSubscriptions", config.maxSubscriptionsPerConnection());
         ack.addProperty("message", "ready");
         connection.send(GatewayMessageType.HANDSHAKE_ACK, ack);
+        connection.useWireFormat(wireFormat);
+        connection.useCompression(compression, config.compressionThresholdBytes());
+        if (chunkedResponses) {
+            connection.enableChunkedResponses();
+        }
     }
 
-    private void handleRequest(GatewayConnection connection, JsonObject body) {
+    private static boolean hasCapability(JsonObject handshake, String capability) {
+        if (!handshake.has("capabilities") || !handshake.get("capabilities").isJsonArray()) {
+            return false;
+        }
+        for (JsonElement element : handshake.getAsJsonArray("capabilities")) {
+            if (element.isJsonPrimitive() && capability.equalsIgnoreCase(element.getAsString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static GatewayWireFormat negotiateWireFormat(JsonObject handshake) {
+        if (handshake.has("codec") && handshake.get("codec").isJsonPrimitive()) {
+            GatewayWireFormat requested = GatewayWireFormat.fromWireName(handshake.get("codec").getAsString());
+            if (requested != null) {
+                return requested;
+            }
+        }
+        return GatewayWireFormat.JSON;
+    }
+
+    private static GatewayCompression negotiateCompression(JsonObject handshake) {
+        if (!handshake.has("compression")) {
+            return GatewayCompression.NONE;
+        }
+        JsonElement requested = handshake.get("compression");
+        JsonArray candidates = new JsonArray();
+        if (requested.isJsonArray()) {
+            candidates = requested.getAsJsonArray();
+        } else if (requested.isJsonPrimitive()) {
+            candidates.add(requested);
+        }
+        for (JsonElement candidate : candidates) {
+            GatewayCompression compression = candidate.isJsonPrimitive()
+                ? GatewayCompression.fromWireName(candidate.getAsString())
+                : null;
+            if (compression != null && compression != GatewayCompression.NONE) {
+                return compression;
+            }
+        }
+        return GatewayCompression.NONE;
+    }
+
+    private void handleRequest(GatewayConnection connection, BeaconMessage request) {
         if (!connection.handshakeComplete()) {
             sendError(connection, ResultCode.INVALID_PAYLOAD, "Handshake required");
             return;
         }
-        JsonObject requestJson = body == null ? new JsonObject() : body;
-        byte[] requestBytes = requestJson.toString().getBytes(StandardCharsets.UTF_8);
-        TransportContext context = new TransportContext(connection.connectionId(), TransportKind.NETTY_GATEWAY, Instant.now());
-        BeaconResponse response = dispatcher.dispatch(requestBytes, context);
-        JsonObject responseJson = MessageSerializer.serializeToJson(response);
-        connection.send(GatewayMessageType.RESPONSE, responseJson);
+        if (!connection.tryAcquireInFlight(config.maxInFlightRequests())) {
+            sendBusy(connection, request, "Too many in-flight requests");
+            return;
+        }
+        GatewayResponseStream stream = connection.chunkedResponses() && RequestId.isValid(request.getRequestId())
+            ? new GatewayResponseStream(connection, request.getRequestId(), config.responseChunkBytes())
+            : null;
+        TransportContext context = new TransportContext(
+            connection.connectionId(), TransportKind.NETTY_GATEWAY, Instant.now(), stream);
+        DispatchExecutor executor = dispatchExecutor;
+        boolean accepted = executor != null && executor.trySubmit(() -> {
+            try {
+                BeaconResponse response = dispatcher.dispatch(request, context);
+                boolean streamed = stream != null && stream.chunkCount() > 0;
+                connection.sendResponseAsync(streamed ? GatewayMessageType.RESPONSE_END : GatewayMessageType.RESPONSE, response);
+            } finally {
+                connection.releaseInFlight();
+            }
+        });
+        if (!accepted) {
+            connection.releaseInFlight();
+            BeaconProviderMod.LOGGER.warn("Gateway dispatch queue full, rejecting request from {}", connection.connectionId());
+            sendBusy(connection, request, "Gateway dispatch queue is full");
+        }
+    }
+
+    private void sendBusy(GatewayConnection connection, BeaconMessage request, String message) {
+        String requestId = RequestId.isValid(request.getRequestId()) ? request.getRequestId() : "busy";
+        BeaconResponse busy = BeaconResponse.builder(requestId)
+            .result(ResultCode.BUSY)
+            .message(message)
+            .build();
+        connection.sendResponse(busy);
+    }
+
+    private void handleSubscribe(GatewayConnection connection, JsonObject body) {
+        if (!connection.handshakeComplete()) {
+            sendError(connection, ResultCode.INVALID_PAYLOAD, "Handshake required");
+            return;
+        }
+        String subscriptionId = body.has("subscriptionId") ? body.get("subscriptionId").getAsString() : null;
+        String topic = body.has("topic") ? body.get("topic").getAsString() : null;
+        if (subscriptionId == null || subscriptionId.isEmpty()) {
+            sendError(connection, ResultCode.INVALID_PAYLOAD, "subscriptionId is required");
+            return;
+        }
+        if (!GatewaySubscriptionHub.isSubscribable(topic)) {
+            sendError(connection, ResultCode.INVALID_ACTION, "Unsupported subscription topic: " + topic);
+            return;
+        }
+        if (connection.hasSubscription(subscriptionId)) {
+            sendError(connection, ResultCode.INVALID_PAYLOAD, "Duplicate subscriptionId: " + subscriptionId);
+            return;
+        }
+        if (connection.subscriptionCount() >= config.maxSubscriptionsPerConnection()) {
+            sendError(connection, ResultCode.BUSY, "Too many subscriptions");
+            return;
+        }
+        JsonObject payload = body.has("payload") && body.get("payload").isJsonObject()
+            ? body.getAsJsonObject("payload")
+            : new JsonObject();
+        subscriptionHub.subscribe(connection, subscriptionId, topic, payload);
+    }
+
+    private void handleUnsubscribe(GatewayConnection connection, JsonObject body) {
+        if (!connection.handshakeComplete()) {
+            sendError(connection, ResultCode.INVALID_PAYLOAD, "Handshake required");
+            return;
+        }
+        String subscriptionId = body.has("subscriptionId") ? body.get("subscriptionId").getAsString() : null;
+        if (subscriptionId == null || !subscriptionHub.unsubscribe(connection, subscriptionId)) {
+            sendError(connection, ResultCode.INVALID_PAYLOAD, "Unknown subscriptionId: " + subscriptionId);
+        }
     }
 
     private void handlePing(GatewayConnection connection, JsonObject body) {
         if (!connection.handshakeComplete()) {
             return;
         }
+        body.addProperty("pendingOutboundBytes", connection.pendingOutboundBytes());
         connection.send(GatewayMessageType.PONG, body);
     }
 
@@ -213,16 +500,14 @@ public final class GatewayServer implements AutoCloseable {
         JsonObject body = new JsonObject();
         body.addProperty("errorCode", code.name());
         body.addProperty("message", message);
-        Channel channel = connection.channel();
-        channel.writeAndFlush(channel.alloc().buffer().writeBytes(
-            GatewayCodec.encode(GatewayMessageType.ERROR, connection.connectionId(), body)));
+        connection.send(GatewayMessageType.ERROR, body);
     }
 
     private void sendError(Channel channel, ResultCode code, String message) {
         JsonObject body = new JsonObject();
         body.addProperty("errorCode", code.name());
         body.addProperty("message", message);
-        channel.writeAndFlush(channel.alloc().buffer().writeBytes(GatewayCodec.encode(GatewayMessageType.ERROR, null, body)));
+        channel.writeAndFlush(GatewayCodec.encode(channel.alloc(), GatewayMessageType.ERROR, null, body));
     }
 
     private void sendErrorAndClose(GatewayConnection connection, ResultCode code, String message) {
@@ -0,0 +1,256 @@
+package com.hydroline.beacon.provider.gateway;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.create.CreateRealtimeSnapshot;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.ChannelConstants;
+import com.hydroline.beacon.provider.protocol.RequestId;
+import com.hydroline.beacon.provider.protocol.ResultCode;
+import com.hydroline.beacon.provider.transport.BeaconRequestDispatcher;
+import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.transport.TransportKind;
+import com.hydroline.beacon.provider.util.CanonicalJson;
+import com.hydroline.beacon.provider.util.DispatchExecutor;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Keeps push subscriptions for the gateway. A topic is a read-only action plus its payload; subscribers sharing
+ * the same topic share one evaluation, and {@code event} frames are only sent when the result actually changes.
+ * Create realtime topics are refreshed whenever a new snapshot is published, the others on a fixed poll interval.
+ * The poll also retries topics whose first evaluation was rejected by a full dispatch queue.
+ * <p>
+ * {@link #SIGNAL_GROUPS} is not an action of its own: it evaluates {@code create:get_realtime} projected to
+ * {@code groups}, so its subscribers are only woken when a signal group changes, not on every train movement.
+ */
+final class GatewaySubscriptionHub {
+    /** Subscribable actions and whether they are refreshed by Create realtime publishes (vs. polling). */
+    static final Map<String, Boolean> TOPICS;
+
+    static final String SIGNAL_GROUPS = "create:signal_groups";
+    private static final String CREATE_REALTIME = "create:get_realtime";
+
+    static {
+        Map<String, Boolean> topics = new LinkedHashMap<>();
+        topics.put(CREATE_REALTIME, Boolean.TRUE);
+        topics.put(SIGNAL_GROUPS, Boolean.TRUE);
+        topics.put("mtr:get_route_trains", Boolean.FALSE);
+        topics.put("mtr:get_depot_trains", Boolean.FALSE);
+        topics.put("mtr:get_station_schedule", Boolean.FALSE);
+        TOPICS = Collections.unmodifiableMap(topics);
+    }
+
+    private static final String TIMESTAMP_KEY = "timestamp";
+
+    private final BeaconRequestDispatcher dispatcher;
+    private final Supplier<DispatchExecutor> executorSupplier;
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    GatewaySubscriptionHub(BeaconRequestDispatcher dispatcher, Supplier<DispatchExecutor> executorSupplier) {
+        this.dispatcher = dispatcher;
+        this.executorSupplier = executorSupplier;
+    }
+
+    static boolean isSubscribable(String topic) {
+        return topic != null && TOPICS.containsKey(topic);
+    }
+
+    /**
+     * Registers {@code subscriptionId} on the connection. The current result is pushed right away if the topic
+     * has already been evaluated, otherwise an evaluation is scheduled.
+     */
+    void subscribe(GatewayConnection connection, String subscriptionId, String name, JsonObject payload) {
+        JsonObject params = payload != null ? payload : new JsonObject();
+        String action = name;
+        if (SIGNAL_GROUPS.equals(name)) {
+            JsonArray fields = new JsonArray();
+            fields.add("groups");
+            params = new JsonObject();
+            params.add("fields", fields);
+            action = CREATE_REALTIME;
+        }
+        String key = CanonicalJson.requestKey(name, params);
+        Subscriber subscriber = new Subscriber(connection, subscriptionId);
+        connection.addSubscription(subscriptionId, key);
+        String topicAction = action;
+        JsonObject topicParams = params;
+        Topic topic = topics.compute(key, (ignored, existing) -> {
+            Topic target = existing != null ? existing : new Topic(name, topicAction, topicParams);
+            target.subscribers.add(subscriber);
+            return target;
+        });
+        TopicResult current = topic.last;
+        if (current != null) {
+            push(topic, subscriber, current);
+        } else {
+            refresh(topic);
+        }
+    }
+
+    boolean unsubscribe(GatewayConnection connection, String subscriptionId) {
+        String key = connection.removeSubscription(subscriptionId);
+        if (key == null) {
+            return false;
+        }
+        detach(connection, subscriptionId, key);
+        return true;
+    }
+
+    void removeConnection(GatewayConnection connection) {
+        for (Map.Entry<String, String> entry : connection.clearSubscriptions().entrySet()) {
+            detach(connection, entry.getKey(), entry.getValue());
+        }
+    }
+
+    void onCreateRealtime(CreateRealtimeSnapshot snapshot) {
+        refreshMatching(true);
+    }
+
+    /**
+     * Refreshes the polled topics, plus any Create topic that has never been evaluated because its first refresh
+     * was rejected; otherwise its subscribers would wait for the next realtime publish to get their initial event.
+     */
+    void pollTick() {
+        for (Topic topic : topics.values()) {
+            if (!TOPICS.get(topic.name) || topic.last == null) {
+                refresh(topic);
+            }
+        }
+    }
+
+    private void refreshMatching(boolean realtime) {
+        for (Topic topic : topics.values()) {
+            if (TOPICS.get(topic.name) == realtime) {
+                refresh(topic);
+            }
+        }
+    }
+
+    private void detach(GatewayConnection connection, String subscriptionId, String key) {
+        topics.computeIfPresent(key, (ignored, topic) -> {
+            topic.subscribers.removeIf(s -> s.connection == connection && s.subscriptionId.equals(subscriptionId));
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    private void refresh(Topic topic) {
+        DispatchExecutor executor = executorSupplier.get();
+        if (executor == null || !topic.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        boolean accepted = executor.trySubmit(() -> {
+            try {
+                evaluate(topic);
+            } finally {
+                topic.refreshing.set(false);
+            }
+        });
+        if (!accepted) {
+            // Dispatch queue is saturated by regular requests; pollTick tries again, also for unevaluated topics.
+            topic.refreshing.set(false);
+        }
+    }
+
+    private void evaluate(Topic topic) {
+        BeaconMessage message = new BeaconMessage(ChannelConstants.PROTOCOL_VERSION, RequestId.random(), topic.action, topic.params);
+        TransportContext context = new TransportContext(null, TransportKind.NETTY_GATEWAY, Instant.now());
+        BeaconResponse response = dispatcher.dispatch(message, context);
+        TopicResult previous = topic.last;
+        if (previous != null && previous.sameContent(response)) {
+            return;
+        }
+        TopicResult next = new TopicResult(previous != null ? previous.sequence + 1 : 0L, response);
+        topic.last = next;
+        for (Subscriber subscriber : topic.subscribers) {
+            push(topic, subscriber, next);
+        }
+    }
+
+    private static void push(Topic topic, Subscriber subscriber, TopicResult result) {
+        JsonObject body = new JsonObject();
+        body.addProperty("subscriptionId", subscriber.subscriptionId);
+        body.addProperty("topic", topic.name);
+        body.addProperty("sequence", result.sequence);
+        body.addProperty("result", result.result.name());
+        if (result.message != null) {
+            body.addProperty("message", result.message);
+        }
+        if (result.payload != null) {
+            body.add("payload", result.payload);
+        }
+        subscriber.connection.sendPush(subscriber.subscriptionId, GatewayMessageType.EVENT, body);
+    }
+
+    private static final class Topic {
+        private final String name;
+        private final String action;
+        private final JsonObject params;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile TopicResult last;
+
+        private Topic(String name, String action, JsonObject params) {
+            this.name = name;
+            this.action = action;
+            this.params = params;
+        }
+    }
+
+    private static final class Subscriber {
+        private final GatewayConnection connection;
+        private final String subscriptionId;
+
+        private Subscriber(GatewayConnection connection, String subscriptionId) {
+            this.connection = connection;
+            this.subscriptionId = subscriptionId;
+        }
+    }
+
+    private static final class TopicResult {
+        private final long sequence;
+        private final ResultCode result;
+        private final String message;
+        private final JsonObject payload;
+
+        private TopicResult(long sequence, BeaconResponse response) {
+            this.sequence = sequence;
+            this.result = response.getResult();
+            this.message = response.getMessage();
+            this.payload = response.getPayload();
+        }
+
+        /**
+         * Compares everything except the top-level {@code timestamp}, which most actions stamp on every call.
+         */
+        private boolean sameContent(BeaconResponse response) {
+            if (result != response.getResult()) {
+                return false;
+            }
+            JsonObject other = response.getPayload();
+            if (payload == null || other == null) {
+                return payload == other;
+            }
+            int compared = 0;
+            for (Map.Entry<String, JsonElement> entry : payload.entrySet()) {
+                if (!TIMESTAMP_KEY.equals(entry.getKey())) {
+                    compared++;
+                    if (!entry.getValue().equals(other.get(entry.getKey()))) {
+                        return false;
+                    }
+                }
+            }
+            int otherSize = other.size() - (other.has(TIMESTAMP_KEY) ? 1 : 0);
+            return otherSize == compared;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.hydroline.beacon.provider.gateway;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Netty transports the gateway can run on. {@link #resolve(String)} maps the config value
+ * ({@code auto}, {@code epoll} or {@code nio}) to a transport that is actually usable on this host.
+ */
+enum GatewayTransport {
+    NIO("nio") {
+        @Override
+        EventLoopGroup createGroup(int threads, String threadName) {
+            return new NioEventLoopGroup(threads, new DefaultThreadFactory(threadName, true));
+        }
+
+        @Override
+        Class<? extends ServerSocketChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+    },
+    EPOLL("epoll") {
+        @Override
+        EventLoopGroup createGroup(int threads, String threadName) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory(threadName, true));
+        }
+
+        @Override
+        Class<? extends ServerSocketChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+    };
+
+    private final String configName;
+
+    GatewayTransport(String configName) {
+        this.configName = configName;
+    }
+
+    String configName() {
+        return configName;
+    }
+
+    /**
+     * @param threads {@code 0} lets Netty pick its default (2 x cores).
+     */
+    abstract EventLoopGroup createGroup(int threads, String threadName);
+
+    abstract Class<? extends ServerSocketChannel> serverChannelClass();
+
+    /**
+     * Unix domain sockets are only offered by the epoll transport; callers must run on {@link #EPOLL} groups.
+     */
+    static Class<? extends ServerChannel> domainSocketServerChannelClass() {
+        return EpollServerDomainSocketChannel.class;
+    }
+
+    static boolean epollAvailable() {
+        try {
+            return Epoll.isAvailable();
+        } catch (Throwable throwable) {
+            return false;
+        }
+    }
+
+    /**
+     * Epoll is used when requested (or {@code auto}) and the native library loads; otherwise NIO.
+     */
+    static GatewayTransport resolve(String configured) {
+        if (NIO.configName.equalsIgnoreCase(configured)) {
+            return NIO;
+        }
+        return epollAvailable() ? EPOLL : NIO;
+    }
+}
@@ -0,0 +1,99 @@
+package com.hydroline.beacon.provider.gateway;
+
+import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Envelope encodings a gateway connection can negotiate. Handshake frames always use {@link #JSON};
+ * the negotiated format applies to every frame after {@code handshake_ack}.
+ */
+public enum GatewayWireFormat {
+    JSON("json") {
+        @Override
+        public GatewayEnvelope decode(ByteBuf frame) throws IOException {
+            return GatewayCodec.decode(frame);
+        }
+
+        @Override
+        public ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body) {
+            return GatewayCodec.encode(alloc, type, connectionId, body);
+        }
+
+        @Override
+        public ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body, byte[] data) {
+            JsonObject payload = body.getAsJsonObject("payload");
+            payload.addProperty("encoding", "base64");
+            payload.addProperty("data", Base64.getEncoder().encodeToString(data));
+            return GatewayCodec.encode(alloc, type, connectionId, body);
+        }
+
+        @Override
+        public ByteBuf encodeResponse(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, BeaconResponse response) {
+            return GatewayCodec.encodeResponse(alloc, type, connectionId, response);
+        }
+    },
+    MSGPACK("msgpack") {
+        @Override
+        public GatewayEnvelope decode(ByteBuf frame) {
+            return GatewayMsgpackCodec.decode(frame);
+        }
+
+        @Override
+        public ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body) {
+            return GatewayMsgpackCodec.encode(alloc, type, connectionId, body);
+        }
+
+        @Override
+        public ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body, byte[] data) {
+            return GatewayMsgpackCodec.encode(alloc, type, connectionId, body, data);
+        }
+
+        @Override
+        public ByteBuf encodeResponse(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, BeaconResponse response) {
+            return GatewayMsgpackCodec.encodeResponse(alloc, type, connectionId, response);
+        }
+    };
+
+    private final String wireName;
+
+    GatewayWireFormat(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String wireName() {
+        return wireName;
+    }
+
+    public abstract GatewayEnvelope decode(ByteBuf frame) throws IOException;
+
+    /**
+     * Encodes a complete frame, including the 4-byte length prefix, into a buffer from {@code alloc}.
+     */
+    public abstract ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body);
+
+    /**
+     * Like {@link #encode(ByteBufAllocator, GatewayMessageType, UUID, JsonObject)}, adding {@code data} and its
+     * {@code encoding} to the {@code payload} object of {@code body}: a MessagePack {@code bin} where the format
+     * has one, base64 text otherwise.
+     */
+    public abstract ByteBuf encode(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, JsonObject body, byte[] data);
+
+    public abstract ByteBuf encodeResponse(ByteBufAllocator alloc, GatewayMessageType type, UUID connectionId, BeaconResponse response);
+
+    /**
+     * @return the matching format, or {@code null} if the name is unknown.
+     */
+    public static GatewayWireFormat fromWireName(String wireName) {
+        for (GatewayWireFormat format : values()) {
+            if (format.wireName.equalsIgnoreCase(wireName)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -133,6 +133,10 @@ public final class MtrDataMapper {
         if (context == null) {
             return Collections.emptyList();
         }
+        List<StationInfo> cached = context.stationInfos;
+        if (cached != null) {
+            return cached;
+        }
         List<StationInfo> stations = new ArrayList<>(context.stations.size());
         context.stations.values().stream()
             .sorted(Comparator.comparingLong(station -> station.id))
@@ -145,7 +149,9 @@ public final class MtrDataMapper {
                 toSortedList(context.stationRouteIds.get(station.id)),
                 buildStationPlatforms(context, station)
             )));
-        return stations;
+        cached = Collections.unmodifiableList(stations);
+        context.stationInfos = cached;
+        return cached;
     }
 
     public static NodePage buildNodePage(MtrDimensionSnapshot snapshot, String cursor, int limit) {
@@ -451,22 +457,19 @@ public final class MtrDataMapper {
     }
 
     private static List<StationPlatformInfo> buildStationPlatforms(DimensionContext context, Station station) {
-        if (context.platforms.isEmpty()) {
+        List<Platform> stationPlatforms = context.stationPlatforms.get(station.id);
+        if (stationPlatforms == null) {
             return Collections.emptyList();
         }
-        List<StationPlatformInfo> platforms = new ArrayList<>();
-        context.platforms.values().stream()
-            .filter(platform -> {
-                Station mapped = context.platformToStation.get(platform.id);
-                return mapped != null && mapped.id == station.id;
-            })
-            .sorted(Comparator.comparingLong(platform -> platform.id))
-            .forEach(platform -> platforms.add(new StationPlatformInfo(
+        List<StationPlatformInfo> platforms = new ArrayList<>(stationPlatforms.size());
+        for (Platform platform : stationPlatforms) {
+            platforms.add(new StationPlatformInfo(
                 platform.id,
                 safeName(platform.name),
                 toSortedList(context.platformRouteIds.get(platform.id)),
                 context.platformDepotIds.get(platform.id)
-            )));
+            ));
+        }
         return platforms;
     }
 
@@ -797,7 +800,14 @@ public final class MtrDataMapper {
         return Collections.emptyMap();
     }
 
+    /**
+     * Per-dimension lookups derived from one RailwayData state. Instances are immutable and shared between calls
+     * through {@link #CONTEXT_CACHE} until the snapshot fingerprint changes; trains are still read live from the
+     * sidings on every call.
+     */
     private static final class DimensionContext {
+        private static final Map<String, CachedContext> CONTEXT_CACHE = new ConcurrentHashMap<>();
+
         final String dimensionId;
         final RailwayData railwayData;
         final Map<Long, Station> stations;
@@ -812,6 +822,9 @@ public final class MtrDataMapper {
         final Map<Long, Long> platformDepotIds;
         final Map<Long, List<Long>> routeStationOrder;
         final Map<Long, Route> routeIdMap;
+        final Map<Long, List<Platform>> stationPlatforms;
+        /** {@link #buildStations} result, filled on first use. */
+        volatile List<StationInfo> stationInfos;
 
         private DimensionContext(String dimensionId, RailwayData railwayData, DataCache cache) {
             this.dimensionId = dimensionId;
@@ -820,26 +833,38 @@ public final class MtrDataMapper {
             this.platforms = cache.platformIdMap != null ? cache.platformIdMap : Collections.emptyMap();
             this.platformToStation = cache.platformIdToStation != null ? cache.platformIdToStation : Collections.emptyMap();
             this.blockPosToStation = extractBlockPosStationMap(cache);
-            this.routes = railwayData.routes != null ? new ArrayList<>(railwayData.routes) : Collections.emptyList();
-            this.depots = railwayData.depots != null ? new ArrayList<>(railwayData.depots) : Collections.emptyList();
-            this.sidings = railwayData.sidings != null ? new ArrayList<>(railwayData.sidings) : Collections.emptyList();
+            this.routes = railwayData.routes != null ? Collections.unmodifiableList(new ArrayList<>(railwayData.routes)) : Collections.emptyList();
+            this.depots = railwayData.depots != null ? Collections.unmodifiableList(new ArrayList<>(railwayData.depots)) : Collections.emptyList();
+            this.sidings = railwayData.sidings != null ? Collections.unmodifiableList(new ArrayList<>(railwayData.sidings)) : Collections.emptyList();
             this.stationRouteIds = buildStationRouteIndex(routes, platformToStation);
             this.platformRouteIds = buildPlatformRouteIndex(routes);
             this.platformDepotIds = buildPlatformDepotIndex(depots);
             this.routeStationOrder = buildRouteStationOrder(routes, platformToStation);
             this.routeIdMap = buildRouteIdMap(routes);
+            this.stationPlatforms = buildStationPlatformIndex(platforms, platformToStation);
         }
 
+        /**
+         * Returns the cached context for the snapshot's dimension, rebuilding it only when the snapshot's
+         * fingerprint (taken on the server thread at capture time) differs from the one it was built for.
+         */
         static DimensionContext from(MtrDimensionSnapshot snapshot) {
             if (snapshot == null) {
                 return null;
             }
             try {
+                RailwayData railwayData = snapshot.getRailwayData();
+                CachedContext cached = CONTEXT_CACHE.get(snapshot.getDimensionId());
+                if (cached != null && cached.context.railwayData == railwayData && cached.fingerprint == snapshot.getFingerprint()) {
+                    return cached.context;
+                }
                 DataCache cache = snapshot.refreshAndGetCache();
                 if (cache == null) {
                     return null;
                 }
-                return new DimensionContext(snapshot.getDimensionId(), snapshot.getRailwayData(), cache);
+                DimensionContext context = new DimensionContext(snapshot.getDimensionId(), railwayData, cache);
+                CONTEXT_CACHE.put(snapshot.getDimensionId(), new CachedContext(context, snapshot.getFingerprint()));
+                return context;
             } catch (Exception ex) {
                 LOGGER.warn("Failed to refresh MTR cache for dimension {}", snapshot.getDimensionId(), ex);
                 return null;
@@ -847,6 +872,154 @@ public final class MtrDataMapper {
         }
     }
 
+    private static final class CachedContext {
+        final DimensionContext context;
+        final long fingerprint;
+
+        CachedContext(DimensionContext context, long fingerprint) {
+            this.context = context;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Hashes everything {@link DimensionContext} is derived from: the stations, platforms and platform-to-station
+     * mapping of the {@link DataCache}, route platform lists, depot platform keys and the siding set. Must run on
+     * the server thread, since it walks collections MTR mutates there.
+     * <p>
+     * Each element hashes its identity (contexts hold element references, and MTR replaces objects on edit)
+     * together with the content the indexes read. Element hashes are finalized and summed, so the result does
+     * not depend on iteration order; only a route's platform list is hashed in order.
+     */
+    static long fingerprint(RailwayData railwayData) {
+        DataCache cache = railwayData.dataCache;
+        long hash = mix(0L, System.identityHashCode(cache));
+        if (cache != null) {
+            hash = mix(hash, fingerprintStations(cache.stationIdMap));
+            hash = mix(hash, fingerprintPlatforms(cache.platformIdMap));
+            hash = mix(hash, fingerprintPlatformStations(cache.platformIdToStation));
+        }
+        hash = mix(hash, fingerprintRoutes(railwayData.routes));
+        hash = mix(hash, fingerprintDepots(railwayData.depots));
+        return mix(hash, fingerprintSidings(railwayData.sidings));
+    }
+
+    private static long fingerprintStations(Map<Long, Station> stations) {
+        if (stations == null) {
+            return 0L;
+        }
+        long sum = stations.size();
+        for (Station station : stations.values()) {
+            sum += finish(station == null ? 0L : mix(fingerprintArea(station), station.zone));
+        }
+        return sum;
+    }
+
+    private static long fingerprintPlatforms(Map<Long, Platform> platforms) {
+        if (platforms == null) {
+            return 0L;
+        }
+        long sum = platforms.size();
+        for (Platform platform : platforms.values()) {
+            sum += finish(platform == null ? 0L
+                : mix(mix(System.identityHashCode(platform), platform.id), Objects.hashCode(platform.name)));
+        }
+        return sum;
+    }
+
+    private static long fingerprintPlatformStations(Map<Long, Station> platformToStation) {
+        if (platformToStation == null) {
+            return 0L;
+        }
+        long sum = platformToStation.size();
+        for (Map.Entry<Long, Station> entry : platformToStation.entrySet()) {
+            Station station = entry.getValue();
+            sum += finish(mix(entry.getKey() == null ? 0L : entry.getKey(), station == null ? 0L : station.id));
+        }
+        return sum;
+    }
+
+    private static long fingerprintRoutes(Collection<Route> routes) {
+        if (routes == null) {
+            return 0L;
+        }
+        long sum = routes.size();
+        for (Route route : routes) {
+            if (route == null) {
+                continue;
+            }
+            long hash = mix(System.identityHashCode(route), route.id);
+            if (route.platformIds != null) {
+                hash = mix(hash, route.platformIds.size());
+                for (RoutePlatform reference : route.platformIds) {
+                    hash = mix(hash, reference == null ? 0L : reference.platformId);
+                }
+            }
+            sum += finish(hash);
+        }
+        return sum;
+    }
+
+    private static long fingerprintDepots(Collection<Depot> depots) {
+        if (depots == null) {
+            return 0L;
+        }
+        long sum = depots.size();
+        for (Depot depot : depots) {
+            if (depot == null) {
+                continue;
+            }
+            long hash = mix(System.identityHashCode(depot), depot.id);
+            if (depot.platformTimes != null) {
+                for (Map<Long, Float> platformTimes : depot.platformTimes.values()) {
+                    if (platformTimes != null) {
+                        for (Long platformId : platformTimes.keySet()) {
+                            hash += finish(platformId == null ? 0L : platformId);
+                        }
+                    }
+                }
+            }
+            sum += finish(hash);
+        }
+        return sum;
+    }
+
+    private static long fingerprintSidings(Collection<Siding> sidings) {
+        if (sidings == null) {
+            return 0L;
+        }
+        long sum = sidings.size();
+        for (Siding siding : sidings) {
+            sum += finish(siding == null ? 0L : mix(System.identityHashCode(siding), siding.id));
+        }
+        return sum;
+    }
+
+    /**
+     * Covers what {@code StationInfo} reads from a station besides its id: name and the corner objects, which
+     * MTR replaces when an area is resized.
+     */
+    private static long fingerprintArea(AreaBase area) {
+        long hash = mix(mix(System.identityHashCode(area), area.id), Objects.hashCode(area.name));
+        hash = mix(hash, System.identityHashCode(readField(AREA_CORNER1, area)));
+        return mix(hash, System.identityHashCode(readField(AREA_CORNER2, area)));
+    }
+
+    private static long mix(long hash, long value) {
+        return hash * 0x9E3779B97F4A7C15L + value;
+    }
+
+    /**
+     * 64-bit finalizer (MurmurHash3 fmix64) so summed element hashes do not cancel out.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
     private static Map<Long, Set<Long>> buildStationRouteIndex(List<Route> routes, Map<Long, Station> platformToStation) {
         if (routes.isEmpty() || platformToStation.isEmpty()) {
             return Collections.emptyMap();
@@ -925,6 +1098,24 @@ public final class MtrDataMapper {
         return order;
     }
 
+    private static Map<Long, List<Platform>> buildStationPlatformIndex(Map<Long, Platform> platforms,
+                                                                       Map<Long, Station> platformToStation) {
+        if (platforms.isEmpty() || platformToStation.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<Platform>> index = new HashMap<>();
+        for (Platform platform : platforms.values()) {
+            Station station = platformToStation.get(platform.id);
+            if (station != null) {
+                index.computeIfAbsent(station.id, key -> new ArrayList<>()).add(platform);
+            }
+        }
+        for (List<Platform> stationPlatforms : index.values()) {
+            stationPlatforms.sort(Comparator.comparingLong(platform -> platform.id));
+        }
+        return index;
+    }
+
     private static Map<Long, Route> buildRouteIdMap(List<Route> routes) {
         if (routes.isEmpty()) {
             return Collections.emptyMap();
@@ -5,15 +5,18 @@ import mtr.data.DataCache;
 import mtr.data.RailwayData;
 
 /**
- * Immutable view describing a single Minecraft dimension and its associated RailwayData instance.
+ * Immutable view describing a single Minecraft dimension and its associated RailwayData instance. Snapshots are
+ * created on the server thread, which is where the data {@link #getFingerprint() fingerprint} is taken.
  */
 public final class MtrDimensionSnapshot {
     private final String dimensionId;
     private final RailwayData railwayData;
+    private final long fingerprint;
 
     public MtrDimensionSnapshot(String dimensionId, RailwayData railwayData) {
         this.dimensionId = Objects.requireNonNull(dimensionId, "dimensionId");
         this.railwayData = Objects.requireNonNull(railwayData, "railwayData");
+        this.fingerprint = MtrDataMapper.fingerprint(railwayData);
     }
 
     public String getDimensionId() {
@@ -24,6 +27,14 @@ public final class MtrDimensionSnapshot {
         return railwayData;
     }
 
+    /**
+     * @return hash of the railway structure (stations, platforms, routes, depots, sidings) at capture time; equal
+     * values mean lookups derived from the data are still valid. Train positions are not covered.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
     /**
      * Ensures the associated {@link DataCache} is synchronized before data is read.
      *
@@ -2,6 +2,7 @@ package com.hydroline.beacon.provider.mtr;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.hydroline.beacon.provider.mtr.MtrModels.Bounds;
 import com.hydroline.beacon.provider.mtr.MtrModels.DepotInfo;
 import com.hydroline.beacon.provider.mtr.MtrModels.DimensionOverview;
@@ -18,314 +19,414 @@ import com.hydroline.beacon.provider.mtr.MtrModels.StationInfo;
 import com.hydroline.beacon.provider.mtr.MtrModels.StationPlatformInfo;
 import com.hydroline.beacon.provider.mtr.MtrModels.StationTimetable;
 import com.hydroline.beacon.provider.mtr.MtrModels.TrainStatus;
+import com.hydroline.beacon.provider.util.PayloadWriter;
+import com.hydroline.beacon.provider.util.TreeJsonWriter;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
- * Converts DTOs into the JSON schema expected by Bukkit / website callers.
+ * Converts DTOs into the JSON schema expected by Bukkit / website callers. Every method has a streaming form that
+ * writes to a {@link JsonWriter}; the tree-returning forms wrap it and produce the same structure.
  */
 public final class MtrJsonWriter {
     private MtrJsonWriter() {
     }
 
     public static JsonArray writeDimensionOverview(List<DimensionOverview> dimensions) {
-        JsonArray array = new JsonArray();
-        if (dimensions == null) {
-            return array;
-        }
-        for (DimensionOverview overview : dimensions) {
-            if (overview == null) {
-                continue;
-            }
-            JsonObject json = new JsonObject();
-            json.addProperty("dimension", overview.getDimensionId());
-            JsonArray routes = new JsonArray();
-            for (RouteSummary summary : overview.getRoutes()) {
-                routes.add(writeRouteSummary(summary));
-            }
-            json.add("routes", routes);
+        return TreeJsonWriter.build(writer -> writeDimensionOverview(writer, dimensions)).getAsJsonArray();
+    }
 
-            JsonArray depots = new JsonArray();
-            for (DepotInfo depot : overview.getDepots()) {
-                depots.add(writeDepotInfo(depot));
-            }
-            json.add("depots", depots);
+    public static JsonObject writeRouteDetail(RouteDetail detail) {
+        return TreeJsonWriter.build(writer -> writeRouteDetail(writer, detail)).getAsJsonObject();
+    }
+
+    public static JsonArray writeDepots(List<DepotInfo> depots) {
+        return TreeJsonWriter.build(writer -> writeDepots(writer, depots)).getAsJsonArray();
+    }
+
+    public static JsonArray writeStations(List<StationInfo> stations) {
+        return TreeJsonWriter.build(writer -> writeStations(writer, stations)).getAsJsonArray();
+    }
+
+    public static JsonArray writeFareAreas(List<FareAreaInfo> fareAreas) {
+        return TreeJsonWriter.build(writer -> writeFareAreas(writer, fareAreas)).getAsJsonArray();
+    }
+
+    public static JsonArray writeTrainStatuses(List<TrainStatus> statuses) {
+        return TreeJsonWriter.build(writer -> writeTrainStatuses(writer, statuses)).getAsJsonArray();
+    }
+
+    public static JsonObject writeNodePage(NodePage page) {
+        return TreeJsonWriter.build(writer -> writeNodePage(writer, page)).getAsJsonObject();
+    }
 
-            JsonArray fareAreas = new JsonArray();
-            for (FareAreaInfo info : overview.getFareAreas()) {
-                fareAreas.add(writeFareAreaInfo(info));
+    public static JsonObject writeStationTimetable(StationTimetable timetable) {
+        return TreeJsonWriter.build(writer -> writeStationTimetable(writer, timetable)).getAsJsonObject();
+    }
+
+    public static JsonObject writeScheduleEntry(ScheduleEntry entry, Map<Long, String> routeNames) {
+        return TreeJsonWriter.build(writer -> writeScheduleEntry(writer, entry, routeNames)).getAsJsonObject();
+    }
+
+    public static void writeDimensionOverview(JsonWriter writer, List<DimensionOverview> dimensions) throws IOException {
+        writer.beginArray();
+        if (dimensions != null) {
+            for (DimensionOverview overview : dimensions) {
+                if (overview == null) {
+                    continue;
+                }
+                writer.beginObject();
+                writer.name("dimension").value(overview.getDimensionId());
+                writer.name("routes").beginArray();
+                for (RouteSummary summary : overview.getRoutes()) {
+                    writeRouteSummary(writer, summary);
+                }
+                writer.endArray();
+                writer.name("depots").beginArray();
+                for (DepotInfo depot : overview.getDepots()) {
+                    writeDepotInfo(writer, depot);
+                }
+                writer.endArray();
+                writer.name("fareAreas").beginArray();
+                for (FareAreaInfo info : overview.getFareAreas()) {
+                    writeFareAreaInfo(writer, info);
+                }
+                writer.endArray();
+                writer.endObject();
             }
-            json.add("fareAreas", fareAreas);
-            array.add(json);
         }
-        return array;
+        writer.endArray();
     }
 
-    public static JsonObject writeRouteDetail(RouteDetail detail) {
-        JsonObject json = new JsonObject();
-        json.addProperty("dimension", detail.getDimensionId());
-        json.addProperty("routeId", detail.getRouteId());
-        json.addProperty("name", detail.getName());
-        json.addProperty("color", detail.getColor());
-        json.addProperty("routeType", detail.getRouteType());
-        JsonArray nodes = new JsonArray();
+    public static void writeRouteDetail(JsonWriter writer, RouteDetail detail) throws IOException {
+        writer.beginObject();
+        writer.name("dimension").value(detail.getDimensionId());
+        writer.name("routeId").value(detail.getRouteId());
+        writer.name("name").value(detail.getName());
+        writer.name("color").value(detail.getColor());
+        writer.name("routeType").value(detail.getRouteType());
+        writer.name("nodes").beginArray();
         for (RouteNode node : detail.getNodes()) {
-            nodes.add(writeRouteNode(node));
+            writeRouteNode(writer, node);
         }
-        json.add("nodes", nodes);
-        return json;
+        writer.endArray();
+        writer.endObject();
     }
 
-    public static JsonArray writeDepots(List<DepotInfo> depots) {
-        JsonArray array = new JsonArray();
+    public static void writeDepots(JsonWriter writer, List<DepotInfo> depots) throws IOException {
+        writer.beginArray();
         if (depots != null) {
             for (DepotInfo depot : depots) {
-                array.add(writeDepotInfo(depot));
+                writeDepotInfo(writer, depot);
             }
         }
-        return array;
+        writer.endArray();
     }
 
-    public static JsonArray writeStations(List<StationInfo> stations) {
-        JsonArray array = new JsonArray();
+    public static void writeStations(JsonWriter writer, List<StationInfo> stations) throws IOException {
+        writer.beginArray();
         if (stations != null) {
             for (StationInfo station : stations) {
-                array.add(writeStationInfo(station));
+                writeStationInfo(writer, station);
             }
         }
-        return array;
+        writer.endArray();
     }
 
-    public static JsonArray writeFareAreas(List<FareAreaInfo> fareAreas) {
-        JsonArray array = new JsonArray();
+    public static void writeFareAreas(JsonWriter writer, List<FareAreaInfo> fareAreas) throws IOException {
+        writer.beginArray();
         if (fareAreas != null) {
             for (FareAreaInfo info : fareAreas) {
-                array.add(writeFareAreaInfo(info));
+                writeFareAreaInfo(writer, info);
             }
         }
-        return array;
+        writer.endArray();
     }
 
-    public static JsonArray writeTrainStatuses(List<TrainStatus> statuses) {
-        JsonArray array = new JsonArray();
+    public static void writeTrainStatuses(JsonWriter writer, List<TrainStatus> statuses) throws IOException {
+        writer.beginArray();
         if (statuses != null) {
             for (TrainStatus status : statuses) {
-                array.add(writeTrainStatus(status));
+                writeTrainStatus(writer, status);
             }
         }
-        return array;
+        writer.endArray();
     }
 
-    public static JsonObject writeNodePage(NodePage page) {
-        JsonObject json = new JsonObject();
-        json.addProperty("dimension", page.getDimensionId());
-        JsonArray nodes = new JsonArray();
+    public static void writeNodePage(JsonWriter writer, NodePage page) throws IOException {
+        writer.beginObject();
+        writer.name("dimension").value(page.getDimensionId());
+        writer.name("nodes").beginArray();
         for (NodeInfo node : page.getNodes()) {
-            nodes.add(writeNodeInfo(node));
+            writer.beginObject();
+            writeNodeFields(writer, node);
+            writer.endObject();
+        }
+        writer.endArray();
+        Optional<String> nextCursor = page.getNextCursor();
+        if (nextCursor.isPresent()) {
+            writer.name("nextCursor").value(nextCursor.get());
         }
-        json.add("nodes", nodes);
-        page.getNextCursor().ifPresent(cursor -> json.addProperty("nextCursor", cursor));
-        json.addProperty("hasMore", page.getNextCursor().isPresent());
-        return json;
+        writer.name("hasMore").value(nextCursor.isPresent());
+        writer.endObject();
     }
 
-    public static JsonObject writeStationTimetable(StationTimetable timetable) {
-        JsonObject json = new JsonObject();
-        json.addProperty("dimension", timetable.getDimensionId());
-        json.addProperty("stationId", timetable.getStationId());
-        JsonArray platforms = new JsonArray();
+    public static void writeStationTimetable(JsonWriter writer, StationTimetable timetable) throws IOException {
+        writer.beginObject();
+        writer.name("dimension").value(timetable.getDimensionId());
+        writer.name("stationId").value(timetable.getStationId());
+        writer.name("platforms").beginArray();
         for (PlatformTimetable platform : timetable.getPlatforms()) {
-            platforms.add(writePlatformTimetable(platform));
+            writePlatformTimetable(writer, platform);
         }
-        json.add("platforms", platforms);
-        return json;
-    }
-
-    private static JsonObject writeRouteSummary(RouteSummary summary) {
-        JsonObject json = new JsonObject();
-        json.addProperty("routeId", summary.getRouteId());
-        json.addProperty("name", summary.getName());
-        json.addProperty("color", summary.getColor());
-        json.addProperty("transportMode", summary.getTransportMode());
-        json.addProperty("routeType", summary.getRouteType());
-        json.addProperty("hidden", summary.isHidden());
-        JsonArray platforms = new JsonArray();
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private static void writeRouteSummary(JsonWriter writer, RouteSummary summary) throws IOException {
+        writer.beginObject();
+        writer.name("routeId").value(summary.getRouteId());
+        writer.name("name").value(summary.getName());
+        writer.name("color").value(summary.getColor());
+        writer.name("transportMode").value(summary.getTransportMode());
+        writer.name("routeType").value(summary.getRouteType());
+        writer.name("hidden").value(summary.isHidden());
+        writer.name("platforms").beginArray();
         for (PlatformSummary platform : summary.getPlatforms()) {
-            platforms.add(writePlatformSummary(platform));
+            writePlatformSummary(writer, platform);
         }
-        json.add("platforms", platforms);
-        return json;
+        writer.endArray();
+        writer.endObject();
     }
 
-    private static JsonObject writePlatformSummary(PlatformSummary summary) {
-        JsonObject json = new JsonObject();
-        json.addProperty("platformId", summary.getPlatformId());
-        json.addProperty("stationId", summary.getStationId());
-        json.addProperty("stationName", summary.getStationName());
+    private static void writePlatformSummary(JsonWriter writer, PlatformSummary summary) throws IOException {
+        writer.beginObject();
+        writer.name("platformId").value(summary.getPlatformId());
+        writer.name("stationId").value(summary.getStationId());
+        writer.name("stationName").value(summary.getStationName());
         if (summary.getBounds() != null) {
-            json.add("bounds", writeBounds(summary.getBounds()));
+            writer.name("bounds");
+            writeBounds(writer, summary.getBounds());
         }
-        json.add("interchangeRouteIds", writeLongArray(summary.getInterchangeRouteIds()));
-        return json;
-    }
-
-    private static JsonObject writeDepotInfo(DepotInfo depot) {
-        JsonObject json = new JsonObject();
-        json.addProperty("depotId", depot.getDepotId());
-        json.addProperty("name", depot.getName());
-        json.addProperty("transportMode", depot.getTransportMode());
-        json.add("routeIds", writeLongArray(depot.getRouteIds()));
-        json.add("departures", writeIntArray(depot.getDepartures()));
-        json.addProperty("useRealTime", depot.isUseRealTime());
-        json.addProperty("repeatInfinitely", depot.isRepeatInfinitely());
-        json.addProperty("cruisingAltitude", depot.getCruisingAltitude());
-        depot.getNextDepartureMillis().ifPresent(value -> json.addProperty("nextDepartureMillis", value));
-        return json;
-    }
-
-    private static JsonObject writeFareAreaInfo(FareAreaInfo info) {
-        JsonObject json = new JsonObject();
-        json.addProperty("stationId", info.getStationId());
-        json.addProperty("name", info.getName());
-        json.addProperty("zone", info.getZone());
+        writer.name("interchangeRouteIds");
+        writeLongArray(writer, summary.getInterchangeRouteIds());
+        writer.endObject();
+    }
+
+    private static void writeDepotInfo(JsonWriter writer, DepotInfo depot) throws IOException {
+        writer.beginObject();
+        writer.name("depotId").value(depot.getDepotId());
+        writer.name("name").value(depot.getName());
+        writer.name("transportMode").value(depot.getTransportMode());
+        writer.name("routeIds");
+        writeLongArray(writer, depot.getRouteIds());
+        writer.name("departures");
+        writeIntArray(writer, depot.getDepartures());
+        writer.name("useRealTime").value(depot.isUseRealTime());
+        writer.name("repeatInfinitely").value(depot.isRepeatInfinitely());
+        writer.name("cruisingAltitude").value(depot.getCruisingAltitude());
+        Optional<Integer> nextDeparture = depot.getNextDepartureMillis();
+        if (nextDeparture.isPresent()) {
+            writer.name("nextDepartureMillis").value(nextDeparture.get());
+        }
+        writer.endObject();
+    }
+
+    private static void writeFareAreaInfo(JsonWriter writer, FareAreaInfo info) throws IOException {
+        writer.beginObject();
+        writer.name("stationId").value(info.getStationId());
+        writer.name("name").value(info.getName());
+        writer.name("zone").value(info.getZone());
         if (info.getBounds() != null) {
-            json.add("bounds", writeBounds(info.getBounds()));
+            writer.name("bounds");
+            writeBounds(writer, info.getBounds());
         }
-        json.add("interchangeRouteIds", writeLongArray(info.getInterchangeRouteIds()));
-        return json;
+        writer.name("interchangeRouteIds");
+        writeLongArray(writer, info.getInterchangeRouteIds());
+        writer.endObject();
     }
 
-    private static JsonObject writeStationInfo(StationInfo info) {
-        JsonObject json = new JsonObject();
-        json.addProperty("dimension", info.getDimensionId());
-        json.addProperty("stationId", info.getStationId());
-        json.addProperty("name", info.getName());
-        json.addProperty("zone", info.getZone());
+    private static void writeStationInfo(JsonWriter writer, StationInfo info) throws IOException {
+        writer.beginObject();
+        writer.name("dimension").value(info.getDimensionId());
+        writer.name("stationId").value(info.getStationId());
+        writer.name("name").value(info.getName());
+        writer.name("zone").value(info.getZone());
         if (info.getBounds() != null) {
-            json.add("bounds", writeBounds(info.getBounds()));
+            writer.name("bounds");
+            writeBounds(writer, info.getBounds());
         }
-        json.add("interchangeRouteIds", writeLongArray(info.getInterchangeRouteIds()));
-        JsonArray platforms = new JsonArray();
+        writer.name("interchangeRouteIds");
+        writeLongArray(writer, info.getInterchangeRouteIds());
+        writer.name("platforms").beginArray();
         for (StationPlatformInfo platform : info.getPlatforms()) {
-            platforms.add(writeStationPlatform(platform));
+            writeStationPlatform(writer, platform);
         }
-        json.add("platforms", platforms);
-        return json;
+        writer.endArray();
+        writer.endObject();
     }
 
-    private static JsonObject writeStationPlatform(StationPlatformInfo platform) {
-        JsonObject json = new JsonObject();
-        json.addProperty("platformId", platform.getPlatformId());
-        json.addProperty("name", platform.getPlatformName());
-        json.add("routeIds", writeLongArray(platform.getRouteIds()));
-        platform.getDepotId().ifPresent(id -> json.addProperty("depotId", id));
-        return json;
+    private static void writeStationPlatform(JsonWriter writer, StationPlatformInfo platform) throws IOException {
+        writer.beginObject();
+        writer.name("platformId").value(platform.getPlatformId());
+        writer.name("name").value(platform.getPlatformName());
+        writer.name("routeIds");
+        writeLongArray(writer, platform.getRouteIds());
+        Optional<Long> depotId = platform.getDepotId();
+        if (depotId.isPresent()) {
+            writer.name("depotId").value(depotId.get());
+        }
+        writer.endObject();
     }
 
-    private static JsonObject writeRouteNode(RouteNode node) {
-        JsonObject json = writeNodeInfo(node.getNode());
-        json.addProperty("segmentCategory", node.getSegmentCategory());
-        json.addProperty("sequence", node.getSequence());
-        return json;
+    private static void writeRouteNode(JsonWriter writer, RouteNode node) throws IOException {
+        writer.beginObject();
+        writeNodeFields(writer, node.getNode());
+        writer.name("segmentCategory").value(node.getSegmentCategory());
+        writer.name("sequence").value(node.getSequence());
+        writer.endObject();
     }
 
-    private static JsonObject writeNodeInfo(NodeInfo node) {
-        JsonObject json = new JsonObject();
-        json.addProperty("x", node.getX());
-        json.addProperty("y", node.getY());
-        json.addProperty("z", node.getZ());
-        json.addProperty("railType", node.getRailType());
-        json.addProperty("platformSegment", node.isPlatformSegment());
-        node.getStationId().ifPresent(id -> json.addProperty("stationId", id));
-        return json;
+    private static void writeNodeFields(JsonWriter writer, NodeInfo node) throws IOException {
+        writer.name("x").value(node.getX());
+        writer.name("y").value(node.getY());
+        writer.name("z").value(node.getZ());
+        writer.name("railType").value(node.getRailType());
+        writer.name("platformSegment").value(node.isPlatformSegment());
+        Optional<Long> stationId = node.getStationId();
+        if (stationId.isPresent()) {
+            writer.name("stationId").value(stationId.get());
+        }
     }
 
-    private static JsonObject writePlatformTimetable(PlatformTimetable timetable) {
-        JsonObject json = new JsonObject();
-        json.addProperty("platformId", timetable.getPlatformId());
-        JsonArray entries = new JsonArray();
+    private static void writePlatformTimetable(JsonWriter writer, PlatformTimetable timetable) throws IOException {
+        writer.beginObject();
+        writer.name("platformId").value(timetable.getPlatformId());
+        writer.name("entries").beginArray();
         for (ScheduleEntry entry : timetable.getEntries()) {
-            entries.add(writeScheduleEntry(entry, null));
+            writeScheduleEntry(writer, entry, null);
         }
-        json.add("entries", entries);
-        return json;
+        writer.endArray();
+        writer.endObject();
     }
 
-    public static JsonObject writeScheduleEntry(ScheduleEntry entry, Map<Long, String> routeNames) {
-        JsonObject json = new JsonObject();
-        json.addProperty("routeId", entry.getRouteId());
-        entry.getRouteName().ifPresent(name -> json.addProperty("routeName", name));
-        if (!json.has("routeName") && routeNames != null) {
+    /**
+     * @param routeNames fallback names used when the entry itself carries none; may be {@code null}
+     */
+    public static void writeScheduleEntry(JsonWriter writer, ScheduleEntry entry, Map<Long, String> routeNames) throws IOException {
+        writer.beginObject();
+        writer.name("routeId").value(entry.getRouteId());
+        String routeName = entry.getRouteName().orElse(null);
+        if (routeName == null && routeNames != null) {
             String fallback = routeNames.get(entry.getRouteId());
             if (fallback != null && !fallback.isEmpty()) {
-                json.addProperty("routeName", fallback);
+                routeName = fallback;
             }
         }
-        entry.getDestination().ifPresent(destination -> json.addProperty("destination", destination));
-        entry.getCircular().ifPresent(circular -> json.addProperty("circular", circular));
-        entry.getRouteLabel().ifPresent(label -> json.addProperty("route", label));
-        entry.getRouteColor().ifPresent(color -> json.addProperty("color", color));
-        json.addProperty("arrivalMillis", entry.getArrivalMillis());
-        json.addProperty("trainCars", entry.getTrainCars());
-        json.addProperty("currentStationIndex", entry.getCurrentStationIndex());
-        entry.getDelayMillis().ifPresent(delay -> json.addProperty("delayMillis", delay));
-        return json;
-    }
-
-    private static JsonObject writeTrainStatus(TrainStatus status) {
-        JsonObject json = new JsonObject();
+        if (routeName != null) {
+            writeString(writer, "routeName", routeName);
+        }
+        writeOptionalString(writer, "destination", entry.getDestination());
+        writeOptionalString(writer, "circular", entry.getCircular());
+        writeOptionalString(writer, "route", entry.getRouteLabel());
+        writeOptional(writer, "color", entry.getRouteColor());
+        writer.name("arrivalMillis").value(entry.getArrivalMillis());
+        writer.name("trainCars").value(entry.getTrainCars());
+        writer.name("currentStationIndex").value(entry.getCurrentStationIndex());
+        writeOptional(writer, "delayMillis", entry.getDelayMillis());
+        writer.endObject();
+    }
+
+    private static void writeTrainStatus(JsonWriter writer, TrainStatus status) throws IOException {
+        writer.beginObject();
         if (status.getTrainUuid() != null) {
-            json.addProperty("trainUuid", status.getTrainUuid().toString());
+            writer.name("trainUuid").value(status.getTrainUuid().toString());
         }
         if (status.getTrainId() != null && !status.getTrainId().isEmpty()) {
-            json.addProperty("trainId", status.getTrainId());
+            writer.name("trainId").value(status.getTrainId());
+        }
+        writeString(writer, "dimension", status.getDimensionId());
+        writer.name("routeId").value(status.getRouteId());
+        writeOptional(writer, "depotId", status.getDepotId());
+        writeString(writer, "transportMode", status.getTransportMode());
+        writeOptional(writer, "currentStationId", status.getCurrentStationId());
+        writeOptional(writer, "nextStationId", status.getNextStationId());
+        writeOptional(writer, "delayMillis", status.getDelayMillis());
+        writeOptional(writer, "railId", status.getRailId());
+        writer.name("segmentCategory").value(status.getSegmentCategory());
+        writer.name("progress").value(status.getProgress());
+        Optional<NodeInfo> node = PayloadWriter.keeps(writer, "node") ? status.getNode() : Optional.<NodeInfo>empty();
+        if (node.isPresent()) {
+            writer.name("node").beginObject();
+            writeNodeFields(writer, node.get());
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+
+    private static void writeBounds(JsonWriter writer, Bounds bounds) throws IOException {
+        writer.beginObject();
+        writer.name("minX").value(bounds.getMinX());
+        writer.name("minY").value(bounds.getMinY());
+        writer.name("minZ").value(bounds.getMinZ());
+        writer.name("maxX").value(bounds.getMaxX());
+        writer.name("maxY").value(bounds.getMaxY());
+        writer.name("maxZ").value(bounds.getMaxZ());
+        writer.endObject();
+    }
+
+    private static void writeOptional(JsonWriter writer, String name, Optional<?> value) throws IOException {
+        if (!value.isPresent()) {
+            return;
         }
-        json.addProperty("dimension", status.getDimensionId());
-        json.addProperty("routeId", status.getRouteId());
-        status.getDepotId().ifPresent(id -> json.addProperty("depotId", id));
-        json.addProperty("transportMode", status.getTransportMode());
-        status.getCurrentStationId().ifPresent(id -> json.addProperty("currentStationId", id));
-        status.getNextStationId().ifPresent(id -> json.addProperty("nextStationId", id));
-        status.getDelayMillis().ifPresent(delay -> json.addProperty("delayMillis", delay));
-        status.getRailId().ifPresent(id -> json.addProperty("railId", id));
-        json.addProperty("segmentCategory", status.getSegmentCategory());
-        json.addProperty("progress", status.getProgress());
-        status.getNode().ifPresent(node -> json.add("node", writeNodeInfo(node)));
-        return json;
-    }
-
-    private static JsonObject writeBounds(Bounds bounds) {
-        JsonObject json = new JsonObject();
-        json.addProperty("minX", bounds.getMinX());
-        json.addProperty("minY", bounds.getMinY());
-        json.addProperty("minZ", bounds.getMinZ());
-        json.addProperty("maxX", bounds.getMaxX());
-        json.addProperty("maxY", bounds.getMaxY());
-        json.addProperty("maxZ", bounds.getMaxZ());
-        return json;
-    }
-
-    private static JsonArray writeLongArray(List<Long> values) {
-        JsonArray array = new JsonArray();
+        Object present = value.get();
+        writer.name(name);
+        if (present instanceof Number) {
+            writer.value((Number) present);
+        } else if (present instanceof Boolean) {
+            writer.value(((Boolean) present).booleanValue());
+        } else {
+            writer.value(present.toString());
+        }
+    }
+
+    /**
+     * Names and labels repeat across rows, so they go through the string table when the request enables it.
+     */
+    private static void writeString(JsonWriter writer, String name, String value) throws IOException {
+        writer.name(name);
+        PayloadWriter.string(writer, value);
+    }
+
+    private static void writeOptionalString(JsonWriter writer, String name, Optional<String> value) throws IOException {
+        if (value.isPresent()) {
+            writeString(writer, name, value.get());
+        }
+    }
+
+    private static void writeLongArray(JsonWriter writer, List<Long> values) throws IOException {
+        writer.beginArray();
         if (values != null) {
             for (Long value : values) {
                 if (value != null) {
-                    array.add(value);
+                    writer.value(value.longValue());
                 }
             }
         }
-        return array;
+        writer.endArray();
     }
 
-    private static JsonArray writeIntArray(List<Integer> values) {
-        JsonArray array = new JsonArray();
+    private static void writeIntArray(JsonWriter writer, List<Integer> values) throws IOException {
+        writer.beginArray();
         if (values != null) {
             for (Integer value : values) {
                 if (value != null) {
-                    array.add(value);
+                    writer.value(value.longValue());
                 }
             }
         }
-        return array;
+        writer.endArray();
     }
 }
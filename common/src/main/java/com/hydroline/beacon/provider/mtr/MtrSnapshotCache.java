@@ -4,43 +4,89 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 /**
  * Simple time-based cache around snapshot collection to avoid hammering the Minecraft server thread.
  */
 public final class MtrSnapshotCache {
+    private static final ThreadLocal<List<MtrDimensionSnapshot>> SCOPED = new ThreadLocal<>();
+
     private final Supplier<List<MtrDimensionSnapshot>> loader;
     private final long ttlMillis;
+    private final AtomicBoolean loading = new AtomicBoolean();
 
     private volatile long expiresAt;
     private volatile List<MtrDimensionSnapshot> cachedSnapshots = Collections.emptyList();
 
+    /**
+     * @param loader returns the current snapshots, or {@code null} if they could not be captured (e.g. the server
+     *               thread did not answer in time); a {@code null} result is not cached
+     */
     public MtrSnapshotCache(Supplier<List<MtrDimensionSnapshot>> loader, long ttlMillis) {
         this.loader = Objects.requireNonNull(loader, "loader");
         this.ttlMillis = ttlMillis;
     }
 
+    /**
+     * Never blocks on another caller's reload: that caller may be waiting for the server thread, which could be
+     * the thread calling here. Concurrent callers get the previous snapshots instead.
+     */
     public List<MtrDimensionSnapshot> get() {
-        long now = System.currentTimeMillis();
+        List<MtrDimensionSnapshot> scoped = SCOPED.get();
+        if (scoped != null) {
+            return scoped;
+        }
         List<MtrDimensionSnapshot> current = cachedSnapshots;
-        if (now < expiresAt && current != null) {
+        if (System.currentTimeMillis() < expiresAt) {
             return current;
         }
-        synchronized (this) {
-            now = System.currentTimeMillis();
-            if (now < expiresAt && cachedSnapshots != null) {
-                return cachedSnapshots;
+        if (!loading.compareAndSet(false, true)) {
+            if (!current.isEmpty()) {
+                return current;
             }
+            // Nothing to serve yet; load for this caller alone rather than wait.
+            List<MtrDimensionSnapshot> loaded = loader.get();
+            return loaded != null ? freeze(loaded) : current;
+        }
+        try {
             List<MtrDimensionSnapshot> loaded = loader.get();
             if (loaded == null) {
-                loaded = Collections.emptyList();
-            } else if (!(loaded instanceof ArrayList)) {
-                loaded = new ArrayList<>(loaded);
+                // The capture failed or timed out; keep the previous state and retry on the next call.
+                return current;
+            }
+            List<MtrDimensionSnapshot> frozen = freeze(loaded);
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                cachedSnapshots = frozen;
+                expiresAt = now + ttlMillis;
+            }
+            return frozen;
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    private static List<MtrDimensionSnapshot> freeze(List<MtrDimensionSnapshot> loaded) {
+        return Collections.unmodifiableList(loaded instanceof ArrayList ? loaded : new ArrayList<>(loaded));
+    }
+
+    /**
+     * Runs {@code task} with every cache on the current thread returning {@code snapshots}, so several queries
+     * issued together resolve the same RailwayData instances. Other threads are unaffected.
+     */
+    public static <T> T withSnapshots(List<MtrDimensionSnapshot> snapshots, Supplier<T> task) {
+        List<MtrDimensionSnapshot> previous = SCOPED.get();
+        SCOPED.set(Objects.requireNonNull(snapshots, "snapshots"));
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                SCOPED.set(previous);
+            } else {
+                SCOPED.remove();
             }
-            cachedSnapshots = Collections.unmodifiableList(loaded);
-            expiresAt = now + ttlMillis;
-            return cachedSnapshots;
         }
     }
 
@@ -1,10 +1,14 @@
 package com.hydroline.beacon.provider.mtr;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.hydroline.beacon.provider.util.PayloadWriter;
+import com.hydroline.beacon.provider.util.TreeJsonWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -26,26 +30,37 @@ public final class MtrStationScheduleBuilder {
             long stationId,
             Long platformId,
             Map<Long, String> platformNames) {
+        StationSchedule schedule = collect(snapshot, stationId, platformId, platformNames);
+        return TreeJsonWriter.build(schedule::write).getAsJsonArray();
+    }
+
+    /**
+     * Gathers the station's non-empty platform schedules without rendering them, so callers can skip empty
+     * stations before anything is written.
+     */
+    public static StationSchedule collect(MtrDimensionSnapshot snapshot,
+            long stationId,
+            Long platformId,
+            Map<Long, String> platformNames) {
         if (snapshot == null) {
-            return new JsonArray();
+            return StationSchedule.EMPTY;
         }
         RailwayData railwayData = snapshot.getRailwayData();
         if (railwayData == null) {
-            return new JsonArray();
+            return StationSchedule.EMPTY;
         }
         DataCache cache = snapshot.refreshAndGetCache();
         if (cache == null) {
-            return new JsonArray();
+            return StationSchedule.EMPTY;
         }
         Map<Long, List<ScheduleEntry>> scheduleMap = new HashMap<>();
         railwayData.getSchedulesForStation(scheduleMap, stationId);
         if (scheduleMap.isEmpty()) {
-            return new JsonArray();
+            return StationSchedule.EMPTY;
         }
-        JsonArray platforms = new JsonArray();
         List<Long> platformIds = new ArrayList<>(scheduleMap.keySet());
         Collections.sort(platformIds);
-        Map<Long, String> safePlatformNames = platformNames == null ? Collections.emptyMap() : platformNames;
+        Map<Long, List<ScheduleEntry>> platforms = new LinkedHashMap<>();
         for (Long id : platformIds) {
             if (platformId != null && !platformId.equals(id)) {
                 continue;
@@ -55,60 +70,95 @@ public final class MtrStationScheduleBuilder {
                 continue;
             }
             entries.sort(null);
-            JsonArray entryArray = new JsonArray();
-            for (ScheduleEntry entry : entries) {
-                entryArray.add(convert(entry, cache));
-            }
-            if (entryArray.size() == 0) {
-                continue;
-            }
-            JsonObject platformJson = new JsonObject();
-            platformJson.addProperty("platformId", id);
-            String platformName = safePlatformNames.get(id);
-            if (platformName != null && !platformName.isEmpty()) {
-                platformJson.addProperty("platformName", platformName);
-            } else {
-                Platform platform = cache.platformIdMap.get(id);
-                if (platform != null && platform.name != null && !platform.name.isEmpty()) {
-                    platformJson.addProperty("platformName", platform.name);
+            platforms.put(id, entries);
+        }
+        return new StationSchedule(cache, platforms, platformNames == null ? Collections.emptyMap() : platformNames);
+    }
+
+    public static final class StationSchedule {
+        private static final StationSchedule EMPTY = new StationSchedule(null,
+            Collections.<Long, List<ScheduleEntry>>emptyMap(), Collections.<Long, String>emptyMap());
+
+        private final DataCache cache;
+        private final Map<Long, List<ScheduleEntry>> platforms;
+        private final Map<Long, String> platformNames;
+
+        private StationSchedule(DataCache cache, Map<Long, List<ScheduleEntry>> platforms, Map<Long, String> platformNames) {
+            this.cache = cache;
+            this.platforms = platforms;
+            this.platformNames = platformNames;
+        }
+
+        public boolean isEmpty() {
+            return platforms.isEmpty();
+        }
+
+        /**
+         * Writes the platforms array.
+         */
+        public void write(JsonWriter writer) throws IOException {
+            writer.beginArray();
+            for (Map.Entry<Long, List<ScheduleEntry>> platform : platforms.entrySet()) {
+                Long id = platform.getKey();
+                writer.beginObject();
+                writer.name("platformId").value(id.longValue());
+                String platformName = platformNames.get(id);
+                if (platformName == null || platformName.isEmpty()) {
+                    Platform info = cache.platformIdMap.get(id);
+                    platformName = info != null ? info.name : null;
+                }
+                if (platformName != null && !platformName.isEmpty()) {
+                    writeString(writer, "platformName", platformName);
+                }
+                writer.name("entries").beginArray();
+                for (ScheduleEntry entry : platform.getValue()) {
+                    writeEntry(writer, entry, cache);
                 }
+                writer.endArray();
+                writer.endObject();
             }
-            platformJson.add("entries", entryArray);
-            platforms.add(platformJson);
+            writer.endArray();
         }
-        return platforms;
     }
 
-    private static JsonObject convert(ScheduleEntry entry, DataCache cache) {
-        JsonObject json = new JsonObject();
-        json.addProperty("routeId", entry.routeId);
+    private static void writeEntry(JsonWriter writer, ScheduleEntry entry, DataCache cache) throws IOException {
+        writer.beginObject();
+        writer.name("routeId").value(entry.routeId);
         Route route = cache.routeIdMap.get(entry.routeId);
         String routeName = route != null ? safeName(route.name) : "";
         if (!routeName.isEmpty()) {
-            json.addProperty("routeName", routeName);
-            json.addProperty("name", routeName);
+            writeString(writer, "routeName", routeName);
+            writeString(writer, "name", routeName);
         }
         String destination = resolveDestination(route, entry, cache);
         if (destination != null && !destination.isEmpty()) {
-            json.addProperty("destination", destination);
+            writeString(writer, "destination", destination);
         }
         String circular = describeCircularState(route != null ? route.circularState : null);
         if (circular != null) {
-            json.addProperty("circular", circular);
+            writeString(writer, "circular", circular);
         }
         String routeLabel = route != null && route.isLightRailRoute && route.lightRailRouteNumber != null
             ? route.lightRailRouteNumber
             : "";
         if (!routeLabel.isEmpty()) {
-            json.addProperty("route", routeLabel);
+            writeString(writer, "route", routeLabel);
         }
         if (route != null) {
-            json.addProperty("color", route.color);
+            writer.name("color").value(route.color);
         }
-        json.addProperty("arrivalMillis", entry.arrivalMillis);
-        json.addProperty("trainCars", entry.trainCars);
-        json.addProperty("currentStationIndex", entry.currentStationIndex);
-        return json;
+        writer.name("arrivalMillis").value(entry.arrivalMillis);
+        writer.name("trainCars").value(entry.trainCars);
+        writer.name("currentStationIndex").value(entry.currentStationIndex);
+        writer.endObject();
+    }
+
+    /**
+     * Names and labels repeat across entries, so they go through the string table when the request enables it.
+     */
+    private static void writeString(JsonWriter writer, String name, String value) throws IOException {
+        writer.name(name);
+        PayloadWriter.string(writer, value);
     }
 
     private static String resolveDestination(Route route, ScheduleEntry entry, DataCache cache) {
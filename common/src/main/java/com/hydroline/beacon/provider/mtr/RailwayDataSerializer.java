@@ -1,6 +1,7 @@
 package com.hydroline.beacon.provider.mtr;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.Collections;
@@ -13,6 +14,7 @@ import mtr.data.SignalBlocks;
 import mtr.data.SerializedDataBase;
 import org.msgpack.core.MessageBufferPacker;
 import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,15 +40,7 @@ public final class RailwayDataSerializer {
             return new byte[0];
         }
         try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
-            packer.packMapHeader(DATASET_COUNT);
-            RailwayData.writeMessagePackDataset(packer, safe(data.stations), "stations");
-            RailwayData.writeMessagePackDataset(packer, safe(data.platforms), "platforms");
-            RailwayData.writeMessagePackDataset(packer, safe(data.routes), "routes");
-            RailwayData.writeMessagePackDataset(packer, safe(data.depots), "depots");
-            RailwayData.writeMessagePackDataset(packer, safe(data.sidings), "sidings");
-            RailwayData.writeMessagePackDataset(packer, safe(data.lifts), "lifts");
-            RailwayData.writeMessagePackDataset(packer, safe(signalBlocks(data)), "signalBlocks");
-            RailwayData.writeMessagePackDataset(packer, safe(flattenRails(data)), "rails");
+            pack(packer, data);
             packer.flush();
             return packer.toByteArray();
         } catch (IOException ex) {
@@ -55,6 +49,34 @@ public final class RailwayDataSerializer {
         }
     }
 
+    /**
+     * Streams the same MessagePack structure as {@link #serialize(MtrDimensionSnapshot)} into {@code out}
+     * without buffering the whole dataset. The stream is flushed but not closed.
+     *
+     * @return {@code false} if the snapshot has no railway data.
+     */
+    public static boolean serialize(MtrDimensionSnapshot snapshot, OutputStream out) throws IOException {
+        if (snapshot == null || snapshot.getRailwayData() == null) {
+            return false;
+        }
+        MessagePacker packer = MessagePack.newDefaultPacker(out);
+        pack(packer, snapshot.getRailwayData());
+        packer.flush();
+        return true;
+    }
+
+    private static void pack(MessagePacker packer, RailwayData data) throws IOException {
+        packer.packMapHeader(DATASET_COUNT);
+        RailwayData.writeMessagePackDataset(packer, safe(data.stations), "stations");
+        RailwayData.writeMessagePackDataset(packer, safe(data.platforms), "platforms");
+        RailwayData.writeMessagePackDataset(packer, safe(data.routes), "routes");
+        RailwayData.writeMessagePackDataset(packer, safe(data.depots), "depots");
+        RailwayData.writeMessagePackDataset(packer, safe(data.sidings), "sidings");
+        RailwayData.writeMessagePackDataset(packer, safe(data.lifts), "lifts");
+        RailwayData.writeMessagePackDataset(packer, safe(signalBlocks(data)), "signalBlocks");
+        RailwayData.writeMessagePackDataset(packer, safe(flattenRails(data)), "rails");
+    }
+
     private static <T extends SerializedDataBase> Collection<T> safe(Collection<T> source) {
         return source == null ? Collections.emptyList() : source;
     }
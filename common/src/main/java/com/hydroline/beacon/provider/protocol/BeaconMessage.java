@@ -1,6 +1,7 @@
 package com.hydroline.beacon.provider.protocol;
 
 import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.util.FieldProjection;
 
 /**
  * Represents a JSON payload coming from Bukkit via the shared plugin messaging channel.
@@ -10,12 +11,21 @@ public final class BeaconMessage {
     private final String requestId;
     private final String action;
     private final JsonObject payload;
+    private final FieldProjection projection;
+    private final boolean stringTable;
 
     public BeaconMessage(int protocolVersion, String requestId, String action, JsonObject payload) {
+        this(protocolVersion, requestId, action, payload, FieldProjection.ALL, false);
+    }
+
+    private BeaconMessage(int protocolVersion, String requestId, String action, JsonObject payload,
+                          FieldProjection projection, boolean stringTable) {
         this.protocolVersion = protocolVersion;
         this.requestId = requestId;
         this.action = action;
         this.payload = payload;
+        this.projection = projection;
+        this.stringTable = stringTable;
     }
 
     public int getProtocolVersion() {
@@ -33,4 +43,22 @@ public final class BeaconMessage {
     public JsonObject getPayload() {
         return payload;
     }
+
+    /**
+     * @return the parsed {@code fields} / {@code exclude} parameters; set by the dispatcher before handlers run.
+     */
+    public FieldProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * @return whether the request asked for {@code stringTable} encoding; set by the dispatcher like the projection.
+     */
+    public boolean usesStringTable() {
+        return stringTable;
+    }
+
+    public BeaconMessage withPayloadOptions(FieldProjection projection, boolean stringTable) {
+        return new BeaconMessage(protocolVersion, requestId, action, payload, projection, stringTable);
+    }
 }
@@ -1,6 +1,9 @@
 package com.hydroline.beacon.provider.protocol;
 
 import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -11,12 +14,18 @@ public final class BeaconResponse {
     private final ResultCode result;
     private final String message;
     private final JsonObject payload;
+    private final EncodedPayload encodedPayload;
+    private final List<byte[]> attachments;
 
     private BeaconResponse(Builder builder) {
         this.requestId = builder.requestId;
         this.result = builder.result;
         this.message = builder.message;
         this.payload = builder.payload;
+        this.encodedPayload = builder.encodedPayload;
+        this.attachments = builder.attachments.isEmpty()
+            ? Collections.<byte[]>emptyList()
+            : Collections.unmodifiableList(new ArrayList<byte[]>(builder.attachments));
     }
 
     public String getRequestId() {
@@ -31,16 +40,38 @@ public final class BeaconResponse {
         return message;
     }
 
+    /**
+     * For pre-encoded responses this parses a fresh copy on every call; serializers should prefer
+     * {@link #getEncodedPayload()}.
+     */
     public JsonObject getPayload() {
-        return payload;
+        return encodedPayload != null ? encodedPayload.decode() : payload;
+    }
+
+    /**
+     * @return the payload as ready-made JSON bytes, or {@code null} if the payload is held as a tree.
+     */
+    public EncodedPayload getEncodedPayload() {
+        return encodedPayload;
+    }
+
+    /**
+     * Raw binary sections sent next to the payload, which refers to them by index. Binary-capable codecs write
+     * them as-is; JSON transports fall back to base64 strings.
+     */
+    public List<byte[]> getAttachments() {
+        return attachments;
     }
 
     public Builder toBuilder() {
-        return new Builder()
+        Builder builder = new Builder()
             .requestId(requestId)
             .result(result)
-            .message(message)
-            .payload(payload);
+            .message(message);
+        builder.payload = payload;
+        builder.encodedPayload = encodedPayload;
+        builder.attachments.addAll(attachments);
+        return builder;
     }
 
     public static Builder builder(String requestId) {
@@ -52,6 +83,8 @@ public final class BeaconResponse {
         private ResultCode result = ResultCode.OK;
         private String message = "";
         private JsonObject payload = new JsonObject();
+        private EncodedPayload encodedPayload;
+        private final List<byte[]> attachments = new ArrayList<byte[]>();
 
         public Builder requestId(String requestId) {
             this.requestId = Objects.requireNonNull(requestId, "requestId");
@@ -70,6 +103,21 @@ public final class BeaconResponse {
 
         public Builder payload(JsonObject payload) {
             this.payload = payload == null ? new JsonObject() : payload;
+            this.encodedPayload = null;
+            return this;
+        }
+
+        public Builder encodedPayload(EncodedPayload encodedPayload) {
+            this.encodedPayload = Objects.requireNonNull(encodedPayload, "encodedPayload");
+            this.payload = null;
+            return this;
+        }
+
+        /**
+         * Appends an attachment; its index is the number of attachments added before it.
+         */
+        public Builder attachment(byte[] data) {
+            this.attachments.add(Objects.requireNonNull(data, "data"));
             return this;
         }
 
@@ -8,7 +8,8 @@ public final class ChannelConstants {
     public static final String CHANNEL_NAME = CHANNEL_NAMESPACE + ":beacon_provider";
     public static final int PROTOCOL_VERSION = 1;
     public static final String DEFAULT_ACTION = "beacon:invoke";
-    public static final int MAX_PAYLOAD_BYTES = 2 * 1024; // Plugin channel limit is 32KB, keep JSON small.
+    /** Largest single plugin message either side sends; longer messages are split into fragments. */
+    public static final int MAX_PACKET_BYTES = 30 * 1024; // Serverbound custom payloads are capped at 32767 bytes.
 
     private ChannelConstants() {
     }
@@ -0,0 +1,137 @@
+package com.hydroline.beacon.provider.protocol;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.hydroline.beacon.provider.util.FieldProjection;
+import com.hydroline.beacon.provider.util.JsonBody;
+import com.hydroline.beacon.provider.util.PayloadWriter;
+import com.hydroline.beacon.provider.util.VersionTag;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A response payload that has already been rendered to UTF-8 JSON. Serializers copy the bytes into the
+ * envelope verbatim, so a cached payload can be sent any number of times without being rebuilt. The MessagePack
+ * codec reads the same bytes through {@link #reader()} instead of parsing them into a tree.
+ */
+public final class EncodedPayload {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final byte[] json;
+    private final String version;
+
+    private EncodedPayload(byte[] json, String version) {
+        this.json = json;
+        this.version = version;
+    }
+
+    public static EncodedPayload encode(JsonObject payload) {
+        Objects.requireNonNull(payload, "payload");
+        JsonElement version = payload.get("version");
+        return new EncodedPayload(GSON.toJson(payload).getBytes(StandardCharsets.UTF_8),
+            version != null && version.isJsonPrimitive() ? version.getAsString() : null);
+    }
+
+    /**
+     * Renders a payload straight from a streaming writer, without building a tree first. The writer behaves like
+     * Gson's own serialization of a tree: {@code null} members are dropped and non-finite numbers are allowed.
+     *
+     * @param version the {@code version} the payload carries, if any
+     * @param body must write exactly one JSON object
+     */
+    public static EncodedPayload write(String version, JsonBody body) {
+        return write(version, FieldProjection.ALL, false, body);
+    }
+
+    /**
+     * Like {@link #write(String, JsonBody)}, applying the request's projection and string table options through a
+     * {@link PayloadWriter}.
+     */
+    public static EncodedPayload write(String version, BeaconMessage request, JsonBody body) {
+        return write(version, request.getProjection(), request.usesStringTable(), body);
+    }
+
+    // setStrictness replaces setLenient only from Gson 2.11; older loaders ship Gson 2.8 at runtime.
+    @SuppressWarnings("deprecation")
+    private static EncodedPayload write(String version, FieldProjection projection, boolean stringTable, JsonBody body) {
+        Objects.requireNonNull(body, "body");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.setSerializeNulls(false);
+            writer.setLenient(true);
+            body.write(PayloadWriter.wrap(writer, projection, stringTable));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to encode payload", ex);
+        }
+        return new EncodedPayload(out.toByteArray(), version);
+    }
+
+    /**
+     * @return this payload if it already carries a {@code version}, otherwise a copy whose {@code version} is a
+     * hash of these bytes, inserted as the first member.
+     */
+    public EncodedPayload withDerivedVersion() {
+        if (version != null) {
+            return this;
+        }
+        String derived = VersionTag.start().add(json).finish();
+        int body = 1;
+        while (body < json.length && Character.isWhitespace(json[body])) {
+            body++;
+        }
+        boolean empty = body < json.length && json[body] == '}';
+        byte[] member = ("\"version\":" + GSON.toJson(derived) + (empty ? "" : ",")).getBytes(StandardCharsets.UTF_8);
+        byte[] versioned = new byte[json.length + member.length];
+        versioned[0] = json[0];
+        System.arraycopy(member, 0, versioned, 1, member.length);
+        System.arraycopy(json, 1, versioned, 1 + member.length, json.length - 1);
+        return new EncodedPayload(versioned, derived);
+    }
+
+    /**
+     * @return the payload's top-level {@code version}, or {@code null} if it has none.
+     */
+    public String version() {
+        return version;
+    }
+
+    public int sizeBytes() {
+        return json.length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(json);
+    }
+
+    public String asString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a streaming reader over the bytes, for serializers that transcode the payload without building a tree.
+     * The reader is lenient so that the non-finite numbers {@link #write} allows can be read back.
+     */
+    @SuppressWarnings("deprecation")
+    public JsonReader reader() {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /**
+     * Parses the bytes back into a fresh tree; callers may modify the result.
+     */
+    public JsonObject decode() {
+        return GSON.fromJson(asString(), JsonObject.class);
+    }
+}
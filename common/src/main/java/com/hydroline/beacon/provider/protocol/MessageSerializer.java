@@ -2,9 +2,20 @@ package com.hydroline.beacon.provider.protocol;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Objects;
 
 /**
@@ -17,7 +28,13 @@ public final class MessageSerializer {
     }
 
     public static byte[] serialize(BeaconResponse response) {
-        return GSON.toJson(serializeToJson(response)).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            write(response, writer, out);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to serialize response", ex);
+        }
+        return out.toByteArray();
     }
 
     public static BeaconMessage deserialize(byte[] data) throws JsonParseException {
@@ -42,6 +59,75 @@ public final class MessageSerializer {
         return new BeaconMessage(protocolVersion, requestId, action, payload);
     }
 
+    /**
+     * Streams a request envelope straight from {@code reader} without building an intermediate tree for the
+     * envelope itself. The result is not validated; call {@link #validate(BeaconMessage)} before handling it.
+     */
+    public static BeaconMessage read(JsonReader reader) throws IOException {
+        Objects.requireNonNull(reader, "reader");
+        int protocolVersion = 0;
+        String requestId = null;
+        String action = ChannelConstants.DEFAULT_ACTION;
+        JsonObject payload = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "protocolVersion":
+                    protocolVersion = reader.nextInt();
+                    break;
+                case "requestId":
+                    requestId = reader.nextString();
+                    break;
+                case "action":
+                    action = reader.nextString();
+                    break;
+                case "payload":
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        payload = GSON.fromJson(reader, JsonObject.class);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return new BeaconMessage(protocolVersion, requestId, action, payload != null ? payload : new JsonObject());
+    }
+
+    /**
+     * Tree-based counterpart of {@link #read(JsonReader)}; also unvalidated.
+     */
+    public static BeaconMessage read(JsonObject json) {
+        Objects.requireNonNull(json, "json");
+        int protocolVersion = json.has("protocolVersion") && !json.get("protocolVersion").isJsonNull()
+            ? json.get("protocolVersion").getAsInt() : 0;
+        String requestId = json.has("requestId") && !json.get("requestId").isJsonNull()
+            ? json.get("requestId").getAsString() : null;
+        String action = json.has("action") && !json.get("action").isJsonNull()
+            ? json.get("action").getAsString() : ChannelConstants.DEFAULT_ACTION;
+        JsonObject payload = json.has("payload") && json.get("payload").isJsonObject()
+            ? json.getAsJsonObject("payload") : new JsonObject();
+        return new BeaconMessage(protocolVersion, requestId, action, payload);
+    }
+
+    public static void validate(BeaconMessage message) throws JsonParseException {
+        Objects.requireNonNull(message, "message");
+        if (message.getRequestId() == null) {
+            throw new JsonParseException("Missing requestId");
+        }
+        if (!RequestId.isValid(message.getRequestId())) {
+            throw new JsonParseException("requestId must be " + RequestId.LENGTH + " [0-9a-z] chars");
+        }
+    }
+
     public static JsonObject serializeToJson(BeaconResponse response) {
         Objects.requireNonNull(response, "response");
         JsonObject json = new JsonObject();
@@ -49,9 +135,93 @@ public final class MessageSerializer {
         json.addProperty("requestId", response.getRequestId());
         json.addProperty("result", response.getResult().name());
         json.addProperty("message", response.getMessage());
-        if (response.getPayload() != null) {
-            json.add("payload", response.getPayload());
+        JsonObject payload = response.getPayload();
+        if (payload != null) {
+            json.add("payload", payload);
+        }
+        if (!response.getAttachments().isEmpty()) {
+            JsonArray attachments = new JsonArray();
+            for (byte[] attachment : response.getAttachments()) {
+                attachments.add(new JsonPrimitive(Base64.getEncoder().encodeToString(attachment)));
+            }
+            json.add("attachments", attachments);
         }
         return json;
     }
+
+    /**
+     * Streams the same structure as {@link #serializeToJson(BeaconResponse)} into {@code writer}
+     * without materializing the envelope as a tree.
+     */
+    public static void write(BeaconResponse response, JsonWriter writer) throws IOException {
+        write(response, writer, null);
+    }
+
+    /**
+     * Like {@link #write(BeaconResponse, JsonWriter)}, but a pre-encoded payload is copied straight into
+     * {@code rawOut}, the stream {@code writer} ultimately writes to. With {@code rawOut == null} the encoded
+     * payload goes through the writer as a string instead.
+     */
+    public static void write(BeaconResponse response, JsonWriter writer, OutputStream rawOut) throws IOException {
+        Objects.requireNonNull(response, "response");
+        writer.beginObject();
+        writer.name("protocolVersion").value(ChannelConstants.PROTOCOL_VERSION);
+        writer.name("requestId").value(response.getRequestId());
+        writer.name("result").value(response.getResult().name());
+        if (response.getMessage() != null) {
+            writer.name("message").value(response.getMessage());
+        }
+        EncodedPayload encoded = response.getEncodedPayload();
+        if (encoded != null) {
+            writer.name("payload");
+            if (rawOut == null) {
+                writer.jsonValue(encoded.asString());
+            } else {
+                // Emits the separator and moves the writer past the value, then the bytes go in underneath it.
+                writer.jsonValue("");
+                writer.flush();
+                encoded.writeTo(rawOut);
+            }
+        } else if (response.getPayload() != null) {
+            writer.name("payload");
+            GSON.toJson(response.getPayload(), writer);
+        }
+        if (!response.getAttachments().isEmpty()) {
+            writer.name("attachments").beginArray();
+            for (byte[] attachment : response.getAttachments()) {
+                writeBase64(attachment, writer, rawOut);
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+
+    /**
+     * JSON has no binary type, so attachments become base64 strings. With {@code rawOut} the encoder writes
+     * straight into the output instead of building the string first.
+     */
+    private static void writeBase64(byte[] data, JsonWriter writer, OutputStream rawOut) throws IOException {
+        if (rawOut == null) {
+            writer.value(Base64.getEncoder().encodeToString(data));
+            return;
+        }
+        writer.jsonValue("");
+        writer.flush();
+        rawOut.write('"');
+        OutputStream encoder = Base64.getEncoder().wrap(new FilterOutputStream(rawOut) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+        encoder.write(data);
+        // Writes the final padding; the wrapper keeps rawOut open.
+        encoder.close();
+        rawOut.write('"');
+    }
 }
@@ -9,5 +9,7 @@ public enum ResultCode {
     INVALID_ACTION,
     INVALID_PAYLOAD,
     NOT_READY,
-    ERROR
+    ERROR,
+    /** The client's {@code ifNoneMatch} equals the current {@code version}; the payload only carries the version. */
+    NOT_MODIFIED
 }
@@ -0,0 +1,187 @@
+package com.hydroline.beacon.provider.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.create.CreateQueryRegistry;
+import com.hydroline.beacon.provider.create.CreateRealtimeSnapshot;
+import com.hydroline.beacon.provider.mtr.MtrDimensionSnapshot;
+import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
+import com.hydroline.beacon.provider.mtr.MtrQueryRegistry;
+import com.hydroline.beacon.provider.mtr.MtrSnapshotCache;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.ResultCode;
+import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.util.DispatchExecutor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs several read-only actions in one round-trip. The MTR snapshot list and the Create realtime snapshot are
+ * captured once and scoped to the batch's items, which run in parallel on a bounded pool; each item carries its
+ * own {@link ResultCode}, {@code BUSY} when the pool is saturated.
+ * <p>
+ * Items resolve the same RailwayData instances and Create realtime snapshot, but RailwayData is live: trains
+ * keep moving while items run, so MTR train positions are not a point-in-time view. Station schedules are built
+ * on the schedule queue's thread, outside the scope.
+ */
+public final class BatchActionHandler implements BeaconActionHandler {
+    public static final String ACTION = "beacon:batch";
+    static final int MAX_ITEMS = 32;
+
+    private static final int THREADS = Math.max(1, Integer.getInteger("beacon.batchThreads",
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()))));
+    private static final int QUEUE_CAPACITY = Math.max(1, Integer.getInteger("beacon.batchQueueCapacity", 64));
+
+    private final BeaconProviderService service;
+    private DispatchExecutor executor;
+
+    public BatchActionHandler(BeaconProviderService service) {
+        this.service = Objects.requireNonNull(service, "service");
+    }
+
+    @Override
+    public String action() {
+        return ACTION;
+    }
+
+    @Override
+    public BeaconResponse handle(BeaconMessage message, TransportContext context) {
+        JsonObject payload = message.getPayload();
+        if (payload == null || !payload.has("requests") || !payload.get("requests").isJsonArray()) {
+            return invalid(message.getRequestId(), "requests array is required");
+        }
+        JsonArray requests = payload.getAsJsonArray("requests");
+        if (requests.size() > MAX_ITEMS) {
+            return invalid(message.getRequestId(), "At most " + MAX_ITEMS + " requests per batch");
+        }
+        List<BeaconMessage> items = new ArrayList<>(requests.size());
+        for (JsonElement element : requests) {
+            if (!element.isJsonObject() || !element.getAsJsonObject().has("action")) {
+                return invalid(message.getRequestId(), "Each batch item needs an action");
+            }
+            JsonObject item = element.getAsJsonObject();
+            String action = item.get("action").getAsString();
+            if (ACTION.equals(action)) {
+                return invalid(message.getRequestId(), "Nested batches are not supported");
+            }
+            JsonObject itemPayload = item.has("payload") && item.get("payload").isJsonObject()
+                ? item.getAsJsonObject("payload")
+                : new JsonObject();
+            items.add(new BeaconMessage(message.getProtocolVersion(), message.getRequestId(), action, itemPayload));
+        }
+
+        // Sub-requests never stream; they all report back through the combined response.
+        TransportContext itemContext = new TransportContext(context.getOriginId(), context.getKind(), context.getReceivedAt());
+        MtrQueryGateway mtr = MtrQueryRegistry.get();
+        List<MtrDimensionSnapshot> snapshots = mtr.isReady() ? mtr.fetchSnapshots() : Collections.emptyList();
+        CreateRealtimeSnapshot realtime = CreateQueryRegistry.get().isReady()
+            ? CreateQueryRegistry.fetchRealtimeSnapshot()
+            : null;
+        List<CompletableFuture<BeaconResponse>> futures = new ArrayList<>(items.size());
+        for (BeaconMessage item : items) {
+            CompletableFuture<BeaconResponse> future = new CompletableFuture<>();
+            boolean accepted = executor().trySubmit(() -> {
+                try {
+                    future.complete(handleScoped(item, itemContext, snapshots, realtime));
+                } catch (RuntimeException | Error ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+            if (!accepted) {
+                future.complete(BeaconResponse.builder(item.getRequestId())
+                    .result(ResultCode.BUSY)
+                    .message("Batch queue is full")
+                    .build());
+            }
+            futures.add(future);
+        }
+        List<BeaconResponse> responses = new ArrayList<>(items.size());
+        for (int i = 0; i < futures.size(); i++) {
+            responses.add(join(futures.get(i), items.get(i)));
+        }
+
+        BeaconResponse.Builder combined = BeaconResponse.builder(message.getRequestId()).result(ResultCode.OK);
+        int attachmentCount = 0;
+        JsonArray results = new JsonArray();
+        for (int i = 0; i < items.size(); i++) {
+            JsonObject request = requests.get(i).getAsJsonObject();
+            BeaconResponse response = responses.get(i);
+            JsonObject result = new JsonObject();
+            if (request.has("id")) {
+                result.add("id", request.get("id"));
+            }
+            result.addProperty("action", items.get(i).getAction());
+            result.addProperty("result", response.getResult().name());
+            if (response.getMessage() != null) {
+                result.addProperty("message", response.getMessage());
+            }
+            JsonObject itemPayload = response.getPayload();
+            if (itemPayload != null) {
+                result.add("payload", itemPayload);
+            }
+            if (!response.getAttachments().isEmpty()) {
+                // The item's own attachment indexes are relative to this offset in the combined list.
+                result.addProperty("attachmentOffset", attachmentCount);
+                for (byte[] attachment : response.getAttachments()) {
+                    combined.attachment(attachment);
+                    attachmentCount++;
+                }
+            }
+            results.add(result);
+        }
+        JsonObject responsePayload = new JsonObject();
+        responsePayload.add("results", results);
+        return combined.payload(responsePayload).build();
+    }
+
+    /**
+     * Stops the batch pool; the next batch starts a new one.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private synchronized DispatchExecutor executor() {
+        if (executor == null) {
+            executor = new DispatchExecutor("beacon-batch", THREADS, QUEUE_CAPACITY);
+        }
+        return executor;
+    }
+
+    private BeaconResponse handleScoped(BeaconMessage item,
+            TransportContext context,
+            List<MtrDimensionSnapshot> snapshots,
+            CreateRealtimeSnapshot realtime) {
+        Supplier<BeaconResponse> task = () -> CreateQueryRegistry.withRealtime(realtime, () -> service.handle(item, context));
+        // An empty list would pin "not ready"; let items load the snapshots themselves instead.
+        return snapshots.isEmpty() ? task.get() : MtrSnapshotCache.withSnapshots(snapshots, task);
+    }
+
+    private static BeaconResponse join(CompletableFuture<BeaconResponse> future, BeaconMessage item) {
+        try {
+            return future.join();
+        } catch (RuntimeException ex) {
+            return BeaconResponse.builder(item.getRequestId())
+                .result(ResultCode.ERROR)
+                .message("Handler error: " + ex.getMessage())
+                .build();
+        }
+    }
+
+    private static BeaconResponse invalid(String requestId, String reason) {
+        return BeaconResponse.builder(requestId)
+            .result(ResultCode.INVALID_PAYLOAD)
+            .message(reason)
+            .build();
+    }
+}
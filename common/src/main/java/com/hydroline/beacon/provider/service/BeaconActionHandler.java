@@ -11,4 +11,35 @@ public interface BeaconActionHandler {
     String action();
 
     BeaconResponse handle(BeaconMessage message, TransportContext context);
+
+    /**
+     * Whether identical concurrent requests (same action and payload) may share one execution. Handlers whose
+     * response depends on the caller or on arrival time should return {@code false}.
+     */
+    default boolean coalescable() {
+        return true;
+    }
+
+    /**
+     * Counter that changes whenever the data behind this action changes. A non-negative value lets the service
+     * cache the encoded {@code OK} response per payload until the counter moves; negative disables caching.
+     */
+    default long dataGeneration() {
+        return -1L;
+    }
+
+    /**
+     * Whether this handler writes to {@link TransportContext#getResponseStream()} when one is present. Such
+     * requests skip the response cache and singleflight, because their chunks are already on the wire; the
+     * handler applies {@code ifNoneMatch} itself.
+     */
+    default boolean streamsResponses() {
+        return false;
+    }
+
+    /**
+     * Called from {@link BeaconProviderService#close()}; handlers that own threads release them here.
+     */
+    default void close() {
+    }
 }
@@ -9,4 +9,11 @@ import com.hydroline.beacon.provider.transport.TransportContext;
  */
 public interface BeaconProviderService {
     BeaconResponse handle(BeaconMessage request, TransportContext context);
+
+    /**
+     * Releases worker threads held by the service; loaders call this when the server stops. The service stays
+     * usable and starts them again on the next request, so an integrated server can be reopened.
+     */
+    default void close() {
+    }
 }
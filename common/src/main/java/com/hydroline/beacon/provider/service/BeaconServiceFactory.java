@@ -17,7 +17,7 @@ public final class BeaconServiceFactory {
     }
 
     public static DefaultBeaconProviderService createDefault() {
-        return new DefaultBeaconProviderService(Arrays.asList(
+        DefaultBeaconProviderService service = new DefaultBeaconProviderService(Arrays.asList(
             new PingActionHandler(),
             new MtrGetRailwaySnapshotActionHandler(),
             new MtrGetRouteTrainsActionHandler(),
@@ -27,5 +27,6 @@ public final class BeaconServiceFactory {
             new CreateGetNetworkActionHandler(),
             new CreateGetRealtimeActionHandler()
         ));
+        return service.register(new BatchActionHandler(service));
     }
 }
@@ -0,0 +1,81 @@
+package com.hydroline.beacon.provider.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.ResultCode;
+import java.util.Map;
+
+/**
+ * {@code ifNoneMatch}/{@code version} handling shared by cacheable actions. Handlers that can derive a version
+ * cheaply check it before building the payload; for every other cacheable action the service derives the
+ * {@code version} from the encoded payload bytes and compares after the fact, which still saves the transfer.
+ */
+public final class ConditionalRequests {
+    public static final String IF_NONE_MATCH = "ifNoneMatch";
+    public static final String VERSION = "version";
+
+    private ConditionalRequests() {
+    }
+
+    public static boolean hasTag(BeaconMessage message) {
+        JsonObject payload = message.getPayload();
+        return payload != null && payload.has(IF_NONE_MATCH);
+    }
+
+    public static boolean matches(BeaconMessage message, String version) {
+        if (version == null) {
+            return false;
+        }
+        JsonObject payload = message.getPayload();
+        if (payload == null || !payload.has(IF_NONE_MATCH)) {
+            return false;
+        }
+        JsonElement tag = payload.get(IF_NONE_MATCH);
+        return tag.isJsonPrimitive() && version.equals(tag.getAsString());
+    }
+
+    /**
+     * @return a {@code NOT_MODIFIED} response with an empty payload; the client already holds the version it sent.
+     */
+    public static BeaconResponse notModified(String requestId) {
+        return BeaconResponse.builder(requestId)
+            .result(ResultCode.NOT_MODIFIED)
+            .payload(new JsonObject())
+            .build();
+    }
+
+    /**
+     * Turns an {@code OK} response into {@code NOT_MODIFIED} when its {@code version} matches the request's tag.
+     */
+    static BeaconResponse apply(BeaconMessage request, BeaconResponse response) {
+        if (response.getResult() != ResultCode.OK) {
+            return response;
+        }
+        String tag;
+        if (response.getEncodedPayload() != null) {
+            tag = response.getEncodedPayload().version();
+        } else {
+            JsonElement version = response.getPayload() != null ? response.getPayload().get(VERSION) : null;
+            tag = version != null && version.isJsonPrimitive() ? version.getAsString() : null;
+        }
+        return matches(request, tag) ? notModified(response.getRequestId()) : response;
+    }
+
+    /**
+     * @return {@code payload} without its {@code ifNoneMatch}, so conditional and plain requests share cache keys.
+     */
+    static JsonObject withoutTag(JsonObject payload) {
+        if (payload == null || !payload.has(IF_NONE_MATCH)) {
+            return payload;
+        }
+        JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : payload.entrySet()) {
+            if (!IF_NONE_MATCH.equals(entry.getKey())) {
+                copy.add(entry.getKey(), entry.getValue());
+            }
+        }
+        return copy;
+    }
+}
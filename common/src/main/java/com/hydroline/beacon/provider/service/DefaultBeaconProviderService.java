@@ -1,20 +1,32 @@
 package com.hydroline.beacon.provider.service;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
 import com.hydroline.beacon.provider.protocol.ChannelConstants;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
 import com.hydroline.beacon.provider.protocol.ResultCode;
 import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.util.CanonicalJson;
+import com.hydroline.beacon.provider.util.FieldProjection;
+import com.hydroline.beacon.provider.util.PayloadWriter;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Thread-safe registry of beacon actions with sensible fallbacks.
  */
 public final class DefaultBeaconProviderService implements BeaconProviderService {
+    private static final long RESPONSE_CACHE_BYTES = Long.getLong("beacon.responseCacheBytes", 32L * 1024 * 1024);
+
     private final Map<String, BeaconActionHandler> handlers = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<BeaconResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_BYTES);
 
     public DefaultBeaconProviderService(Collection<BeaconActionHandler> initialHandlers) {
         if (initialHandlers != null) {
@@ -32,6 +44,11 @@ public final class DefaultBeaconProviderService implements BeaconProviderService
         return this;
     }
 
+    @Override
+    public void close() {
+        handlers.values().forEach(BeaconActionHandler::close);
+    }
+
     @Override
     public BeaconResponse handle(BeaconMessage request, TransportContext context) {
         if (request.getProtocolVersion() != ChannelConstants.PROTOCOL_VERSION) {
@@ -49,8 +66,76 @@ public final class DefaultBeaconProviderService implements BeaconProviderService
                 .build();
         }
 
+        FieldProjection projection;
+        boolean stringTable;
+        try {
+            projection = FieldProjection.parse(request.getPayload());
+            stringTable = parseStringTable(request.getPayload());
+        } catch (JsonParseException ex) {
+            return BeaconResponse.builder(request.getRequestId())
+                .result(ResultCode.INVALID_PAYLOAD)
+                .message(ex.getMessage())
+                .build();
+        }
+        request = request.withPayloadOptions(projection, stringTable);
+
+        if (context.getResponseStream() != null && handler.streamsResponses()) {
+            // Chunks are already on the wire by the time the version is known; leave the final response intact.
+            return invoke(handler, request, context);
+        }
+        long generation = handler.dataGeneration();
+        String cacheKey = null;
+        if (generation >= 0L && responseCache.isEnabled()) {
+            cacheKey = generation + "#" + CanonicalJson.requestKey(request.getAction(),
+                ConditionalRequests.withoutTag(request.getPayload()));
+            EncodedPayload cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                return ConditionalRequests.apply(request, BeaconResponse.builder(request.getRequestId())
+                    .encodedPayload(cached)
+                    .build());
+            }
+        }
+        BeaconResponse response = handler.coalescable()
+            ? handleCoalesced(handler, request, context)
+            : invoke(handler, request, context);
+        // Attachments are not part of the encoded payload, so such responses are neither versioned nor cached.
+        if (generation >= 0L && response.getResult() == ResultCode.OK && response.getAttachments().isEmpty()) {
+            EncodedPayload encoded = response.getEncodedPayload();
+            encoded = (encoded != null ? encoded : EncodedPayload.encode(response.getPayload())).withDerivedVersion();
+            response = response.toBuilder().encodedPayload(encoded).build();
+            if (cacheKey != null) {
+                responseCache.put(cacheKey, encoded);
+            }
+        }
+        return ConditionalRequests.apply(request, response);
+    }
+
+    /**
+     * Singleflight: concurrent requests with the same action and canonical payload share the first caller's
+     * execution; followers get the same result re-stamped with their own requestId.
+     */
+    private BeaconResponse handleCoalesced(BeaconActionHandler handler, BeaconMessage request, TransportContext context) {
+        String key = CanonicalJson.requestKey(request.getAction(), request.getPayload());
+        CompletableFuture<BeaconResponse> pending = new CompletableFuture<>();
+        CompletableFuture<BeaconResponse> leader = inFlight.putIfAbsent(key, pending);
+        if (leader != null) {
+            return leader.join().toBuilder().requestId(request.getRequestId()).build();
+        }
+        try {
+            BeaconResponse response = invoke(handler, request, context);
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    private static BeaconResponse invoke(BeaconActionHandler handler, BeaconMessage request, TransportContext context) {
         try {
-            return handler.handle(request, context);
+            return project(handler, handler.handle(request, context), request);
         } catch (Exception ex) {
             return BeaconResponse.builder(request.getRequestId())
                 .result(ResultCode.ERROR)
@@ -58,4 +143,39 @@ public final class DefaultBeaconProviderService implements BeaconProviderService
                 .build();
         }
     }
+
+    private static boolean parseStringTable(JsonObject payload) {
+        JsonElement value = payload != null ? payload.get(PayloadWriter.STRING_TABLE) : null;
+        if (value == null || value.isJsonNull()) {
+            return false;
+        }
+        if (!value.isJsonPrimitive() || !value.getAsJsonPrimitive().isBoolean()) {
+            throw new JsonParseException(PayloadWriter.STRING_TABLE + " must be a boolean");
+        }
+        return value.getAsBoolean();
+    }
+
+    /**
+     * Tree payloads are pruned here, and re-encoded through a {@link PayloadWriter} when the string table is on;
+     * handlers that pre-encode their payload apply both options while writing. Batch items carry their own options,
+     * so a batch response is only pruned.
+     */
+    private static BeaconResponse project(BeaconActionHandler handler, BeaconResponse response, BeaconMessage request) {
+        FieldProjection projection = request.getProjection();
+        JsonObject payload = response.getEncodedPayload() == null ? response.getPayload() : null;
+        if (payload == null) {
+            return response;
+        }
+        if (request.usesStringTable() && !(handler instanceof BatchActionHandler)) {
+            JsonElement version = payload.get(ConditionalRequests.VERSION);
+            String tag = version != null && version.isJsonPrimitive() ? version.getAsString() : null;
+            return response.toBuilder()
+                .encodedPayload(EncodedPayload.write(tag, request, writer -> PayloadWriter.tree(writer, payload)))
+                .build();
+        }
+        if (projection.isAll()) {
+            return response;
+        }
+        return response.toBuilder().payload(projection.apply(payload)).build();
+    }
 }
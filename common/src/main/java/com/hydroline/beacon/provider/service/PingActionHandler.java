@@ -19,6 +19,11 @@ public final class PingActionHandler implements BeaconActionHandler {
         return ACTION;
     }
 
+    @Override
+    public boolean coalescable() {
+        return false;
+    }
+
     @Override
     public BeaconResponse handle(BeaconMessage message, TransportContext context) {
         JsonObject payload = new JsonObject();
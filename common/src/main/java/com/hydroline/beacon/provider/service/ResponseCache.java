@@ -0,0 +1,58 @@
+package com.hydroline.beacon.provider.service;
+
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU of encoded {@code OK} payloads bounded by their total size in bytes. Keys embed the handler's
+ * {@link BeaconActionHandler#dataGeneration()}, so entries for outdated data are never hit again and simply
+ * age out.
+ */
+final class ResponseCache {
+    /** Entries larger than this fraction of the budget would evict too much to be worth keeping. */
+    private static final int MAX_ENTRY_FRACTION = 4;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, EncodedPayload> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    ResponseCache(long maxBytes) {
+        this.maxBytes = Math.max(0L, maxBytes);
+    }
+
+    boolean isEnabled() {
+        return maxBytes > 0L;
+    }
+
+    synchronized EncodedPayload get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, EncodedPayload payload) {
+        long size = weight(key, payload);
+        if (size > maxBytes / MAX_ENTRY_FRACTION) {
+            return;
+        }
+        EncodedPayload previous = entries.put(key, payload);
+        if (previous != null) {
+            totalBytes -= weight(key, previous);
+        }
+        totalBytes += size;
+        Iterator<Map.Entry<String, EncodedPayload>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, EncodedPayload> eldest = iterator.next();
+            totalBytes -= weight(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    private static long weight(String key, EncodedPayload payload) {
+        return payload.sizeBytes() + 2L * key.length();
+    }
+}
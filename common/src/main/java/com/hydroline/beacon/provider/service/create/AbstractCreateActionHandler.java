@@ -4,6 +4,7 @@ import com.google.gson.JsonObject;
 import com.hydroline.beacon.provider.create.CreateQueryGateway;
 import com.hydroline.beacon.provider.create.CreateQueryRegistry;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
 import com.hydroline.beacon.provider.protocol.ResultCode;
 
 abstract class AbstractCreateActionHandler implements com.hydroline.beacon.provider.service.BeaconActionHandler {
@@ -32,6 +33,13 @@ abstract class AbstractCreateActionHandler implements com.hydroline.beacon.provi
             .build();
     }
 
+    protected BeaconResponse ok(String requestId, EncodedPayload payload) {
+        return BeaconResponse.builder(requestId)
+            .result(ResultCode.OK)
+            .encodedPayload(payload)
+            .build();
+    }
+
     protected BeaconResponse error(String requestId, String reason) {
         return BeaconResponse.builder(requestId)
             .result(ResultCode.ERROR)
@@ -1,22 +1,37 @@
 package com.hydroline.beacon.provider.service.create;
 
 import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.create.CreateColumnarWriter;
 import com.hydroline.beacon.provider.create.CreateJsonWriter;
 import com.hydroline.beacon.provider.create.CreateNetworkSnapshot;
+import com.hydroline.beacon.provider.create.CreatePolylineCodec;
 import com.hydroline.beacon.provider.create.CreateQueryGateway;
+import com.hydroline.beacon.provider.create.CreateQueryRegistry;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
+import com.hydroline.beacon.provider.service.ConditionalRequests;
 import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.util.VersionTag;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 public final class CreateGetNetworkActionHandler extends AbstractCreateActionHandler {
     public static final String ACTION = "create:get_network";
+    private static final String FORMAT_ROWS = "rows";
+    private static final String POLYLINES_POINTS = "points";
 
     @Override
     public String action() {
         return ACTION;
     }
 
+    @Override
+    public long dataGeneration() {
+        return gateway().isReady() ? CreateQueryRegistry.networkGeneration() : -1L;
+    }
+
     @Override
     public BeaconResponse handle(BeaconMessage message, TransportContext context) {
         CreateQueryGateway gateway = gateway();
@@ -25,13 +40,61 @@ public final class CreateGetNetworkActionHandler extends AbstractCreateActionHan
         }
         JsonObject payload = message.getPayload();
         String graphId = payload != null && payload.has("graphId") ? payload.get("graphId").getAsString() : null;
-        boolean includePolylines = payload == null || !payload.has("includePolylines") || payload.get("includePolylines").getAsBoolean();
+        boolean includePolylines = (payload == null || !payload.has("includePolylines") || payload.get("includePolylines").getAsBoolean())
+            && message.getProjection().keepsMember("edgePolylines");
+        String format = payload != null && payload.has("format") ? payload.get("format").getAsString() : FORMAT_ROWS;
+        boolean columnar = CreateColumnarWriter.FORMAT.equals(format);
+        if (!columnar && !FORMAT_ROWS.equals(format)) {
+            return invalidPayload(message.getRequestId(), "format must be rows or columnar");
+        }
+        String polylineEncoding = payload != null && payload.has("polylineEncoding")
+            ? payload.get("polylineEncoding").getAsString()
+            : POLYLINES_POINTS;
+        boolean packed = CreatePolylineCodec.ENCODING.equals(polylineEncoding);
+        if (!packed && !POLYLINES_POINTS.equals(polylineEncoding)) {
+            return invalidPayload(message.getRequestId(), "polylineEncoding must be points or delta");
+        }
+        Map<String, Integer> checksums = gateway.fetchGraphChecksums();
+        if (graphId != null && !checksums.isEmpty() && !checksums.containsKey(graphId)) {
+            return invalidPayload(message.getRequestId(), "unknown graphId");
+        }
+        String version = networkVersion(checksums, graphId, includePolylines, columnar, packed);
+        if (ConditionalRequests.matches(message, version)) {
+            return ConditionalRequests.notModified(message.getRequestId());
+        }
         Optional<CreateNetworkSnapshot> snapshot = gateway.fetchNetworkSnapshot(graphId, includePolylines);
         if (graphId != null && !snapshot.isPresent()) {
             return invalidPayload(message.getRequestId(), "unknown graphId");
         }
         CreateNetworkSnapshot networkSnapshot = snapshot.orElseGet(() -> new CreateNetworkSnapshot(null, null, null, null, null, null, null));
-        JsonObject responsePayload = CreateJsonWriter.writeNetworkSnapshot(networkSnapshot, includePolylines);
-        return ok(message.getRequestId(), responsePayload);
+        if (columnar) {
+            return ok(message.getRequestId(), EncodedPayload.write(version, message,
+                writer -> CreateColumnarWriter.writeNetworkSnapshot(writer, networkSnapshot, includePolylines, packed, version)));
+        }
+        return ok(message.getRequestId(), EncodedPayload.write(version, message,
+            writer -> CreateJsonWriter.writeNetworkSnapshot(writer, networkSnapshot, includePolylines, packed, version)));
+    }
+
+    /**
+     * Derived from the stored graph checksums, so it is known before the network is queried and serialized.
+     */
+    private static String networkVersion(Map<String, Integer> checksums, String graphId, boolean includePolylines,
+                                         boolean columnar, boolean packed) {
+        if (checksums.isEmpty()) {
+            return null;
+        }
+        VersionTag tag = VersionTag.start().add(includePolylines ? 1L : 0L);
+        if (columnar) {
+            tag.add(CreateColumnarWriter.FORMAT);
+        }
+        if (packed) {
+            tag.add(CreatePolylineCodec.ENCODING);
+        }
+        for (Map.Entry<String, Integer> entry : new TreeMap<String, Integer>(checksums).entrySet()) {
+            if (graphId == null || graphId.equals(entry.getKey())) {
+                tag.add(entry.getKey()).add(entry.getValue().longValue());
+            }
+        }
+        return tag.finish();
     }
 }
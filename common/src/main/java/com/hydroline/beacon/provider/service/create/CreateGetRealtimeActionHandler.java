@@ -1,11 +1,12 @@
 package com.hydroline.beacon.provider.service.create;
 
-import com.google.gson.JsonObject;
 import com.hydroline.beacon.provider.create.CreateJsonWriter;
 import com.hydroline.beacon.provider.create.CreateQueryGateway;
+import com.hydroline.beacon.provider.create.CreateQueryRegistry;
 import com.hydroline.beacon.provider.create.CreateRealtimeSnapshot;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
 import com.hydroline.beacon.provider.transport.TransportContext;
 
 public final class CreateGetRealtimeActionHandler extends AbstractCreateActionHandler {
@@ -16,14 +17,19 @@ public final class CreateGetRealtimeActionHandler extends AbstractCreateActionHa
         return ACTION;
     }
 
+    @Override
+    public long dataGeneration() {
+        return gateway().isReady() ? CreateQueryRegistry.fetchRealtimeSnapshot().getCapturedAt() : -1L;
+    }
+
     @Override
     public BeaconResponse handle(BeaconMessage message, TransportContext context) {
         CreateQueryGateway gateway = gateway();
         if (!gateway.isReady()) {
             return notReady(message.getRequestId());
         }
-        CreateRealtimeSnapshot snapshot = gateway.fetchRealtimeSnapshot();
-        JsonObject responsePayload = CreateJsonWriter.writeRealtimeSnapshot(snapshot);
-        return ok(message.getRequestId(), responsePayload);
+        CreateRealtimeSnapshot snapshot = CreateQueryRegistry.fetchRealtimeSnapshot();
+        return ok(message.getRequestId(), EncodedPayload.write(null, message,
+            writer -> CreateJsonWriter.writeRealtimeSnapshot(writer, snapshot)));
     }
 }
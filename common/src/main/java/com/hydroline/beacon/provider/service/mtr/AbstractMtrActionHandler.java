@@ -5,8 +5,13 @@ import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.mtr.MtrQueryRegistry;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
 import com.hydroline.beacon.provider.protocol.ResultCode;
 
+/**
+ * Base for MTR actions. Every MTR action reports live state (train positions in sidings, arrival times), so none
+ * of them opt into the response cache via {@code dataGeneration()}.
+ */
 abstract class AbstractMtrActionHandler implements com.hydroline.beacon.provider.service.BeaconActionHandler {
     protected MtrQueryGateway gateway() {
         return MtrQueryRegistry.get();
@@ -33,6 +38,13 @@ abstract class AbstractMtrActionHandler implements com.hydroline.beacon.provider
             .build();
     }
 
+    protected BeaconResponse ok(String requestId, EncodedPayload payload) {
+        return BeaconResponse.builder(requestId)
+            .result(ResultCode.OK)
+            .encodedPayload(payload)
+            .build();
+    }
+
     protected BeaconResponse busy(String requestId, String reason) {
         return BeaconResponse.builder(requestId)
             .result(ResultCode.BUSY)
@@ -1,7 +1,6 @@
 package com.hydroline.beacon.provider.service.mtr;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.hydroline.beacon.provider.BeaconProviderMod;
 import com.hydroline.beacon.provider.mtr.MtrDimensionSnapshot;
 import com.hydroline.beacon.provider.mtr.MtrJsonWriter;
@@ -15,9 +14,11 @@ import com.hydroline.beacon.provider.mtr.MtrModels.StationTimetable;
 import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
 import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.util.PayloadWriter;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -47,7 +48,7 @@ public final class MtrGetAllStationSchedulesActionHandler extends AbstractMtrAct
 
         try {
             return MtrScheduleRequestQueue.submit(ACTION, () -> buildAllStationSchedulesResponse(
-                message.getRequestId(),
+                message,
                 gateway,
                 dimension
             ));
@@ -67,9 +68,10 @@ public final class MtrGetAllStationSchedulesActionHandler extends AbstractMtrAct
         }
     }
 
-    private BeaconResponse buildAllStationSchedulesResponse(String requestId,
+    private BeaconResponse buildAllStationSchedulesResponse(BeaconMessage message,
             MtrQueryGateway gateway,
             String dimension) {
+        String requestId = message.getRequestId();
         List<MtrDimensionSnapshot> snapshots = gateway.fetchSnapshots();
         List<DimensionOverview> overviews = gateway.fetchNetworkOverview();
         Set<String> dimensions = collectTargetDimensions(dimension, snapshots, overviews);
@@ -77,56 +79,76 @@ public final class MtrGetAllStationSchedulesActionHandler extends AbstractMtrAct
             return invalidPayload(requestId, "no registered dimensions");
         }
 
-        JsonArray dimensionArray = new JsonArray();
+        // Resolve everything up front so empty stations and dimensions can be skipped while streaming.
+        List<DimensionSchedules> schedules = new ArrayList<>();
         for (String dimId : dimensions) {
             List<StationInfo> stations = gateway.fetchStations(dimId);
             if (stations == null || stations.isEmpty()) {
                 continue;
             }
-            Map<Long, String> platformNames = buildPlatformNameIndex(stations);
-            Map<Long, String> routeNames = buildRouteNameIndex(dimId, overviews);
-            JsonArray stationArray = new JsonArray();
+            DimensionSchedules dimensionSchedules = new DimensionSchedules(dimId,
+                buildPlatformNameIndex(stations),
+                buildRouteNameIndex(dimId, overviews));
             for (StationInfo station : stations) {
                 if (station == null) {
                     continue;
                 }
                 Optional<StationTimetable> optional = gateway.fetchStationTimetable(dimId, station.getStationId(), null);
-                if (!optional.isPresent()) {
-                    continue;
-                }
-                StationTimetable timetable = optional.get();
-                JsonArray platformArray = writePlatformSchedules(
-                    timetable.getPlatforms(),
-                    platformNames,
-                    routeNames
-                );
-                if (platformArray.size() == 0) {
-                    continue;
+                if (optional.isPresent() && hasEntries(optional.get().getPlatforms())) {
+                    dimensionSchedules.stations.add(station);
+                    dimensionSchedules.timetables.add(optional.get());
                 }
-                JsonObject stationJson = new JsonObject();
-                stationJson.addProperty("stationId", station.getStationId());
-                stationJson.addProperty("stationName", station.getName());
-                stationJson.add("platforms", platformArray);
-                stationArray.add(stationJson);
             }
-            if (stationArray.size() == 0) {
-                continue;
+            if (!dimensionSchedules.stations.isEmpty()) {
+                schedules.add(dimensionSchedules);
             }
-            JsonObject dimensionJson = new JsonObject();
-            dimensionJson.addProperty("dimension", dimId);
-            dimensionJson.add("stations", stationArray);
-            dimensionArray.add(dimensionJson);
         }
-        JsonObject responsePayload = new JsonObject();
-        responsePayload.addProperty("timestamp", System.currentTimeMillis());
-        if (dimension != null && !dimension.isEmpty()) {
-            responsePayload.addProperty("dimension", dimension);
-        }
-        if (dimensionArray.size() == 0) {
-            responsePayload.addProperty("note", "no schedules available yet");
+        return ok(requestId, EncodedPayload.write(null, message, writer -> {
+            writer.beginObject();
+            writer.name("timestamp").value(System.currentTimeMillis());
+            if (dimension != null && !dimension.isEmpty()) {
+                writer.name("dimension").value(dimension);
+            }
+            if (schedules.isEmpty()) {
+                writer.name("note").value("no schedules available yet");
+            }
+            writer.name("dimensions").beginArray();
+            for (DimensionSchedules dimensionSchedules : schedules) {
+                writer.beginObject();
+                writer.name("dimension");
+                PayloadWriter.string(writer, dimensionSchedules.dimension);
+                writer.name("stations").beginArray();
+                for (int i = 0; i < dimensionSchedules.stations.size(); i++) {
+                    StationInfo station = dimensionSchedules.stations.get(i);
+                    writer.beginObject();
+                    writer.name("stationId").value(station.getStationId());
+                    writer.name("stationName");
+                    PayloadWriter.string(writer, station.getName());
+                    writer.name("platforms");
+                    writePlatformSchedules(writer, dimensionSchedules.timetables.get(i).getPlatforms(),
+                        dimensionSchedules.platformNames, dimensionSchedules.routeNames);
+                    writer.endObject();
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }));
+    }
+
+    private static final class DimensionSchedules {
+        private final String dimension;
+        private final Map<Long, String> platformNames;
+        private final Map<Long, String> routeNames;
+        private final List<StationInfo> stations = new ArrayList<>();
+        private final List<StationTimetable> timetables = new ArrayList<>();
+
+        private DimensionSchedules(String dimension, Map<Long, String> platformNames, Map<Long, String> routeNames) {
+            this.dimension = dimension;
+            this.platformNames = platformNames;
+            this.routeNames = routeNames;
         }
-        responsePayload.add("dimensions", dimensionArray);
-        return ok(requestId, responsePayload);
     }
 
     private static Set<String> collectTargetDimensions(String requestedDimension,
@@ -192,39 +214,55 @@ public final class MtrGetAllStationSchedulesActionHandler extends AbstractMtrAct
         return names;
     }
 
-    private static JsonArray writePlatformSchedules(List<PlatformTimetable> platforms,
-            Map<Long, String> platformNames,
-            Map<Long, String> routeNames) {
-        JsonArray array = new JsonArray();
-        if (platforms == null || platforms.isEmpty()) {
-            return array;
+    private static boolean hasEntries(List<PlatformTimetable> platforms) {
+        if (platforms == null) {
+            return false;
         }
         for (PlatformTimetable platform : platforms) {
-            if (platform == null) {
-                continue;
+            if (hasEntries(platform)) {
+                return true;
             }
-            JsonArray entries = new JsonArray();
-            List<ScheduleEntry> scheduleEntries = platform.getEntries();
-            if (scheduleEntries != null) {
-                for (ScheduleEntry entry : scheduleEntries) {
-                    if (entry == null) {
-                        continue;
-                    }
-                    entries.add(MtrJsonWriter.writeScheduleEntry(entry, routeNames));
-                }
+        }
+        return false;
+    }
+
+    private static boolean hasEntries(PlatformTimetable platform) {
+        if (platform == null || platform.getEntries() == null) {
+            return false;
+        }
+        for (ScheduleEntry entry : platform.getEntries()) {
+            if (entry != null) {
+                return true;
             }
-            if (entries.size() == 0) {
+        }
+        return false;
+    }
+
+    private static void writePlatformSchedules(JsonWriter writer,
+            List<PlatformTimetable> platforms,
+            Map<Long, String> platformNames,
+            Map<Long, String> routeNames) throws IOException {
+        writer.beginArray();
+        for (PlatformTimetable platform : platforms) {
+            if (!hasEntries(platform)) {
                 continue;
             }
-            JsonObject platformJson = new JsonObject();
-            platformJson.addProperty("platformId", platform.getPlatformId());
+            writer.beginObject();
+            writer.name("platformId").value(platform.getPlatformId());
             String platformName = platformNames.get(platform.getPlatformId());
             if (platformName != null && !platformName.isEmpty()) {
-                platformJson.addProperty("platformName", platformName);
+                writer.name("platformName");
+                PayloadWriter.string(writer, platformName);
+            }
+            writer.name("entries").beginArray();
+            for (ScheduleEntry entry : platform.getEntries()) {
+                if (entry != null) {
+                    MtrJsonWriter.writeScheduleEntry(writer, entry, routeNames);
+                }
             }
-            platformJson.add("entries", entries);
-            array.add(platformJson);
+            writer.endArray();
+            writer.endObject();
         }
-        return array;
+        writer.endArray();
     }
 }
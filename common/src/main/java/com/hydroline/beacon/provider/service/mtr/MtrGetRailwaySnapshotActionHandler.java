@@ -2,24 +2,41 @@ package com.hydroline.beacon.provider.service.mtr;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.BeaconProviderMod;
 import com.hydroline.beacon.provider.mtr.MtrDimensionSnapshot;
 import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.mtr.RailwayDataSerializer;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.ResultCode;
+import com.hydroline.beacon.provider.service.ConditionalRequests;
+import com.hydroline.beacon.provider.transport.ResponseStream;
 import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.util.ChunkingOutputStream;
 import com.hydroline.beacon.provider.util.PayloadChunker;
+import com.hydroline.beacon.provider.util.VersionTag;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public final class MtrGetRailwaySnapshotActionHandler extends AbstractMtrActionHandler {
     public static final String ACTION = "mtr:get_railway_snapshot";
+    private static final String TRANSFER_CHUNKS = "chunks";
+    private static final String TRANSFER_ATTACHMENT = "attachment";
 
     @Override
     public String action() {
         return ACTION;
     }
 
+    @Override
+    public boolean streamsResponses() {
+        return true;
+    }
+
     @Override
     public BeaconResponse handle(BeaconMessage message, TransportContext context) {
         MtrQueryGateway gateway = gateway();
@@ -30,9 +47,22 @@ public final class MtrGetRailwaySnapshotActionHandler extends AbstractMtrActionH
         String requestedDimension = payload != null && payload.has("dimension")
             ? payload.get("dimension").getAsString()
             : null;
+        String transfer = payload != null && payload.has("transfer")
+            ? payload.get("transfer").getAsString()
+            : TRANSFER_CHUNKS;
+        boolean attach = TRANSFER_ATTACHMENT.equals(transfer);
+        if (!attach && !TRANSFER_CHUNKS.equals(transfer)) {
+            return invalidPayload(message.getRequestId(), "transfer must be chunks or attachment");
+        }
         List<MtrDimensionSnapshot> snapshots = gateway.fetchSnapshots();
-        JsonArray serialized = new JsonArray();
-        long now = System.currentTimeMillis();
+        ResponseStream stream = context.getResponseStream();
+        if (stream != null && !attach) {
+            // Attachments already carry raw bytes in one response, so only the base64 transfer is streamed.
+            return streamSnapshots(message, snapshots, requestedDimension, stream);
+        }
+        List<MtrDimensionSnapshot> selected = new ArrayList<>();
+        List<byte[]> encodedSnapshots = new ArrayList<>();
+        VersionTag tag = VersionTag.start();
         for (MtrDimensionSnapshot snapshot : snapshots) {
             if (requestedDimension != null && !requestedDimension.equals(snapshot.getDimensionId())) {
                 continue;
@@ -41,21 +71,123 @@ public final class MtrGetRailwaySnapshotActionHandler extends AbstractMtrActionH
             if (data.length == 0) {
                 continue;
             }
+            selected.add(snapshot);
+            encodedSnapshots.add(data);
+            tag.add(snapshot.getDimensionId()).add(data);
+        }
+        if (requestedDimension != null && selected.isEmpty()) {
+            return invalidPayload(message.getRequestId(), "unknown dimension");
+        }
+        String version = tag.finish();
+        if (ConditionalRequests.matches(message, version)) {
+            // Skip the Base64 + JSON encoding of the unchanged snapshot entirely.
+            return ConditionalRequests.notModified(message.getRequestId());
+        }
+        BeaconResponse.Builder response = BeaconResponse.builder(message.getRequestId()).result(ResultCode.OK);
+        JsonArray serialized = new JsonArray();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < selected.size(); i++) {
+            byte[] data = encodedSnapshots.get(i);
             JsonObject entry = new JsonObject();
-            entry.addProperty("dimension", snapshot.getDimensionId());
+            entry.addProperty("dimension", selected.get(i).getDimensionId());
             entry.addProperty("format", "messagepack");
             entry.addProperty("timestamp", now);
             entry.addProperty("length", data.length);
-            String encoded = Base64.getEncoder().encodeToString(data);
-            entry.add("payloadChunks", PayloadChunker.chunkEncodedPayload("base64", encoded, data.length));
+            if (attach) {
+                // The bytes travel untouched next to the payload instead of as base64 text inside it.
+                entry.addProperty("attachment", i);
+                response.attachment(data);
+            } else {
+                String encoded = Base64.getEncoder().encodeToString(data);
+                entry.add("payloadChunks", PayloadChunker.chunkEncodedPayload("base64", encoded, data.length));
+            }
             serialized.add(entry);
         }
-        if (requestedDimension != null && serialized.size() == 0) {
-            return invalidPayload(message.getRequestId(), "unknown dimension");
-        }
         JsonObject responsePayload = new JsonObject();
         responsePayload.addProperty("format", "messagepack");
+        responsePayload.addProperty(ConditionalRequests.VERSION, version);
         responsePayload.add("snapshots", serialized);
-        return ok(message.getRequestId(), responsePayload);
+        return response.payload(responsePayload).build();
+    }
+
+    /**
+     * Streams each dimension's MessagePack bytes as bounded chunks while they are being encoded, so the full
+     * snapshot is never held in memory. The final response only carries per-dimension summaries. With
+     * {@code ifNoneMatch} the version has to be known before the first chunk goes out, so the snapshots are
+     * encoded once into memory, hashed, and then streamed from those bytes.
+     */
+    private BeaconResponse streamSnapshots(BeaconMessage message,
+            List<MtrDimensionSnapshot> snapshots,
+            String requestedDimension,
+            ResponseStream stream) {
+        String requestId = message.getRequestId();
+        Map<String, byte[]> buffered = null;
+        String bufferedVersion = null;
+        if (ConditionalRequests.hasTag(message)) {
+            buffered = new LinkedHashMap<>();
+            VersionTag bufferedTag = VersionTag.start();
+            for (MtrDimensionSnapshot snapshot : snapshots) {
+                String dimension = snapshot.getDimensionId();
+                if (requestedDimension != null && !requestedDimension.equals(dimension)) {
+                    continue;
+                }
+                byte[] data = RailwayDataSerializer.serialize(snapshot);
+                if (data.length > 0) {
+                    bufferedTag.add(dimension).add(data);
+                    buffered.put(dimension, data);
+                }
+            }
+            bufferedVersion = bufferedTag.finish();
+            if (!buffered.isEmpty() && ConditionalRequests.matches(message, bufferedVersion)) {
+                return ConditionalRequests.notModified(requestId);
+            }
+        }
+        JsonArray summaries = new JsonArray();
+        VersionTag tag = VersionTag.start();
+        long now = System.currentTimeMillis();
+        for (MtrDimensionSnapshot snapshot : snapshots) {
+            String dimension = snapshot.getDimensionId();
+            if (requestedDimension != null && !requestedDimension.equals(dimension)) {
+                continue;
+            }
+            byte[] data = buffered != null ? buffered.get(dimension) : null;
+            if (buffered != null ? data == null : snapshot.getRailwayData() == null) {
+                continue;
+            }
+            ChunkingOutputStream out = new ChunkingOutputStream(stream.maxChunkBytes(), (index, chunk) -> {
+                JsonObject part = new JsonObject();
+                part.addProperty("dimension", dimension);
+                part.addProperty("index", index);
+                stream.write(part, chunk);
+            });
+            try {
+                if (data != null) {
+                    out.write(data);
+                } else {
+                    tag.add(dimension);
+                    RailwayDataSerializer.serialize(snapshot, tag.wrap(out));
+                }
+                out.close();
+            } catch (IOException ex) {
+                BeaconProviderMod.LOGGER.warn("Unable to stream RailwayData for {}", dimension, ex);
+                return error(requestId, "failed to serialize snapshot for " + dimension);
+            }
+            JsonObject entry = new JsonObject();
+            entry.addProperty("dimension", dimension);
+            entry.addProperty("format", "messagepack");
+            entry.addProperty("timestamp", now);
+            entry.addProperty("length", out.totalBytes());
+            entry.addProperty("chunkCount", out.chunkCount());
+            summaries.add(entry);
+        }
+        if (requestedDimension != null && summaries.size() == 0) {
+            return invalidPayload(requestId, "unknown dimension");
+        }
+        JsonObject responsePayload = new JsonObject();
+        responsePayload.addProperty("format", "messagepack");
+        responsePayload.addProperty("streamed", true);
+        responsePayload.addProperty(ConditionalRequests.VERSION, buffered != null ? bufferedVersion : tag.finish());
+        responsePayload.add("snapshots", summaries);
+        return ok(requestId, responsePayload);
     }
 }
@@ -6,6 +6,7 @@ import com.hydroline.beacon.provider.mtr.MtrModels.TrainStatus;
 import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
 import com.hydroline.beacon.provider.transport.TransportContext;
 import java.util.List;
 
@@ -34,15 +35,19 @@ public final class MtrGetRouteTrainsActionHandler extends AbstractMtrActionHandl
             ? payload.get("routeId").getAsLong()
             : 0L;
         List<TrainStatus> statuses = gateway.fetchRouteTrains(dimension, routeId);
-        JsonObject responsePayload = new JsonObject();
-        responsePayload.addProperty("timestamp", System.currentTimeMillis());
-        if (dimension != null && !dimension.isEmpty()) {
-            responsePayload.addProperty("dimension", dimension);
-        }
-        if (payload != null && payload.has("routeId")) {
-            responsePayload.addProperty("routeId", routeId);
-        }
-        responsePayload.add("trains", MtrJsonWriter.writeTrainStatuses(statuses));
-        return ok(message.getRequestId(), responsePayload);
+        boolean echoRouteId = payload != null && payload.has("routeId");
+        return ok(message.getRequestId(), EncodedPayload.write(null, message, writer -> {
+            writer.beginObject();
+            writer.name("timestamp").value(System.currentTimeMillis());
+            if (dimension != null && !dimension.isEmpty()) {
+                writer.name("dimension").value(dimension);
+            }
+            if (echoRouteId) {
+                writer.name("routeId").value(routeId);
+            }
+            writer.name("trains");
+            MtrJsonWriter.writeTrainStatuses(writer, statuses);
+            writer.endObject();
+        }));
     }
 }
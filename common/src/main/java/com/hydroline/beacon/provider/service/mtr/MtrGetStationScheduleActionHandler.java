@@ -1,10 +1,10 @@
 package com.hydroline.beacon.provider.service.mtr;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.hydroline.beacon.provider.BeaconProviderMod;
 import com.hydroline.beacon.provider.mtr.MtrDimensionSnapshot;
 import com.hydroline.beacon.provider.mtr.MtrStationScheduleBuilder;
+import com.hydroline.beacon.provider.mtr.MtrStationScheduleBuilder.StationSchedule;
 import com.hydroline.beacon.provider.mtr.MtrModels.DimensionOverview;
 import com.hydroline.beacon.provider.mtr.MtrModels.RouteSummary;
 import com.hydroline.beacon.provider.mtr.MtrModels.StationInfo;
@@ -12,7 +12,9 @@ import com.hydroline.beacon.provider.mtr.MtrModels.StationPlatformInfo;
 import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.protocol.BeaconMessage;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
 import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.util.PayloadWriter;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -48,7 +50,7 @@ public final class MtrGetStationScheduleActionHandler extends AbstractMtrActionH
 
         try {
             return MtrScheduleRequestQueue.submit(ACTION, () -> buildStationScheduleResponse(
-                message.getRequestId(),
+                message,
                 gateway,
                 stationId,
                 dimension,
@@ -70,11 +72,12 @@ public final class MtrGetStationScheduleActionHandler extends AbstractMtrActionH
         }
     }
 
-    private BeaconResponse buildStationScheduleResponse(String requestId,
+    private BeaconResponse buildStationScheduleResponse(BeaconMessage message,
             MtrQueryGateway gateway,
             long stationId,
             String dimension,
             Long platformId) {
+        String requestId = message.getRequestId();
         List<MtrDimensionSnapshot> snapshots = gateway.fetchSnapshots();
         List<DimensionOverview> overviews = gateway.fetchNetworkOverview();
         Set<String> targetDimensions = collectTargetDimensions(dimension, snapshots, overviews);
@@ -85,38 +88,45 @@ public final class MtrGetStationScheduleActionHandler extends AbstractMtrActionH
         Map<String, Map<Long, String>> platformNamesByDimension = buildPlatformNameIndex(gateway.fetchStations(null));
         Map<String, MtrDimensionSnapshot> snapshotsByDimension = indexSnapshots(snapshots);
 
-        JsonArray timetablesArray = new JsonArray();
+        Map<String, StationSchedule> timetables = new LinkedHashMap<>();
         for (String dimId : targetDimensions) {
             MtrDimensionSnapshot snapshot = snapshotsByDimension.get(dimId);
             if (snapshot == null) {
                 continue;
             }
-            JsonArray platforms = MtrStationScheduleBuilder.build(
+            StationSchedule schedule = MtrStationScheduleBuilder.collect(
                 snapshot,
                 stationId,
                 platformId,
                 platformNamesByDimension.getOrDefault(dimId, Collections.emptyMap())
             );
-            if (platforms == null || platforms.size() == 0) {
-                continue;
+            if (!schedule.isEmpty()) {
+                timetables.put(dimId, schedule);
             }
-            JsonObject entry = new JsonObject();
-            entry.addProperty("dimension", dimId);
-            entry.add("platforms", platforms);
-            timetablesArray.add(entry);
         }
-        if (timetablesArray.size() == 0) {
+        if (timetables.isEmpty()) {
             return invalidPayload(requestId, "station timetable unavailable");
         }
 
-        JsonObject responsePayload = new JsonObject();
-        responsePayload.addProperty("timestamp", System.currentTimeMillis());
-        responsePayload.addProperty("stationId", stationId);
-        if (dimension != null && !dimension.isEmpty()) {
-            responsePayload.addProperty("dimension", dimension);
-        }
-        responsePayload.add("timetables", timetablesArray);
-        return ok(requestId, responsePayload);
+        return ok(requestId, EncodedPayload.write(null, message, writer -> {
+            writer.beginObject();
+            writer.name("timestamp").value(System.currentTimeMillis());
+            writer.name("stationId").value(stationId);
+            if (dimension != null && !dimension.isEmpty()) {
+                writer.name("dimension").value(dimension);
+            }
+            writer.name("timetables").beginArray();
+            for (Map.Entry<String, StationSchedule> entry : timetables.entrySet()) {
+                writer.beginObject();
+                writer.name("dimension");
+                PayloadWriter.string(writer, entry.getKey());
+                writer.name("platforms");
+                entry.getValue().write(writer);
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }));
     }
 
     private static Set<String> collectTargetDimensions(String requestedDimension,
@@ -27,17 +27,40 @@ public final class BeaconRequestDispatcher {
             BeaconMessage message = MessageSerializer.deserialize(payload);
             return service.handle(message, context);
         } catch (JsonParseException ex) {
-            LOGGER.warn("Invalid JSON from {} via {}: {}", context.getOriginId(), context.getKind(), ex.getMessage());
-            return BeaconResponse.builder("invalid")
-                .result(ResultCode.INVALID_PAYLOAD)
-                .message("JSON parse error: " + ex.getMessage())
-                .build();
+            return invalidJson(context, ex);
         } catch (Exception ex) {
-            LOGGER.error("Failed to handle message from {} via {}", context.getOriginId(), context.getKind(), ex);
-            return BeaconResponse.builder("internal")
-                .result(ResultCode.ERROR)
-                .message("Internal error")
-                .build();
+            return internalError(context, ex);
         }
     }
+
+    /**
+     * Variant for transports that already decoded the envelope (e.g. the Netty gateway streaming decoder),
+     * so the request is validated here instead of being re-serialized and parsed again.
+     */
+    public BeaconResponse dispatch(BeaconMessage message, TransportContext context) {
+        try {
+            MessageSerializer.validate(message);
+            return service.handle(message, context);
+        } catch (JsonParseException ex) {
+            return invalidJson(context, ex);
+        } catch (Exception ex) {
+            return internalError(context, ex);
+        }
+    }
+
+    private static BeaconResponse invalidJson(TransportContext context, JsonParseException ex) {
+        LOGGER.warn("Invalid JSON from {} via {}: {}", context.getOriginId(), context.getKind(), ex.getMessage());
+        return BeaconResponse.builder("invalid")
+            .result(ResultCode.INVALID_PAYLOAD)
+            .message("JSON parse error: " + ex.getMessage())
+            .build();
+    }
+
+    private static BeaconResponse internalError(TransportContext context, Exception ex) {
+        LOGGER.error("Failed to handle message from {} via {}", context.getOriginId(), context.getKind(), ex);
+        return BeaconResponse.builder("internal")
+            .result(ResultCode.ERROR)
+            .message("Internal error")
+            .build();
+    }
 }
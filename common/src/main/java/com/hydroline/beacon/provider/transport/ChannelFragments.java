@@ -0,0 +1,91 @@
+package com.hydroline.beacon.provider.transport;
+
+import com.hydroline.beacon.provider.protocol.ChannelConstants;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Framing for plugin messages that do not fit into one packet. A fragment starts with {@link #MARKER}, followed
+ * by a big-endian {@code int} message id and unsigned {@code short} fragment index and fragment count, then a slice
+ * of the serialized message. Plain JSON messages start with <code>{</code>, so both kinds share the channel.
+ */
+public final class ChannelFragments {
+    /** First byte of every fragment; never valid as the first byte of UTF-8 text. */
+    public static final byte MARKER = (byte) 0xFB;
+    public static final int HEADER_BYTES = 9;
+    public static final int MAX_FRAGMENTS = 0xFFFF;
+
+    private ChannelFragments() {
+    }
+
+    public static boolean isFragment(byte[] packet) {
+        return packet != null && packet.length > 0 && packet[0] == MARKER;
+    }
+
+    /**
+     * @return {@code message} itself when it fits into one packet, its fragments otherwise.
+     * @throws IllegalArgumentException if the message needs more than {@link #MAX_FRAGMENTS} fragments
+     */
+    public static List<byte[]> split(byte[] message, int messageId) {
+        return split(message, messageId, ChannelConstants.MAX_PACKET_BYTES);
+    }
+
+    static List<byte[]> split(byte[] message, int messageId, int maxPacketBytes) {
+        List<byte[]> packets = new ArrayList<byte[]>();
+        if (message.length <= maxPacketBytes) {
+            packets.add(message);
+            return packets;
+        }
+        int sliceBytes = maxPacketBytes - HEADER_BYTES;
+        int count = (message.length + sliceBytes - 1) / sliceBytes;
+        if (count > MAX_FRAGMENTS) {
+            throw new IllegalArgumentException("Message of " + message.length + " bytes needs too many fragments");
+        }
+        for (int index = 0; index < count; index++) {
+            int offset = index * sliceBytes;
+            int length = Math.min(sliceBytes, message.length - offset);
+            ByteBuffer packet = ByteBuffer.allocate(HEADER_BYTES + length);
+            packet.put(MARKER).putInt(messageId).putShort((short) index).putShort((short) count);
+            packet.put(message, offset, length);
+            packets.add(packet.array());
+        }
+        return packets;
+    }
+
+    /**
+     * Parsed view of one fragment.
+     */
+    static final class Fragment {
+        final int messageId;
+        final int index;
+        final int count;
+        final byte[] data;
+
+        private Fragment(int messageId, int index, int count, byte[] data) {
+            this.messageId = messageId;
+            this.index = index;
+            this.count = count;
+            this.data = data;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the header is truncated or inconsistent
+         */
+        static Fragment parse(byte[] packet) {
+            if (!isFragment(packet) || packet.length < HEADER_BYTES) {
+                throw new IllegalArgumentException("Truncated fragment header");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(packet);
+            buffer.get();
+            int messageId = buffer.getInt();
+            int index = buffer.getShort() & 0xFFFF;
+            int count = buffer.getShort() & 0xFFFF;
+            if (count == 0 || index >= count) {
+                throw new IllegalArgumentException("Fragment " + index + " of " + count + " is out of range");
+            }
+            return new Fragment(messageId, index, count, Arrays.copyOfRange(packet, HEADER_BYTES, packet.length));
+        }
+    }
+}
@@ -1,26 +1,206 @@
 package com.hydroline.beacon.provider.transport;
 
+import com.hydroline.beacon.provider.BeaconProviderMod;
 import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.ChannelConstants;
+import com.hydroline.beacon.provider.protocol.MessageSerializer;
+import com.hydroline.beacon.provider.protocol.RequestId;
+import com.hydroline.beacon.provider.protocol.ResultCode;
 import com.hydroline.beacon.provider.service.BeaconProviderService;
+import com.hydroline.beacon.provider.util.DispatchExecutor;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Glue code used by loader-specific entrypoints to wire channel events into the shared service.
+ * <p>
+ * Requests may arrive as {@link ChannelFragments fragments} and are reassembled before dispatch. Actions run on a
+ * bounded worker pool rather than the server thread; a full queue is answered with {@link ResultCode#BUSY}.
+ * Workers only queue their responses: packets are sent from {@link #tick()} on the server thread, at most
+ * {@code beacon.pluginFragmentsPerTick} per player and tick, so one large response cannot flood a connection.
+ * Queued bytes per player are capped at {@code beacon.pluginMaxQueuedBytes}; beyond that, new requests are
+ * answered with {@link ResultCode#BUSY} and responses that no longer fit are replaced by one.
  */
 public final class ChannelMessageRouter {
+    private static final int PACKETS_PER_TICK = Math.max(1, Integer.getInteger("beacon.pluginFragmentsPerTick", 8));
+    private static final int DISPATCH_THREADS = Math.max(1, Integer.getInteger("beacon.pluginDispatchThreads", 2));
+    private static final int DISPATCH_QUEUE_CAPACITY = Math.max(1, Integer.getInteger("beacon.pluginDispatchQueueCapacity", 128));
+    private static final long MAX_QUEUED_BYTES = Math.max(ChannelConstants.MAX_PACKET_BYTES,
+        Long.getLong("beacon.pluginMaxQueuedBytes", 4L * 1024 * 1024));
+
     private final BeaconRequestDispatcher dispatcher;
     private final ChannelMessenger messenger;
+    private final FragmentAssembler assembler = new FragmentAssembler();
+    private DispatchExecutor executor;
+    private final Map<UUID, Outbox> outbound = new HashMap<UUID, Outbox>();
+    private final AtomicInteger messageIds = new AtomicInteger();
 
     public ChannelMessageRouter(BeaconProviderService service, ChannelMessenger messenger) {
         this.dispatcher = new BeaconRequestDispatcher(Objects.requireNonNull(service, "service"));
         this.messenger = Objects.requireNonNull(messenger, "messenger");
     }
 
-    public void handleIncoming(UUID playerUuid, byte[] payload) {
+    /**
+     * Accepts one packet from {@code playerUuid}; safe to call from any thread, including the Netty event loop.
+     */
+    public void handleIncoming(UUID playerUuid, byte[] packet) {
+        byte[] payload = packet;
+        if (ChannelFragments.isFragment(packet)) {
+            try {
+                payload = assembler.accept(playerUuid, packet, System.currentTimeMillis());
+            } catch (IllegalArgumentException ex) {
+                BeaconProviderMod.LOGGER.warn("Dropping plugin message fragment from {}: {}", playerUuid, ex.getMessage());
+                return;
+            }
+            if (payload == null) {
+                return;
+            }
+        }
+        byte[] message = payload;
+        if (queuedBytes(playerUuid) >= MAX_QUEUED_BYTES) {
+            // The player is not draining its responses; don't spend a worker on another one.
+            queue(playerUuid, busy(requestIdOf(message), "Too many queued responses"));
+            return;
+        }
         TransportContext context = new TransportContext(playerUuid, TransportKind.PLUGIN_MESSAGE, Instant.now());
-        BeaconResponse response = dispatcher.dispatch(payload, context);
-        messenger.reply(playerUuid, response);
+        boolean accepted = executor().trySubmit(() -> queue(playerUuid, dispatcher.dispatch(message, context)));
+        if (!accepted) {
+            BeaconProviderMod.LOGGER.warn("Plugin channel dispatch queue full, rejecting request from {}", playerUuid);
+            queue(playerUuid, busy(requestIdOf(message), "Plugin channel dispatch queue is full"));
+        }
+    }
+
+    /**
+     * Drops everything held for a player; loaders call this when the player logs out.
+     */
+    public void forget(UUID playerUuid) {
+        synchronized (outbound) {
+            outbound.remove(playerUuid);
+        }
+        assembler.forget(playerUuid);
+    }
+
+    /**
+     * Stops the dispatch pool and drops every queued response and partial request; loaders call this when the
+     * server stops. The next request starts a new pool, so an integrated server can be reopened.
+     */
+    public void shutdown() {
+        DispatchExecutor current;
+        synchronized (this) {
+            current = executor;
+            executor = null;
+        }
+        if (current != null) {
+            current.shutdown();
+        }
+        synchronized (outbound) {
+            outbound.clear();
+        }
+        assembler.clear();
+    }
+
+    private synchronized DispatchExecutor executor() {
+        if (executor == null) {
+            executor = new DispatchExecutor("beacon-channel-dispatch", DISPATCH_THREADS, DISPATCH_QUEUE_CAPACITY);
+        }
+        return executor;
+    }
+
+    /**
+     * Sends queued responses and expires stale partial requests; loaders call this once per server tick, on the
+     * server thread.
+     */
+    public void tick() {
+        synchronized (outbound) {
+            Iterator<Map.Entry<UUID, Outbox>> iterator = outbound.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, Outbox> entry = iterator.next();
+                if (!flush(entry.getKey(), entry.getValue()) || entry.getValue().packets.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        assembler.prune(System.currentTimeMillis());
+    }
+
+    private long queuedBytes(UUID playerUuid) {
+        synchronized (outbound) {
+            Outbox outbox = outbound.get(playerUuid);
+            return outbox != null ? outbox.bytes : 0L;
+        }
+    }
+
+    private void queue(UUID playerUuid, BeaconResponse response) {
+        byte[] message = MessageSerializer.serialize(response);
+        synchronized (outbound) {
+            Outbox outbox = outbound.get(playerUuid);
+            if (outbox == null) {
+                outbox = new Outbox();
+                outbound.put(playerUuid, outbox);
+            }
+            if (outbox.bytes + message.length > MAX_QUEUED_BYTES && response.getResult() != ResultCode.BUSY) {
+                message = MessageSerializer.serialize(busy(response.getRequestId(), "Response exceeds the queued bytes limit"));
+            }
+            if (outbox.bytes + message.length > MAX_QUEUED_BYTES) {
+                BeaconProviderMod.LOGGER.debug("Dropping plugin channel response {} for {}: queue full",
+                    response.getRequestId(), playerUuid);
+                return;
+            }
+            outbox.add(ChannelFragments.split(message, messageIds.incrementAndGet()));
+        }
+    }
+
+    private static String requestIdOf(byte[] payload) {
+        try {
+            String candidate = MessageSerializer.deserialize(payload).getRequestId();
+            if (RequestId.isValid(candidate)) {
+                return candidate;
+            }
+        } catch (RuntimeException ignored) {
+            // Unparseable requests would have been rejected anyway; the generic id is the best we can do.
+        }
+        return "busy";
+    }
+
+    private static BeaconResponse busy(String requestId, String message) {
+        return BeaconResponse.builder(requestId)
+            .result(ResultCode.BUSY)
+            .message(message)
+            .build();
+    }
+
+    /**
+     * Sends up to one tick's budget of queued packets.
+     *
+     * @return {@code false} if the player is gone and the queue should be dropped.
+     */
+    private boolean flush(UUID playerUuid, Outbox outbox) {
+        for (int sent = 0; sent < PACKETS_PER_TICK && !outbox.packets.isEmpty(); sent++) {
+            byte[] packet = outbox.packets.poll();
+            outbox.bytes -= packet.length;
+            if (!messenger.send(playerUuid, packet)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Outbox {
+        final ArrayDeque<byte[]> packets = new ArrayDeque<byte[]>();
+        long bytes;
+
+        void add(List<byte[]> fragments) {
+            for (byte[] packet : fragments) {
+                packets.add(packet);
+                bytes += packet.length;
+            }
+        }
     }
 }
@@ -1,11 +1,14 @@
 package com.hydroline.beacon.provider.transport;
 
-import com.hydroline.beacon.provider.protocol.BeaconResponse;
 import java.util.UUID;
 
 /**
- * Abstraction for sending responses back through the plugin channel.
+ * Abstraction for sending packets back through the plugin channel. Serialization and fragmentation happen in
+ * {@link ChannelMessageRouter}; implementations only write one custom payload packet. Called on the server thread.
  */
 public interface ChannelMessenger {
-    void reply(UUID playerUuid, BeaconResponse response);
+    /**
+     * @return {@code false} if the player is no longer connected.
+     */
+    boolean send(UUID playerUuid, byte[] packet);
 }
@@ -0,0 +1,125 @@
+package com.hydroline.beacon.provider.transport;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reassembles fragmented requests per player. Partial messages are bounded in number, size and age so a client
+ * that never finishes a message cannot pin memory.
+ */
+final class FragmentAssembler {
+    private static final int MAX_MESSAGE_BYTES = Integer.getInteger("beacon.pluginMaxRequestBytes", 1024 * 1024);
+    private static final int MAX_PARTIAL_PER_PLAYER = 4;
+    private static final long PARTIAL_TIMEOUT_MS = Long.getLong("beacon.pluginFragmentTimeoutMs", 30_000L);
+
+    private final Map<UUID, Map<Integer, Partial>> partials = new HashMap<UUID, Map<Integer, Partial>>();
+
+    /**
+     * @return the complete message once its last fragment arrived, {@code null} while fragments are missing.
+     * @throws IllegalArgumentException if the fragment is malformed or exceeds the limits; the partial message is dropped
+     */
+    synchronized byte[] accept(UUID playerUuid, byte[] packet, long nowMillis) {
+        ChannelFragments.Fragment fragment = ChannelFragments.Fragment.parse(packet);
+        Map<Integer, Partial> pending = partials.get(playerUuid);
+        if (pending == null) {
+            pending = new HashMap<Integer, Partial>();
+            partials.put(playerUuid, pending);
+        }
+        Partial partial = pending.get(fragment.messageId);
+        if (partial == null) {
+            if (pending.size() >= MAX_PARTIAL_PER_PLAYER) {
+                throw new IllegalArgumentException("Too many unfinished fragmented messages");
+            }
+            partial = new Partial(fragment.count, nowMillis);
+            pending.put(fragment.messageId, partial);
+        }
+        try {
+            partial.add(fragment);
+        } catch (IllegalArgumentException ex) {
+            remove(playerUuid, pending, fragment.messageId);
+            throw ex;
+        }
+        if (!partial.isComplete()) {
+            return null;
+        }
+        remove(playerUuid, pending, fragment.messageId);
+        return partial.join();
+    }
+
+    synchronized void forget(UUID playerUuid) {
+        partials.remove(playerUuid);
+    }
+
+    synchronized void clear() {
+        partials.clear();
+    }
+
+    /**
+     * Drops partial messages whose first fragment is older than the timeout.
+     */
+    synchronized void prune(long nowMillis) {
+        Iterator<Map<Integer, Partial>> players = partials.values().iterator();
+        while (players.hasNext()) {
+            Map<Integer, Partial> pending = players.next();
+            Iterator<Partial> messages = pending.values().iterator();
+            while (messages.hasNext()) {
+                if (nowMillis - messages.next().startedAt > PARTIAL_TIMEOUT_MS) {
+                    messages.remove();
+                }
+            }
+            if (pending.isEmpty()) {
+                players.remove();
+            }
+        }
+    }
+
+    private void remove(UUID playerUuid, Map<Integer, Partial> pending, int messageId) {
+        pending.remove(messageId);
+        if (pending.isEmpty()) {
+            partials.remove(playerUuid);
+        }
+    }
+
+    private static final class Partial {
+        private final byte[][] slices;
+        private final long startedAt;
+        private int received;
+        private int bytes;
+
+        Partial(int count, long startedAt) {
+            this.slices = new byte[count][];
+            this.startedAt = startedAt;
+        }
+
+        void add(ChannelFragments.Fragment fragment) {
+            if (fragment.count != slices.length) {
+                throw new IllegalArgumentException("Fragment count changed within message " + fragment.messageId);
+            }
+            if (slices[fragment.index] != null) {
+                throw new IllegalArgumentException("Duplicate fragment " + fragment.index + " of message " + fragment.messageId);
+            }
+            if ((long) bytes + fragment.data.length > MAX_MESSAGE_BYTES) {
+                throw new IllegalArgumentException("Fragmented message exceeds " + MAX_MESSAGE_BYTES + " bytes");
+            }
+            slices[fragment.index] = fragment.data;
+            received++;
+            bytes += fragment.data.length;
+        }
+
+        boolean isComplete() {
+            return received == slices.length;
+        }
+
+        byte[] join() {
+            byte[] message = new byte[bytes];
+            int offset = 0;
+            for (byte[] slice : slices) {
+                System.arraycopy(slice, 0, message, offset, slice.length);
+                offset += slice.length;
+            }
+            return message;
+        }
+    }
+}
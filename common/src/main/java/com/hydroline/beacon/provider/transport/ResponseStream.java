@@ -0,0 +1,30 @@
+package com.hydroline.beacon.provider.transport;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Optional transport capability that lets a handler emit parts of its response before it returns.
+ * Each call produces one bounded chunk frame; the handler's returned response terminates the stream.
+ */
+public interface ResponseStream {
+    /**
+     * Upper bound for the raw bytes a handler should put into a single chunk.
+     */
+    int maxChunkBytes();
+
+    /**
+     * Blocks while the transport is still busy sending earlier chunks, so a slow reader throttles the handler
+     * instead of piling encoded chunks up in memory.
+     *
+     * @throws IllegalStateException if the transport closed or the wait was interrupted; handlers should let it
+     *                               propagate to abandon the response
+     */
+    void write(JsonObject chunk);
+
+    /**
+     * Like {@link #write(JsonObject)} for a chunk that carries raw bytes. They are added to {@code chunk} as
+     * {@code data}, with {@code encoding} naming the form: {@code "binary"} where the wire format has a native
+     * binary type, {@code "base64"} text otherwise.
+     */
+    void write(JsonObject chunk, byte[] data);
+}
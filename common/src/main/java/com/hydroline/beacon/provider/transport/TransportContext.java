@@ -10,11 +10,17 @@ public final class TransportContext {
     private final UUID originId;
     private final TransportKind kind;
     private final Instant receivedAt;
+    private final ResponseStream responseStream;
 
     public TransportContext(UUID originId, TransportKind kind, Instant receivedAt) {
+        this(originId, kind, receivedAt, null);
+    }
+
+    public TransportContext(UUID originId, TransportKind kind, Instant receivedAt, ResponseStream responseStream) {
         this.originId = originId;
         this.kind = kind;
         this.receivedAt = receivedAt;
+        this.responseStream = responseStream;
     }
 
     public UUID getOriginId() {
@@ -28,4 +34,11 @@ public final class TransportContext {
     public Instant getReceivedAt() {
         return receivedAt;
     }
+
+    /**
+     * @return the chunk stream for this request, or {@code null} if the transport only supports single responses.
+     */
+    public ResponseStream getResponseStream() {
+        return responseStream;
+    }
 }
@@ -0,0 +1,69 @@
+package com.hydroline.beacon.provider.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders JSON with object keys sorted so equivalent payloads produce the same string, e.g. for cache and
+ * coalescing keys.
+ */
+public final class CanonicalJson {
+    private CanonicalJson() {
+    }
+
+    public static String toString(JsonElement element) {
+        StringBuilder builder = new StringBuilder();
+        append(builder, element);
+        return builder.toString();
+    }
+
+    /**
+     * @return {@code action|canonical-payload}.
+     */
+    public static String requestKey(String action, JsonObject payload) {
+        StringBuilder builder = new StringBuilder(action).append('|');
+        append(builder, payload);
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            builder.append("null");
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            // entrySet() rather than keySet(): the latter is missing from the Gson bundled with 1.16.5.
+            List<String> keys = new ArrayList<>(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                keys.add(entry.getKey());
+            }
+            Collections.sort(keys);
+            builder.append('{');
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(new JsonPrimitive(keys.get(i))).append(':');
+                append(builder, object.get(keys.get(i)));
+            }
+            builder.append('}');
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            builder.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                append(builder, array.get(i));
+            }
+            builder.append(']');
+        } else {
+            builder.append(element);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hydroline.beacon.provider.util;
+
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * OutputStream that hands fixed-size chunks to a sink as soon as they fill up, so large encoders
+ * (e.g. RailwayData MessagePack) never need the full output in memory. {@link #flush()} does not emit
+ * partial chunks; the trailing remainder is emitted on {@link #close()}.
+ */
+public final class ChunkingOutputStream extends OutputStream {
+    private final Sink sink;
+    private final byte[] buffer;
+    private int position;
+    private long totalBytes;
+    private int chunkCount;
+    private boolean closed;
+
+    public ChunkingOutputStream(int chunkSize, Sink sink) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be > 0");
+        }
+        this.sink = Objects.requireNonNull(sink, "sink");
+        this.buffer = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) {
+        buffer[position++] = (byte) b;
+        totalBytes++;
+        if (position == buffer.length) {
+            emit();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            int count = Math.min(len, buffer.length - position);
+            System.arraycopy(b, off, buffer, position, count);
+            position += count;
+            totalBytes += count;
+            off += count;
+            len -= count;
+            if (position == buffer.length) {
+                emit();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (position > 0) {
+            emit();
+        }
+    }
+
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    public int chunkCount() {
+        return chunkCount;
+    }
+
+    private void emit() {
+        byte[] chunk = new byte[position];
+        System.arraycopy(buffer, 0, chunk, 0, position);
+        position = 0;
+        sink.accept(chunkCount++, chunk);
+    }
+
+    public interface Sink {
+        void accept(int index, byte[] chunk);
+    }
+}
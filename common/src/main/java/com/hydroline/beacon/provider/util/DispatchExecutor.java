@@ -0,0 +1,66 @@
+package com.hydroline.beacon.provider.util;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool that runs Beacon actions off the thread a request arrived on (the Netty event loop for the
+ * gateway, the server thread for the plugin channel), so slow handlers cannot stall it.
+ */
+public final class DispatchExecutor {
+    private final LinkedBlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+
+    public DispatchExecutor(String threadName, int threads, int queueCapacity) {
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            queue,
+            new NamedThreadFactory(threadName),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * @return {@code false} if the queue is full or the executor is shutting down.
+     */
+    public boolean trySubmit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+
+    public int pendingTasks() {
+        return queue.size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String baseName;
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        NamedThreadFactory(String baseName) {
+            this.baseName = baseName;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, baseName + '-' + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.hydroline.beacon.provider.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code fields} / {@code exclude} request parameters. Both take dotted member paths such as
+ * {@code trains.carriages}; arrays are transparent, so a path applies to every element. With {@code fields} only
+ * the listed members (and everything under them) are kept, {@code exclude} then drops members from what is left.
+ * The top-level {@code version} is always kept so conditional requests keep working.
+ */
+public final class FieldProjection {
+    public static final FieldProjection ALL = new FieldProjection(null, null);
+
+    private static final String FIELDS = "fields";
+    private static final String EXCLUDE = "exclude";
+    private static final String ALWAYS_KEPT = "version";
+
+    private final Node include;
+    private final Node exclude;
+
+    private FieldProjection(Node include, Node exclude) {
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    /**
+     * @throws JsonParseException if either parameter is not an array of non-empty strings
+     */
+    public static FieldProjection parse(JsonObject payload) {
+        if (payload == null || (!payload.has(FIELDS) && !payload.has(EXCLUDE))) {
+            return ALL;
+        }
+        Node include = parsePaths(payload, FIELDS);
+        Node exclude = parsePaths(payload, EXCLUDE);
+        return include == null && exclude == null ? ALL : new FieldProjection(include, exclude);
+    }
+
+    private static Node parsePaths(JsonObject payload, String key) {
+        JsonElement element = payload.get(key);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (!element.isJsonArray()) {
+            throw new JsonParseException(key + " must be an array of field paths");
+        }
+        Node root = new Node();
+        for (JsonElement path : element.getAsJsonArray()) {
+            if (!path.isJsonPrimitive() || !path.getAsJsonPrimitive().isString() || path.getAsString().isEmpty()) {
+                throw new JsonParseException(key + " must be an array of field paths");
+            }
+            Node node = root;
+            for (String part : path.getAsString().split("\\.")) {
+                if (part.isEmpty()) {
+                    throw new JsonParseException("Invalid field path: " + path.getAsString());
+                }
+                node = node.child(part);
+            }
+            node.terminal = true;
+        }
+        return root;
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * @return whether top-level member {@code name} survives; lets handlers skip loading data nobody asked for.
+     */
+    public boolean keepsMember(String name) {
+        return root().enter(name) != null;
+    }
+
+    /**
+     * Returns a pruned copy of {@code payload}; the argument is left untouched.
+     */
+    public JsonObject apply(JsonObject payload) {
+        if (isAll() || payload == null) {
+            return payload;
+        }
+        return prune(payload, root()).getAsJsonObject();
+    }
+
+    /**
+     * Streaming writers apply the projection through {@link PayloadWriter}.
+     */
+    Scope root() {
+        return new Scope(include, exclude, true);
+    }
+
+    private static JsonElement prune(JsonElement element, Scope scope) {
+        if (scope.isFull()) {
+            return element;
+        }
+        if (element.isJsonArray()) {
+            JsonArray copy = new JsonArray();
+            for (JsonElement child : element.getAsJsonArray()) {
+                copy.add(prune(child, scope));
+            }
+            return copy;
+        }
+        if (!element.isJsonObject()) {
+            return element;
+        }
+        JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+            Scope child = scope.enter(entry.getKey());
+            if (child != null) {
+                copy.add(entry.getKey(), prune(entry.getValue(), child));
+            }
+        }
+        return copy;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private boolean terminal;
+
+        private Node child(String name) {
+            Node child = children.get(name);
+            if (child == null) {
+                child = new Node();
+                children.put(name, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Position in both path tries. A {@code null} include node means everything below is included, a {@code null}
+     * exclude node means nothing below is excluded.
+     */
+    static final class Scope {
+        private static final Scope FULL = new Scope(null, null, false);
+
+        private final Node include;
+        private final Node exclude;
+        private final boolean root;
+
+        private Scope(Node include, Node exclude, boolean root) {
+            this.include = include;
+            this.exclude = exclude;
+            this.root = root;
+        }
+
+        boolean isFull() {
+            return include == null && exclude == null;
+        }
+
+        /**
+         * @return the scope of member {@code name}, or {@code null} if the member is dropped.
+         */
+        Scope enter(String name) {
+            if (isFull()) {
+                return FULL;
+            }
+            if (root && ALWAYS_KEPT.equals(name)) {
+                return FULL;
+            }
+            Node nextInclude = null;
+            if (include != null) {
+                nextInclude = include.children.get(name);
+                if (nextInclude == null) {
+                    return null;
+                }
+                if (nextInclude.terminal) {
+                    nextInclude = null;
+                }
+            }
+            Node nextExclude = null;
+            if (exclude != null) {
+                nextExclude = exclude.children.get(name);
+                if (nextExclude != null && nextExclude.terminal) {
+                    return null;
+                }
+            }
+            return nextInclude == null && nextExclude == null ? FULL : new Scope(nextInclude, nextExclude, false);
+        }
+    }
+}
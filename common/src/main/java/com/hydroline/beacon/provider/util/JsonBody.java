@@ -0,0 +1,15 @@
+package com.hydroline.beacon.provider.util;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Writes one JSON value to a streaming writer; lets the same writer code target text or a tree.
+ * <p>
+ * There is no separate MessagePack sink: msgpack sessions receive the rendered bytes transcoded token by token
+ * (see {@code GatewayMsgpackCodec#packJson}), which never builds a tree either.
+ */
+@FunctionalInterface
+public interface JsonBody {
+    void write(JsonWriter writer) throws IOException;
+}
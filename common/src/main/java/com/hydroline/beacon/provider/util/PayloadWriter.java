@@ -0,0 +1,306 @@
+package com.hydroline.beacon.provider.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forwarding {@link JsonWriter} that applies the per-request payload options while a response is streamed:
+ * members outside the {@link FieldProjection} are swallowed, and with the string table enabled every value written
+ * through {@link #string(JsonWriter, String)} becomes an index into a {@code stringTable} array that is appended to
+ * the top-level object when it is closed.
+ */
+public final class PayloadWriter extends JsonWriter {
+    public static final String STRING_TABLE = "stringTable";
+
+    private final JsonWriter delegate;
+    private final FieldProjection.Scope rootScope;
+    private final Map<String, Integer> stringIndexes;
+    private final List<String> strings;
+    private final List<FieldProjection.Scope> stack = new ArrayList<>();
+    private FieldProjection.Scope pending;
+    private boolean skipNext;
+    private int skipDepth;
+
+    private PayloadWriter(JsonWriter delegate, FieldProjection projection, boolean stringTable) {
+        super(TreeJsonWriter.UNWRITABLE);
+        this.delegate = delegate;
+        this.rootScope = projection.root();
+        this.stringIndexes = stringTable ? new HashMap<String, Integer>() : null;
+        this.strings = stringTable ? new ArrayList<String>() : null;
+    }
+
+    /**
+     * @return {@code writer} itself when no option is active.
+     */
+    public static JsonWriter wrap(JsonWriter writer, FieldProjection projection, boolean stringTable) {
+        return projection.isAll() && !stringTable ? writer : new PayloadWriter(writer, projection, stringTable);
+    }
+
+    /**
+     * @return whether a member called {@code name} written next into the current object would survive projection;
+     * lets writers skip building a subtree that would be dropped anyway.
+     */
+    public static boolean keeps(JsonWriter writer, String name) {
+        return !(writer instanceof PayloadWriter) || ((PayloadWriter) writer).keeps(name);
+    }
+
+    /**
+     * Writes a string that is likely to repeat across the payload: a table index when the string table is enabled,
+     * the plain string otherwise.
+     */
+    public static void string(JsonWriter writer, String value) throws IOException {
+        if (writer instanceof PayloadWriter && value != null) {
+            ((PayloadWriter) writer).interned(value);
+        } else {
+            writer.value(value);
+        }
+    }
+
+    /**
+     * Writes a tree payload for handlers that build one instead of streaming. Every string below the top-level
+     * members goes through {@link #string(JsonWriter, String)}; top-level strings such as {@code version} stay plain.
+     */
+    public static void tree(JsonWriter writer, JsonElement payload) throws IOException {
+        tree(writer, payload, 0);
+    }
+
+    private static void tree(JsonWriter writer, JsonElement element, int depth) throws IOException {
+        if (element == null || element.isJsonNull()) {
+            writer.nullValue();
+        } else if (element.isJsonObject()) {
+            writer.beginObject();
+            for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                writer.name(member.getKey());
+                tree(writer, member.getValue(), depth + 1);
+            }
+            writer.endObject();
+        } else if (element.isJsonArray()) {
+            writer.beginArray();
+            for (JsonElement item : element.getAsJsonArray()) {
+                tree(writer, item, depth + 1);
+            }
+            writer.endArray();
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isString()) {
+                if (depth > 1) {
+                    string(writer, primitive.getAsString());
+                } else {
+                    writer.value(primitive.getAsString());
+                }
+            } else if (primitive.isBoolean()) {
+                writer.value(primitive.getAsBoolean());
+            } else {
+                writer.value(primitive.getAsNumber());
+            }
+        }
+    }
+
+    private boolean keeps(String name) {
+        return skipDepth == 0 && !stack.isEmpty() && stack.get(stack.size() - 1).enter(name) != null;
+    }
+
+    private void interned(String value) throws IOException {
+        if (strings == null) {
+            value(value);
+            return;
+        }
+        if (!admit()) {
+            return;
+        }
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            stringIndexes.put(value, index);
+            strings.add(value);
+        }
+        pending = null;
+        delegate.value(index.longValue());
+    }
+
+    /**
+     * @return whether the next value is written; consumes a pending skip.
+     */
+    private boolean admit() {
+        if (skipDepth > 0) {
+            return false;
+        }
+        if (skipNext) {
+            skipNext = false;
+            return false;
+        }
+        return true;
+    }
+
+    private FieldProjection.Scope valueScope() {
+        FieldProjection.Scope scope = pending;
+        pending = null;
+        if (scope != null) {
+            return scope;
+        }
+        return stack.isEmpty() ? rootScope : stack.get(stack.size() - 1);
+    }
+
+    private JsonWriter open(boolean object) throws IOException {
+        if (skipDepth > 0) {
+            skipDepth++;
+            return this;
+        }
+        if (skipNext) {
+            skipNext = false;
+            skipDepth = 1;
+            return this;
+        }
+        if (object) {
+            delegate.beginObject();
+        } else {
+            delegate.beginArray();
+        }
+        stack.add(valueScope());
+        return this;
+    }
+
+    private JsonWriter close(boolean object) throws IOException {
+        if (skipDepth > 0) {
+            skipDepth--;
+            return this;
+        }
+        stack.remove(stack.size() - 1);
+        if (object) {
+            if (stack.isEmpty() && strings != null) {
+                delegate.name(STRING_TABLE).beginArray();
+                for (String value : strings) {
+                    delegate.value(value);
+                }
+                delegate.endArray();
+            }
+            delegate.endObject();
+        } else {
+            delegate.endArray();
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        return open(false);
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        return close(false);
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        return open(true);
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        return close(true);
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (skipDepth > 0) {
+            return this;
+        }
+        FieldProjection.Scope scope = stack.isEmpty() ? null : stack.get(stack.size() - 1).enter(name);
+        if (scope == null) {
+            skipNext = true;
+            return this;
+        }
+        delegate.name(name);
+        pending = scope;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.jsonValue(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.nullValue();
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (admit()) {
+            pending = null;
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,44 @@
+package com.hydroline.beacon.provider.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a short task on the server thread from a worker and waits for it. Meant for the capture step of a query
+ * (grabbing references to world data); the mapping that follows stays on the worker.
+ */
+public final class ServerThreadCall {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerThreadCall.class);
+    private static final long TIMEOUT_MS = Long.getLong("beacon.serverThreadTimeoutMs", 5_000L);
+
+    private ServerThreadCall() {
+    }
+
+    /**
+     * @param serverThread the server's task executor; callers already on the server thread must run {@code task}
+     *                     directly instead
+     * @return the task's result, or {@code fallback} if it failed, returned {@code null} or did not finish in time
+     */
+    public static <T> T call(Executor serverThread, Supplier<T> task, T fallback) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(task, serverThread);
+        try {
+            T result = future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return result == null ? fallback : result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for the server thread", ex);
+        } catch (ExecutionException ex) {
+            LOGGER.warn("Server thread task failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            future.cancel(false);
+            LOGGER.warn("Server thread did not run task within {} ms", TIMEOUT_MS);
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,191 @@
+package com.hydroline.beacon.provider.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link JsonWriter} that assembles a {@link JsonElement} tree instead of text, so streaming writers can also
+ * back the older tree-returning APIs. Gson has the same thing internally, but that package is not exported by
+ * every Gson the loaders ship.
+ */
+public final class TreeJsonWriter extends JsonWriter {
+    /** Sink for {@link JsonWriter} subclasses that override every write; reaching it is a bug. */
+    static final Writer UNWRITABLE = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void flush() {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    private final List<JsonElement> stack = new ArrayList<>();
+    private String pendingName;
+    private JsonElement product = JsonNull.INSTANCE;
+
+    public TreeJsonWriter() {
+        super(UNWRITABLE);
+    }
+
+    /**
+     * Runs {@code body} against a fresh tree writer and returns what it wrote.
+     */
+    public static JsonElement build(JsonBody body) {
+        TreeJsonWriter writer = new TreeJsonWriter();
+        try {
+            body.write(writer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return writer.get();
+    }
+
+    /**
+     * @return the completed top-level value.
+     */
+    public JsonElement get() {
+        if (!stack.isEmpty()) {
+            throw new IllegalStateException("Unclosed container");
+        }
+        return product;
+    }
+
+    private void put(JsonElement value) throws IOException {
+        if (pendingName != null) {
+            JsonElement top = peek();
+            if (!(top instanceof JsonObject)) {
+                throw new IllegalStateException("Name outside of an object");
+            }
+            ((JsonObject) top).add(pendingName, value);
+            pendingName = null;
+        } else if (stack.isEmpty()) {
+            product = value;
+        } else if (peek() instanceof JsonArray) {
+            ((JsonArray) peek()).add(value);
+        } else {
+            throw new IllegalStateException("Value without a name");
+        }
+    }
+
+    private JsonElement peek() {
+        return stack.get(stack.size() - 1);
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        JsonArray array = new JsonArray();
+        put(array);
+        stack.add(array);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        if (stack.isEmpty() || pendingName != null || !(peek() instanceof JsonArray)) {
+            throw new IllegalStateException("No open array");
+        }
+        stack.remove(stack.size() - 1);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        JsonObject object = new JsonObject();
+        put(object);
+        stack.add(object);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        if (stack.isEmpty() || pendingName != null || !(peek() instanceof JsonObject)) {
+            throw new IllegalStateException("No open object");
+        }
+        stack.remove(stack.size() - 1);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        if (stack.isEmpty() || pendingName != null || !(peek() instanceof JsonObject)) {
+            throw new IllegalStateException("Name outside of an object");
+        }
+        pendingName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        put(value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) {
+        throw new UnsupportedOperationException("Raw JSON cannot be added to a tree");
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        put(JsonNull.INSTANCE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        put(new JsonPrimitive(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        put(value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        put(new JsonPrimitive(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        put(new JsonPrimitive(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        put(value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
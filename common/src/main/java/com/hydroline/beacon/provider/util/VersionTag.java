@@ -0,0 +1,67 @@
+package com.hydroline.beacon.provider.util;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Accumulates the inputs that identify a response's content into a short hex tag, used as the {@code version}
+ * clients send back in {@code ifNoneMatch}.
+ */
+public final class VersionTag {
+    private static final int TAG_BYTES = 8;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    private VersionTag(MessageDigest digest) {
+        this.digest = digest;
+    }
+
+    public static VersionTag start() {
+        try {
+            return new VersionTag(MessageDigest.getInstance("SHA-1"));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-1 not available", ex);
+        }
+    }
+
+    public VersionTag add(String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        return this;
+    }
+
+    public VersionTag add(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte) (value >>> shift));
+        }
+        return this;
+    }
+
+    public VersionTag add(byte[] data) {
+        digest.update(data);
+        return this;
+    }
+
+    /**
+     * @return a stream that feeds everything written to {@code out} into this tag as well.
+     */
+    public OutputStream wrap(OutputStream out) {
+        return new DigestOutputStream(out, digest);
+    }
+
+    public String finish() {
+        byte[] hash = digest.digest();
+        char[] text = new char[TAG_BYTES * 2];
+        for (int i = 0; i < TAG_BYTES; i++) {
+            text[i * 2] = HEX[(hash[i] >> 4) & 0x0f];
+            text[i * 2 + 1] = HEX[hash[i] & 0x0f];
+        }
+        return new String(text);
+    }
+}
@@ -0,0 +1,86 @@
+package com.hydroline.beacon.provider.create;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hydroline.beacon.provider.create.CreateNetworkSnapshot.EdgePolylinePoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CreatePolylineCodecTest {
+    private static final double STEP = 1.0 / CreatePolylineCodec.SCALE;
+
+    @Test
+    void roundTripsQuantizedPoints() {
+        List<EdgePolylinePoint> points = Arrays.asList(
+            new EdgePolylinePoint("e1", 0, 120.5, 64.0, -3000.25),
+            new EdgePolylinePoint("e1", 1, 121.015625, 64.0, -3001.5),
+            new EdgePolylinePoint("e1", 2, 100_000.0, -64.0, 29_999_984.0));
+
+        List<EdgePolylinePoint> decoded = CreatePolylineCodec.decode("e1", CreatePolylineCodec.encode(points));
+
+        assertEquals(points.size(), decoded.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals("e1", decoded.get(i).getEdgeId());
+            assertEquals(i, decoded.get(i).getSeq());
+            assertEquals(points.get(i).getX(), decoded.get(i).getX());
+            assertEquals(points.get(i).getY(), decoded.get(i).getY());
+            assertEquals(points.get(i).getZ(), decoded.get(i).getZ());
+        }
+    }
+
+    @Test
+    void roundsToTheNearestStep() {
+        List<EdgePolylinePoint> points = Collections.singletonList(new EdgePolylinePoint("e", 0, 1.003, -1.003, 0.0));
+
+        EdgePolylinePoint decoded = CreatePolylineCodec.decode("e", CreatePolylineCodec.encode(points)).get(0);
+
+        assertEquals(1.003, decoded.getX(), STEP / 2);
+        assertEquals(-1.003, decoded.getY(), STEP / 2);
+    }
+
+    @Test
+    void smallStepsTakeOneBytePerCoordinate() {
+        List<EdgePolylinePoint> points = new ArrayList<>();
+        points.add(new EdgePolylinePoint("e", 0, 0.0, 0.0, 0.0));
+        for (int i = 1; i <= 100; i++) {
+            points.add(new EdgePolylinePoint("e", i, i * 0.25, 0.0, -i * 0.125));
+        }
+
+        assertEquals(points.size() * 3, CreatePolylineCodec.encode(points).length);
+    }
+
+    @Test
+    void emptyPolylineEncodesToNothing() {
+        assertArrayEquals(new byte[0], CreatePolylineCodec.encode(Collections.<EdgePolylinePoint>emptyList()));
+        assertTrue(CreatePolylineCodec.decode("e", new byte[0]).isEmpty());
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] data = CreatePolylineCodec.encode(Collections.singletonList(new EdgePolylinePoint("e", 0, 5000.0, 70.0, -5000.0)));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> CreatePolylineCodec.decode("e", Arrays.copyOf(data, data.length - 1)));
+    }
+
+    @Test
+    void groupsByEdgeInFirstSeenOrder() {
+        List<EdgePolylinePoint> points = Arrays.asList(
+            new EdgePolylinePoint("b", 0, 0, 0, 0),
+            new EdgePolylinePoint("a", 0, 1, 0, 0),
+            new EdgePolylinePoint("b", 1, 2, 0, 0));
+
+        Map<String, List<EdgePolylinePoint>> grouped = CreatePolylineCodec.groupByEdge(points);
+
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(grouped.keySet()));
+        assertEquals(2, grouped.get("b").size());
+        assertEquals(2.0, grouped.get("b").get(1).getX());
+    }
+}
@@ -0,0 +1,86 @@
+package com.hydroline.beacon.provider.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonParseException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class GatewayCompressionTest {
+    private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+    @Test
+    void smallFramesAreFlaggedPlain() throws IOException {
+        byte[] body = "{\"type\":\"ping\"}".getBytes(StandardCharsets.UTF_8);
+
+        ByteBuf wrapped = GatewayCompression.DEFLATE.wrap(ALLOC, frame(body), 1024);
+        try {
+            assertEquals(body.length + 1, wrapped.readInt());
+            assertEquals(GatewayCompression.FLAG_PLAIN, wrapped.getByte(wrapped.readerIndex()));
+            ByteBuf unwrapped = GatewayCompression.DEFLATE.unwrap(ALLOC, wrapped);
+            assertSame(wrapped, unwrapped);
+            assertArrayEquals(body, ByteBufUtil.getBytes(unwrapped));
+        } finally {
+            wrapped.release();
+        }
+    }
+
+    @Test
+    void largeFramesAreDeflatedAndInflateBack() throws IOException {
+        StringBuilder json = new StringBuilder("{\"trains\":[");
+        for (int i = 0; i < 500; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"route\":\"Main Line\"}");
+        }
+        byte[] body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuf wrapped = GatewayCompression.DEFLATE.wrap(ALLOC, frame(body), 1024);
+        try {
+            assertEquals(wrapped.readableBytes() - GatewayServer.LENGTH_FIELD_BYTES, wrapped.readInt());
+            assertTrue(wrapped.readableBytes() < body.length);
+            assertEquals(GatewayCompression.FLAG_DEFLATE, wrapped.getByte(wrapped.readerIndex()));
+            ByteBuf inflated = GatewayCompression.DEFLATE.unwrap(ALLOC, wrapped);
+            try {
+                assertArrayEquals(body, ByteBufUtil.getBytes(inflated));
+            } finally {
+                inflated.release();
+            }
+        } finally {
+            wrapped.release();
+        }
+    }
+
+    @Test
+    void noneLeavesFramesUntouched() throws IOException {
+        ByteBuf frame = frame(new byte[] {1, 2, 3});
+        try {
+            assertSame(frame, GatewayCompression.NONE.wrap(ALLOC, frame, 0));
+            assertSame(frame, GatewayCompression.NONE.unwrap(ALLOC, frame));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void rejectsUnknownFlag() {
+        ByteBuf frame = Unpooled.wrappedBuffer(new byte[] {7, 1, 2});
+        try {
+            assertThrows(JsonParseException.class, () -> GatewayCompression.DEFLATE.unwrap(ALLOC, frame));
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static ByteBuf frame(byte[] body) {
+        return Unpooled.buffer(GatewayServer.LENGTH_FIELD_BYTES + body.length).writeInt(body.length).writeBytes(body);
+    }
+}
@@ -0,0 +1,151 @@
+package com.hydroline.beacon.provider.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
+import com.hydroline.beacon.provider.protocol.ResultCode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.io.IOException;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.ValueType;
+
+class GatewayMsgpackCodecTest {
+    private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+    @Test
+    void bodyRoundTripsThroughMessagePack() {
+        JsonObject body = parse("{\"name\":\"station\",\"count\":3,\"ratio\":0.25,\"enabled\":true,\"missing\":null,"
+            + "\"ids\":[1,-2,4611686018427387904],\"nested\":{\"list\":[{\"x\":1.5},\"text\"]}}");
+        UUID connectionId = UUID.randomUUID();
+
+        GatewayEnvelope envelope = roundTrip(GatewayMsgpackCodec.encode(ALLOC, GatewayMessageType.EVENT, connectionId, body));
+
+        assertEquals(GatewayMessageType.EVENT, envelope.type());
+        assertEquals(connectionId, envelope.connectionId());
+        assertEquals(body, envelope.body());
+    }
+
+    @Test
+    void integralIdsParsedFromJsonStayIntegral() {
+        JsonObject body = parse("{\"id\":9007199254740993}");
+
+        GatewayEnvelope envelope = roundTrip(GatewayMsgpackCodec.encode(ALLOC, GatewayMessageType.EVENT, null, body));
+
+        assertEquals(9007199254740993L, envelope.body().get("id").getAsLong());
+    }
+
+    @Test
+    void encodedPayloadPacksLikeTheTreePayload() {
+        JsonObject payload = parse("{\"version\":\"v1\",\"ids\":[1,-2,9223372036854775808],\"ratio\":1.0,"
+            + "\"empty\":{},\"none\":[],\"nested\":[{\"name\":\"\\u00e9\",\"on\":false},[[]],null]}");
+        BeaconResponse tree = BeaconResponse.builder("r1").result(ResultCode.OK).payload(payload).build();
+        BeaconResponse encoded = BeaconResponse.builder("r1").result(ResultCode.OK)
+            .encodedPayload(EncodedPayload.encode(payload)).build();
+
+        GatewayEnvelope fromTree = roundTrip(GatewayMsgpackCodec.encodeResponse(ALLOC, GatewayMessageType.RESPONSE, null, tree));
+        GatewayEnvelope fromBytes = roundTrip(GatewayMsgpackCodec.encodeResponse(ALLOC, GatewayMessageType.RESPONSE, null, encoded));
+
+        assertEquals(fromTree.body(), fromBytes.body());
+        JsonObject packed = fromBytes.body().getAsJsonObject("payload");
+        assertEquals(payload.getAsJsonArray("nested"), packed.getAsJsonArray("nested"));
+        assertEquals(-2L, packed.getAsJsonArray("ids").get(1).getAsLong());
+        assertEquals(1.0, packed.get("ratio").getAsDouble());
+    }
+
+    @Test
+    void chunkDataIsPackedAsBinary() {
+        JsonObject body = parse("{\"requestId\":\"r1\",\"index\":0,\"payload\":{\"dimension\":\"minecraft:overworld\"}}");
+        byte[] data = {0, 1, 2, (byte) 0xff};
+
+        ByteBuf frame = GatewayMsgpackCodec.encode(ALLOC, GatewayMessageType.RESPONSE_CHUNK, null, body, data);
+        try {
+            frame.skipBytes(GatewayServer.LENGTH_FIELD_BYTES);
+            MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(new ByteBufInputStream(frame));
+            JsonObject payload = null;
+            int size = unpacker.unpackMapHeader();
+            for (int i = 0; i < size; i++) {
+                if (!"body".equals(unpacker.unpackString())) {
+                    unpacker.skipValue();
+                    continue;
+                }
+                int bodySize = unpacker.unpackMapHeader();
+                for (int j = 0; j < bodySize; j++) {
+                    if (!"payload".equals(unpacker.unpackString())) {
+                        unpacker.skipValue();
+                        continue;
+                    }
+                    payload = new JsonObject();
+                    int payloadSize = unpacker.unpackMapHeader();
+                    for (int k = 0; k < payloadSize; k++) {
+                        String key = unpacker.unpackString();
+                        if ("data".equals(key)) {
+                            assertEquals(ValueType.BINARY, unpacker.getNextFormat().getValueType());
+                            assertArrayEquals(data, unpacker.readPayload(unpacker.unpackBinaryHeader()));
+                        } else {
+                            payload.add(key, GatewayMsgpackCodec.unpackElement(unpacker));
+                        }
+                    }
+                }
+            }
+            assertNotNull(payload);
+            assertEquals("minecraft:overworld", payload.get("dimension").getAsString());
+            assertEquals("binary", payload.get("encoding").getAsString());
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void requestBodyDecodesIntoBeaconMessage() {
+        JsonObject body = parse("{\"protocolVersion\":1,\"requestId\":\"abc\",\"action\":\"mtr:get_route_trains\","
+            + "\"payload\":{\"routeId\":42}}");
+
+        GatewayEnvelope envelope = roundTrip(GatewayMsgpackCodec.encode(ALLOC, GatewayMessageType.REQUEST, null, body));
+
+        BeaconMessage request = envelope.request();
+        assertNotNull(request);
+        assertEquals("abc", request.getRequestId());
+        assertEquals("mtr:get_route_trains", request.getAction());
+        assertEquals(42L, request.getPayload().get("routeId").getAsLong());
+    }
+
+    @Test
+    void rejectsNonMapEnvelope() {
+        ByteBuf frame = Unpooled.wrappedBuffer(new byte[] {(byte) 0x93, 1, 2, 3});
+        try {
+            assertThrows(JsonParseException.class, () -> GatewayMsgpackCodec.decode(frame));
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static GatewayEnvelope roundTrip(ByteBuf frame) {
+        try {
+            assertEquals(frame.readableBytes() - GatewayServer.LENGTH_FIELD_BYTES, frame.readInt());
+            return GatewayMsgpackCodec.decode(frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static JsonObject parse(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+}
@@ -0,0 +1,128 @@
+package com.hydroline.beacon.provider.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.protocol.BeaconMessage;
+import com.hydroline.beacon.provider.protocol.BeaconResponse;
+import com.hydroline.beacon.provider.protocol.ChannelConstants;
+import com.hydroline.beacon.provider.protocol.ResultCode;
+import com.hydroline.beacon.provider.transport.TransportContext;
+import com.hydroline.beacon.provider.transport.TransportKind;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DefaultBeaconProviderServiceTest {
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void identicalConcurrentRequestsShareOneExecution() throws Exception {
+        BlockingHandler handler = new BlockingHandler();
+        DefaultBeaconProviderService service = new DefaultBeaconProviderService(Collections.singletonList(handler));
+
+        Future<BeaconResponse> leader = callers.submit(() -> service.handle(request("a", 1), context()));
+        handler.entered.await(5, TimeUnit.SECONDS);
+        Future<BeaconResponse> follower = callers.submit(() -> service.handle(request("b", 1), context()));
+        awaitFollowerParked();
+        handler.release.countDown();
+
+        assertEquals("a", leader.get(5, TimeUnit.SECONDS).getRequestId());
+        BeaconResponse followed = follower.get(5, TimeUnit.SECONDS);
+        assertEquals("b", followed.getRequestId());
+        assertEquals(ResultCode.OK, followed.getResult());
+        assertEquals(1, followed.getPayload().get("call").getAsInt());
+        assertEquals(1, handler.calls.get());
+    }
+
+    @Test
+    void differentPayloadsRunSeparately() {
+        BlockingHandler handler = new BlockingHandler();
+        handler.release.countDown();
+        DefaultBeaconProviderService service = new DefaultBeaconProviderService(Collections.singletonList(handler));
+
+        service.handle(request("a", 1), context());
+        service.handle(request("b", 2), context());
+
+        assertEquals(2, handler.calls.get());
+    }
+
+    @Test
+    void finishedRequestsAreNotReused() {
+        BlockingHandler handler = new BlockingHandler();
+        handler.release.countDown();
+        DefaultBeaconProviderService service = new DefaultBeaconProviderService(Collections.singletonList(handler));
+
+        service.handle(request("a", 1), context());
+        BeaconResponse second = service.handle(request("b", 1), context());
+
+        assertEquals(2, second.getPayload().get("call").getAsInt());
+    }
+
+    /**
+     * The follower joins the leader's future; wait until it is parked there before releasing the leader.
+     */
+    private static void awaitFollowerParked() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                for (StackTraceElement frame : thread.getStackTrace()) {
+                    if (frame.getMethodName().equals("join") && frame.getClassName().equals(CompletableFuture.class.getName())) {
+                        return;
+                    }
+                }
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static BeaconMessage request(String requestId, int key) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("key", key);
+        return new BeaconMessage(ChannelConstants.PROTOCOL_VERSION, requestId, BlockingHandler.ACTION, payload);
+    }
+
+    private static TransportContext context() {
+        return new TransportContext(null, TransportKind.NETTY_GATEWAY, Instant.now());
+    }
+
+    private static final class BlockingHandler implements BeaconActionHandler {
+        private static final String ACTION = "test:blocking";
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String action() {
+            return ACTION;
+        }
+
+        @Override
+        public BeaconResponse handle(BeaconMessage message, TransportContext context) {
+            int call = calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            JsonObject payload = new JsonObject();
+            payload.addProperty("call", call);
+            return BeaconResponse.builder(message.getRequestId()).payload(payload).build();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.hydroline.beacon.provider.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.hydroline.beacon.provider.protocol.EncodedPayload;
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+    @Test
+    void accountsKeyAndPayloadBytes() {
+        ResponseCache cache = new ResponseCache(10_000);
+        EncodedPayload payload = payload(100);
+
+        cache.put("k1", payload);
+
+        assertSame(payload, cache.get("k1"));
+        assertEquals(weight("k1", payload), cache.sizeBytes());
+    }
+
+    @Test
+    void replacingAnEntryDoesNotCountItTwice() {
+        ResponseCache cache = new ResponseCache(10_000);
+        cache.put("k1", payload(100));
+        EncodedPayload replacement = payload(300);
+
+        cache.put("k1", replacement);
+
+        assertSame(replacement, cache.get("k1"));
+        assertEquals(weight("k1", replacement), cache.sizeBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUntilWithinBudget() {
+        EncodedPayload payload = payload(200);
+        long entry = weight("k1", payload);
+        ResponseCache cache = new ResponseCache(entry * 4);
+        cache.put("k1", payload);
+        cache.put("k2", payload);
+        cache.put("k3", payload);
+        cache.put("k4", payload);
+        assertNotNull(cache.get("k1"));
+
+        cache.put("k5", payload);
+
+        assertNull(cache.get("k2"));
+        assertNotNull(cache.get("k1"));
+        assertNotNull(cache.get("k3"));
+        assertNotNull(cache.get("k4"));
+        assertNotNull(cache.get("k5"));
+        assertEquals(entry * 4, cache.sizeBytes());
+    }
+
+    @Test
+    void skipsEntriesLargerThanAQuarterOfTheBudget() {
+        ResponseCache cache = new ResponseCache(1_000);
+
+        cache.put("big", payload(400));
+
+        assertNull(cache.get("big"));
+        assertEquals(0L, cache.sizeBytes());
+    }
+
+    @Test
+    void zeroBudgetDisablesTheCache() {
+        assertFalse(new ResponseCache(0).isEnabled());
+        assertFalse(new ResponseCache(-1).isEnabled());
+        assertTrue(new ResponseCache(1).isEnabled());
+    }
+
+    private static EncodedPayload payload(int approximateBytes) {
+        JsonObject object = new JsonObject();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < approximateBytes; i++) {
+            text.append('x');
+        }
+        object.addProperty("text", text.toString());
+        return EncodedPayload.encode(object);
+    }
+
+    private static long weight(String key, EncodedPayload payload) {
+        return payload.sizeBytes() + 2L * key.length();
+    }
+}
@@ -0,0 +1,84 @@
+package com.hydroline.beacon.provider.transport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ChannelFragmentsTest {
+    @Test
+    void messagesThatFitAreSentAsIs() {
+        byte[] message = "{\"action\":\"beacon:ping\"}".getBytes(StandardCharsets.UTF_8);
+
+        List<byte[]> packets = ChannelFragments.split(message, 1, 64);
+
+        assertEquals(1, packets.size());
+        assertSame(message, packets.get(0));
+        assertFalse(ChannelFragments.isFragment(packets.get(0)));
+    }
+
+    @Test
+    void largeMessagesAreSplitIntoHeaderedSlices() {
+        byte[] message = bytes(250);
+
+        List<byte[]> packets = ChannelFragments.split(message, 7, 64);
+
+        int sliceBytes = 64 - ChannelFragments.HEADER_BYTES;
+        assertEquals((250 + sliceBytes - 1) / sliceBytes, packets.size());
+        for (int i = 0; i < packets.size(); i++) {
+            byte[] packet = packets.get(i);
+            assertTrue(ChannelFragments.isFragment(packet));
+            assertTrue(packet.length <= 64);
+            ChannelFragments.Fragment fragment = ChannelFragments.Fragment.parse(packet);
+            assertEquals(7, fragment.messageId);
+            assertEquals(i, fragment.index);
+            assertEquals(packets.size(), fragment.count);
+        }
+    }
+
+    @Test
+    void splitAndAssembleRoundTrip() {
+        byte[] message = bytes(10_000);
+        List<byte[]> packets = ChannelFragments.split(message, 3, 1000);
+        FragmentAssembler assembler = new FragmentAssembler();
+        UUID player = UUID.randomUUID();
+
+        byte[] joined = null;
+        for (byte[] packet : packets) {
+            joined = assembler.accept(player, packet, 0L);
+        }
+
+        assertArrayEquals(message, joined);
+    }
+
+    @Test
+    void rejectsMessagesNeedingTooManyFragments() {
+        byte[] message = new byte[ChannelFragments.MAX_FRAGMENTS + 1];
+
+        assertThrows(IllegalArgumentException.class,
+            () -> ChannelFragments.split(message, 1, ChannelFragments.HEADER_BYTES + 1));
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ChannelFragments.Fragment.parse(new byte[] {ChannelFragments.MARKER, 0, 0}));
+        byte[] outOfRange = {ChannelFragments.MARKER, 0, 0, 0, 1, 0, 2, 0, 2, 42};
+        assertThrows(IllegalArgumentException.class, () -> ChannelFragments.Fragment.parse(outOfRange));
+    }
+
+    static byte[] bytes(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,90 @@
+package com.hydroline.beacon.provider.transport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class FragmentAssemblerTest {
+    private final FragmentAssembler assembler = new FragmentAssembler();
+    private final UUID player = UUID.randomUUID();
+
+    @Test
+    void assemblesFragmentsArrivingOutOfOrder() {
+        byte[] message = ChannelFragmentsTest.bytes(300);
+        List<byte[]> packets = ChannelFragments.split(message, 1, 100);
+
+        assertNull(assembler.accept(player, packets.get(2), 0L));
+        assertNull(assembler.accept(player, packets.get(0), 0L));
+        assertNull(assembler.accept(player, packets.get(3), 0L));
+
+        assertArrayEquals(message, assembler.accept(player, packets.get(1), 0L));
+    }
+
+    @Test
+    void duplicateFragmentDropsThePartialMessage() {
+        List<byte[]> packets = ChannelFragments.split(ChannelFragmentsTest.bytes(300), 1, 100);
+        assembler.accept(player, packets.get(0), 0L);
+
+        assertThrows(IllegalArgumentException.class, () -> assembler.accept(player, packets.get(0), 0L));
+
+        // The message starts over: the earlier fragment is gone, so the rest alone does not complete it.
+        for (int i = 1; i < packets.size(); i++) {
+            assertNull(assembler.accept(player, packets.get(i), 0L));
+        }
+    }
+
+    @Test
+    void rejectsAChangedFragmentCount() {
+        assembler.accept(player, ChannelFragments.split(ChannelFragmentsTest.bytes(300), 1, 100).get(0), 0L);
+        byte[] other = ChannelFragments.split(ChannelFragmentsTest.bytes(500), 1, 100).get(1);
+
+        assertThrows(IllegalArgumentException.class, () -> assembler.accept(player, other, 0L));
+    }
+
+    @Test
+    void limitsUnfinishedMessagesPerPlayer() {
+        for (int id = 0; id < 4; id++) {
+            assembler.accept(player, ChannelFragments.split(ChannelFragmentsTest.bytes(300), id, 100).get(0), 0L);
+        }
+        byte[] fifth = ChannelFragments.split(ChannelFragmentsTest.bytes(300), 4, 100).get(0);
+
+        assertThrows(IllegalArgumentException.class, () -> assembler.accept(player, fifth, 0L));
+        assertNull(assembler.accept(UUID.randomUUID(), fifth, 0L));
+    }
+
+    @Test
+    void rejectsMessagesOverTheSizeLimit() {
+        List<byte[]> packets = ChannelFragments.split(new byte[1024 * 1024 + 1], 1, 32 * 1024);
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            for (byte[] packet : packets) {
+                assembler.accept(player, packet, 0L);
+            }
+        });
+    }
+
+    @Test
+    void pruneDropsStalePartialMessages() {
+        List<byte[]> packets = ChannelFragments.split(ChannelFragmentsTest.bytes(200), 1, 100);
+        assembler.accept(player, packets.get(0), 0L);
+
+        assembler.prune(60_000L);
+
+        assertNull(assembler.accept(player, packets.get(1), 60_000L));
+        assertNull(assembler.accept(player, packets.get(2), 60_000L));
+    }
+
+    @Test
+    void forgetDropsAPlayersPartialMessages() {
+        List<byte[]> packets = ChannelFragments.split(ChannelFragmentsTest.bytes(200), 1, 100);
+        assembler.accept(player, packets.get(0), 0L);
+
+        assembler.forget(player);
+
+        assertNull(assembler.accept(player, packets.get(1), 0L));
+    }
+}
@@ -0,0 +1,92 @@
+package com.hydroline.beacon.provider.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+class FieldProjectionTest {
+    private static final String NETWORK = "{\"version\":\"v1\",\"timestamp\":5,"
+        + "\"trains\":[{\"id\":1,\"name\":\"A\",\"carriages\":[{\"id\":10,\"type\":\"loco\"},{\"id\":11,\"type\":\"car\"}]},"
+        + "{\"id\":2,\"name\":\"B\",\"carriages\":[]}],"
+        + "\"groups\":[{\"id\":\"g1\",\"color\":\"RED\"}]}";
+
+    @Test
+    void excludeDropsAnArrayValuedMember() {
+        JsonObject result = projection("{\"exclude\":[\"trains\"]}").apply(parse(NETWORK));
+
+        assertEquals(parse("{\"version\":\"v1\",\"timestamp\":5,\"groups\":[{\"id\":\"g1\",\"color\":\"RED\"}]}"), result);
+    }
+
+    @Test
+    void nestedPathsApplyToEveryArrayElement() {
+        JsonObject result = projection("{\"fields\":[\"trains.carriages.type\"]}").apply(parse(NETWORK));
+
+        assertEquals(parse("{\"version\":\"v1\",\"trains\":[{\"carriages\":[{\"type\":\"loco\"},{\"type\":\"car\"}]},"
+            + "{\"carriages\":[]}]}"), result);
+    }
+
+    @Test
+    void excludeAppliesWithinFields() {
+        JsonObject result = projection("{\"fields\":[\"trains\"],\"exclude\":[\"trains.carriages\",\"trains.name\"]}")
+            .apply(parse(NETWORK));
+
+        assertEquals(parse("{\"version\":\"v1\",\"trains\":[{\"id\":1},{\"id\":2}]}"), result);
+    }
+
+    @Test
+    void topLevelVersionIsAlwaysKept() {
+        JsonObject payload = parse("{\"version\":\"v1\",\"groups\":[{\"id\":\"g1\",\"version\":3}]}");
+
+        assertEquals(parse("{\"version\":\"v1\",\"groups\":[{\"id\":\"g1\"}]}"),
+            projection("{\"fields\":[\"groups.id\"]}").apply(payload));
+        assertEquals(parse("{\"version\":\"v1\"}"), projection("{\"exclude\":[\"version\",\"groups\"]}").apply(payload));
+    }
+
+    @Test
+    void applyLeavesTheArgumentUntouched() {
+        JsonObject payload = parse(NETWORK);
+
+        projection("{\"exclude\":[\"trains.carriages\"]}").apply(payload);
+
+        assertEquals(parse(NETWORK), payload);
+    }
+
+    @Test
+    void keepsMemberReflectsTopLevelSelection() {
+        FieldProjection projection = projection("{\"fields\":[\"trains.id\"],\"exclude\":[\"groups\"]}");
+
+        assertTrue(projection.keepsMember("trains"));
+        assertTrue(projection.keepsMember("version"));
+        assertFalse(projection.keepsMember("groups"));
+        assertFalse(projection.keepsMember("timestamp"));
+    }
+
+    @Test
+    void withoutParametersEverythingIsKept() {
+        assertSame(FieldProjection.ALL, projection("{\"dimension\":\"minecraft:overworld\"}"));
+        assertSame(FieldProjection.ALL, projection("{\"fields\":null}"));
+    }
+
+    @Test
+    void rejectsMalformedPaths() {
+        assertThrows(JsonParseException.class, () -> projection("{\"fields\":\"trains\"}"));
+        assertThrows(JsonParseException.class, () -> projection("{\"fields\":[\"\"]}"));
+        assertThrows(JsonParseException.class, () -> projection("{\"exclude\":[\"trains..id\"]}"));
+        assertThrows(JsonParseException.class, () -> projection("{\"exclude\":[1]}"));
+    }
+
+    static FieldProjection projection(String params) {
+        return FieldProjection.parse(parse(params));
+    }
+
+    static JsonObject parse(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+}
@@ -0,0 +1,171 @@
+package com.hydroline.beacon.provider.util;
+
+import static com.hydroline.beacon.provider.util.FieldProjectionTest.parse;
+import static com.hydroline.beacon.provider.util.FieldProjectionTest.projection;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+class PayloadWriterTest {
+    private static final Gson GSON = new Gson();
+    private static final String NETWORK = "{\"version\":\"v1\",\"timestamp\":5,"
+        + "\"trains\":[{\"id\":1,\"name\":\"A\",\"carriages\":[{\"id\":10,\"type\":\"loco\"},{\"id\":11,\"type\":\"car\"}],"
+        + "\"position\":{\"x\":1.5,\"y\":null}},{\"id\":2,\"name\":\"B\",\"carriages\":[],\"position\":{}}],"
+        + "\"groups\":[{\"id\":\"g1\",\"color\":\"RED\"}],\"matrix\":[[1,2],[3]],\"enabled\":true}";
+
+    @Test
+    void streamingMatchesApplyOnTheTree() throws IOException {
+        String[] cases = {
+            "{\"exclude\":[\"trains\"]}",
+            "{\"exclude\":[\"matrix\",\"trains.position\"]}",
+            "{\"fields\":[\"trains.carriages.type\"]}",
+            "{\"fields\":[\"trains.position.x\",\"groups\"]}",
+            "{\"fields\":[\"trains\"],\"exclude\":[\"trains.carriages\",\"trains.name\"]}",
+            "{\"fields\":[\"missing\"]}",
+            "{\"exclude\":[\"version\"]}"
+        };
+        JsonObject payload = parse(NETWORK);
+        for (String params : cases) {
+            FieldProjection projection = projection(params);
+
+            assertEquals(projection.apply(payload), JsonParser.parseString(stream(payload, projection)), params);
+        }
+    }
+
+    @Test
+    void keepsIsFalseInsideASkippedSubtree() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = PayloadWriter.wrap(new JsonWriter(out), projection("{\"exclude\":[\"trains\"]}"), false);
+
+        writer.beginObject();
+        assertFalse(PayloadWriter.keeps(writer, "trains"));
+        writer.name("trains").beginArray().beginObject();
+        assertFalse(PayloadWriter.keeps(writer, "id"));
+        writer.name("id").value(1);
+        writer.endObject().endArray();
+        assertTrue(PayloadWriter.keeps(writer, "groups"));
+        writer.name("groups").beginArray().endArray();
+        writer.endObject();
+        writer.flush();
+
+        assertEquals("{\"groups\":[]}", out.toString());
+    }
+
+    @Test
+    void keepsIsTrueForPlainWriters() {
+        JsonWriter writer = new JsonWriter(new StringWriter());
+
+        assertTrue(PayloadWriter.keeps(writer, "anything"));
+        assertSame(writer, PayloadWriter.wrap(writer, FieldProjection.ALL, false));
+    }
+
+    @Test
+    void stringTableIndexesSkipProjectedOutValues() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = PayloadWriter.wrap(new JsonWriter(out), projection("{\"exclude\":[\"hidden\",\"items.note\"]}"), true);
+
+        writer.beginObject();
+        writer.name("first").beginArray();
+        PayloadWriter.string(writer, "x");
+        writer.endArray();
+        writer.name("hidden").beginArray();
+        PayloadWriter.string(writer, "y");
+        writer.beginObject().name("deep");
+        PayloadWriter.string(writer, "w");
+        writer.endObject().endArray();
+        writer.name("items").beginArray().beginObject();
+        writer.name("note");
+        PayloadWriter.string(writer, "v");
+        writer.name("name");
+        PayloadWriter.string(writer, "z");
+        writer.endObject().endArray();
+        writer.name("last");
+        PayloadWriter.string(writer, "x");
+        writer.endObject();
+        writer.flush();
+
+        assertEquals(parse("{\"first\":[0],\"items\":[{\"name\":1}],\"last\":0,\"stringTable\":[\"x\",\"z\"]}"),
+            JsonParser.parseString(out.toString()));
+    }
+
+    @Test
+    void stringTableIsAppendedOnceWhenTheTopLevelObjectCloses() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = PayloadWriter.wrap(new JsonWriter(out), FieldProjection.ALL, true);
+
+        writer.beginObject();
+        writer.name("outer").beginObject().name("inner").beginObject().name("name");
+        PayloadWriter.string(writer, "a");
+        writer.endObject().endObject();
+        writer.name("list").beginArray().beginObject().name("name");
+        PayloadWriter.string(writer, "b");
+        writer.endObject().endArray();
+        writer.name("plain").value("a");
+        writer.endObject();
+        writer.flush();
+
+        assertEquals("{\"outer\":{\"inner\":{\"name\":0}},\"list\":[{\"name\":1}],\"plain\":\"a\","
+            + "\"stringTable\":[\"a\",\"b\"]}", out.toString());
+    }
+
+    @Test
+    void withoutStringTableStringsStayPlain() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = PayloadWriter.wrap(new JsonWriter(out), projection("{\"exclude\":[\"hidden\"]}"), false);
+
+        writer.beginObject().name("name");
+        PayloadWriter.string(writer, "a");
+        writer.name("hidden");
+        PayloadWriter.string(writer, "b");
+        writer.endObject();
+        writer.flush();
+
+        assertEquals("{\"name\":\"a\"}", out.toString());
+    }
+
+    @Test
+    void treePayloadsInternOnlyBelowTheTopLevelMembers() throws IOException {
+        JsonObject payload = parse("{\"version\":\"v1\",\"name\":\"top\",\"list\":[\"a\",\"b\",\"a\"],"
+            + "\"object\":{\"key\":\"b\",\"count\":2,\"nested\":[{\"key\":\"top\"}]}}");
+        StringWriter out = new StringWriter();
+        JsonWriter writer = PayloadWriter.wrap(new JsonWriter(out), FieldProjection.ALL, true);
+
+        PayloadWriter.tree(writer, payload);
+        writer.flush();
+
+        assertEquals("{\"version\":\"v1\",\"name\":\"top\",\"list\":[0,1,0],"
+            + "\"object\":{\"key\":1,\"count\":2,\"nested\":[{\"key\":2}]},\"stringTable\":[\"a\",\"b\",\"top\"]}",
+            out.toString());
+    }
+
+    @Test
+    void treePayloadsMatchApplyWithoutStringTable() throws IOException {
+        JsonObject payload = parse(NETWORK);
+        FieldProjection projection = projection("{\"fields\":[\"trains\"],\"exclude\":[\"trains.carriages\"]}");
+        StringWriter out = new StringWriter();
+        JsonWriter writer = PayloadWriter.wrap(new JsonWriter(out), projection, false);
+
+        PayloadWriter.tree(writer, payload);
+        writer.flush();
+
+        assertEquals(projection.apply(payload), JsonParser.parseString(out.toString()));
+    }
+
+    private static String stream(JsonElement payload, FieldProjection projection) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        GSON.getAdapter(JsonElement.class).write(PayloadWriter.wrap(writer, projection, false), payload);
+        writer.flush();
+        return out.toString();
+    }
+}
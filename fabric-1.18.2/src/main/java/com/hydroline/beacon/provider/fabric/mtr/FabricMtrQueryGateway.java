@@ -13,6 +13,7 @@ import com.hydroline.beacon.provider.mtr.MtrModels.TrainStatus;
 import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.mtr.MtrRailwayDataAccess;
 import com.hydroline.beacon.provider.mtr.MtrSnapshotCache;
+import com.hydroline.beacon.provider.util.ServerThreadCall;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -130,11 +131,17 @@ public final class FabricMtrQueryGateway implements MtrQueryGateway {
         return snapshotCache.get();
     }
 
+    /**
+     * @return {@code null} if the server thread did not run the capture in time; see {@link MtrSnapshotCache}.
+     */
     private List<MtrDimensionSnapshot> captureSnapshotsNow() {
         MinecraftServer server = serverSupplier.get();
         if (server == null) {
             return Collections.emptyList();
         }
+        if (!server.isSameThread()) {
+            return ServerThreadCall.call(server, this::captureSnapshotsNow, null);
+        }
         List<MtrDimensionSnapshot> snapshots = new ArrayList<>();
         try {
             for (ServerLevel level : server.getAllLevels()) {
@@ -5,8 +5,6 @@ import com.hydroline.beacon.provider.create.CreateQueryRegistry;
 import com.hydroline.beacon.provider.fabric.mtr.FabricMtrQueryGateway;
 import com.hydroline.beacon.provider.gateway.BeaconGatewayManager;
 import com.hydroline.beacon.provider.protocol.ChannelConstants;
-import com.hydroline.beacon.provider.protocol.MessageSerializer;
-import com.hydroline.beacon.provider.protocol.BeaconResponse;
 import com.hydroline.beacon.provider.service.BeaconProviderService;
 import com.hydroline.beacon.provider.service.BeaconServiceFactory;
 import com.hydroline.beacon.provider.transport.ChannelMessageRouter;
@@ -15,7 +13,9 @@ import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.mtr.MtrQueryRegistry;
 import java.util.UUID;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.network.FriendlyByteBuf;
@@ -52,14 +52,18 @@ public final class FabricBeaconNetwork {
             MtrQueryRegistry.register(MtrQueryGateway.UNAVAILABLE);
             CreateQueryRegistry.register(CreateQueryGateway.UNAVAILABLE);
             gatewayManager.stop();
+            router.shutdown();
+            service.close();
         });
+        ServerTickEvents.END_SERVER_TICK.register(server -> router.tick());
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> router.forget(handler.player.getUUID()));
     }
 
     private void registerChannelReceiver() {
         ServerPlayNetworking.registerGlobalReceiver(CHANNEL_ID, (server, player, handler, buf, responseSender) -> {
             byte[] bytes = new byte[buf.readableBytes()];
             buf.readBytes(bytes);
-            server.execute(() -> router.handleIncoming(player.getUUID(), bytes));
+            router.handleIncoming(player.getUUID(), bytes);
         });
     }
 
@@ -71,19 +75,19 @@ public final class FabricBeaconNetwork {
         }
 
         @Override
-        public void reply(UUID playerUuid, BeaconResponse response) {
+        public boolean send(UUID playerUuid, byte[] packet) {
             MinecraftServer current = server;
             if (current == null) {
-                return;
+                return false;
             }
             ServerPlayer player = current.getPlayerList().getPlayer(playerUuid);
             if (player == null) {
-                return;
+                return false;
             }
-            byte[] bytes = MessageSerializer.serialize(response);
-            FriendlyByteBuf reply = PacketByteBufs.create();
-            reply.writeBytes(bytes);
-            ServerPlayNetworking.send(player, CHANNEL_ID, reply);
+            FriendlyByteBuf buf = PacketByteBufs.create();
+            buf.writeBytes(packet);
+            ServerPlayNetworking.send(player, CHANNEL_ID, buf);
+            return true;
         }
     }
 }
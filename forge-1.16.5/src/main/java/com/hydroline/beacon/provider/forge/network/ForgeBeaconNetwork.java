@@ -4,9 +4,7 @@ import com.hydroline.beacon.provider.forge.mtr.ForgeMtrQueryGateway;
 import com.hydroline.beacon.provider.gateway.BeaconGatewayManager;
 import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.mtr.MtrQueryRegistry;
-import com.hydroline.beacon.provider.protocol.BeaconResponse;
 import com.hydroline.beacon.provider.protocol.ChannelConstants;
-import com.hydroline.beacon.provider.protocol.MessageSerializer;
 import com.hydroline.beacon.provider.service.BeaconProviderService;
 import com.hydroline.beacon.provider.service.BeaconServiceFactory;
 import com.hydroline.beacon.provider.transport.ChannelMessageRouter;
@@ -26,6 +24,7 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.server.FMLServerStartedEvent;
@@ -65,6 +64,15 @@ public final class ForgeBeaconNetwork {
         messenger.setServer(null);
         MtrQueryRegistry.register(MtrQueryGateway.UNAVAILABLE);
         gatewayManager.stop();
+        router.shutdown();
+        service.close();
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            router.tick();
+        }
     }
 
     @SubscribeEvent
@@ -78,6 +86,7 @@ public final class ForgeBeaconNetwork {
     public void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
         if (event.getPlayer() instanceof ServerPlayer) {
             detachHandler((ServerPlayer) event.getPlayer());
+            router.forget(event.getPlayer().getUUID());
         }
     }
 
@@ -141,7 +150,7 @@ public final class ForgeBeaconNetwork {
             byte[] bytes = new byte[payload.readableBytes()];
             payload.readBytes(bytes);
             if (messenger.getServer() != null) {
-                messenger.getServer().execute(() -> router.handleIncoming(playerUuid, bytes));
+                router.handleIncoming(playerUuid, bytes);
             }
         }
 
@@ -163,19 +172,19 @@ public final class ForgeBeaconNetwork {
         }
 
         @Override
-        public void reply(UUID playerUuid, BeaconResponse response) {
+        public boolean send(UUID playerUuid, byte[] packet) {
             MinecraftServer current = server;
             if (current == null) {
-                return;
+                return false;
             }
             ServerPlayer player = current.getPlayerList().getPlayer(playerUuid);
             if (player == null) {
-                return;
+                return false;
             }
-            byte[] bytes = MessageSerializer.serialize(response);
-            FriendlyByteBuf reply = new FriendlyByteBuf(Unpooled.buffer(bytes.length));
-            reply.writeBytes(bytes);
+            FriendlyByteBuf reply = new FriendlyByteBuf(Unpooled.buffer(packet.length));
+            reply.writeBytes(packet);
             player.connection.send(new ClientboundCustomPayloadPacket(CHANNEL_ID, reply));
+            return true;
         }
     }
 }
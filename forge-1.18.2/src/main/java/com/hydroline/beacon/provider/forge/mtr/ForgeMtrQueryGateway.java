@@ -13,12 +13,11 @@ import com.hydroline.beacon.provider.mtr.MtrModels.TrainStatus;
 import com.hydroline.beacon.provider.mtr.MtrQueryGateway;
 import com.hydroline.beacon.provider.mtr.MtrRailwayDataAccess;
 import com.hydroline.beacon.provider.mtr.MtrSnapshotCache;
+import com.hydroline.beacon.provider.util.ServerThreadCall;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import mtr.data.RailwayData;
@@ -30,8 +29,8 @@ import org.slf4j.LoggerFactory;
 
 public final class ForgeMtrQueryGateway implements MtrQueryGateway {
     private static final Logger LOGGER = LoggerFactory.getLogger(ForgeMtrQueryGateway.class);
-    private final Supplier<MinecraftServer> serverSupplier;
     private static final long SNAPSHOT_CACHE_TTL_MILLIS = 1000L;
+    private final Supplier<MinecraftServer> serverSupplier;
     private final MtrSnapshotCache snapshotCache;
 
     public ForgeMtrQueryGateway(Supplier<MinecraftServer> serverSupplier) {
@@ -41,119 +40,108 @@ public final class ForgeMtrQueryGateway implements MtrQueryGateway {
 
     @Override
     public boolean isReady() {
-        return !executeOnServer(this::captureSnapshots, Collections.emptyList()).isEmpty();
+        return !captureSnapshots().isEmpty();
     }
 
     @Override
     public List<DimensionOverview> fetchNetworkOverview() {
-        return executeOnServer(() -> MtrDataMapper.buildNetworkOverview(captureSnapshots()), Collections.emptyList());
+        return MtrDataMapper.buildNetworkOverview(captureSnapshots());
     }
 
     @Override
     public Optional<RouteDetail> fetchRouteDetail(String dimensionId, long routeId) {
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            return findSnapshot(snapshots, dimensionId)
-                .flatMap(snapshot -> MtrDataMapper.buildRouteDetail(snapshot, routeId));
-        }, Optional.empty());
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        return findSnapshot(snapshots, dimensionId)
+            .flatMap(snapshot -> MtrDataMapper.buildRouteDetail(snapshot, routeId));
     }
 
     @Override
     public List<DepotInfo> fetchDepots(String dimensionId) {
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            if (dimensionId == null || dimensionId.isEmpty()) {
-                return snapshots.stream()
-                    .flatMap(snapshot -> MtrDataMapper.buildDepots(snapshot).stream())
-                    .collect(Collectors.toList());
-            }
-            return findSnapshot(snapshots, dimensionId)
-                .map(MtrDataMapper::buildDepots)
-                .orElseGet(Collections::emptyList);
-        }, Collections.emptyList());
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        if (dimensionId == null || dimensionId.isEmpty()) {
+            return snapshots.stream()
+                .flatMap(snapshot -> MtrDataMapper.buildDepots(snapshot).stream())
+                .collect(Collectors.toList());
+        }
+        return findSnapshot(snapshots, dimensionId)
+            .map(MtrDataMapper::buildDepots)
+            .orElseGet(Collections::emptyList);
     }
 
     @Override
     public List<FareAreaInfo> fetchFareAreas(String dimensionId) {
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            return findSnapshot(snapshots, dimensionId)
-                .map(MtrDataMapper::buildFareAreas)
-                .orElseGet(Collections::emptyList);
-        }, Collections.emptyList());
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        return findSnapshot(snapshots, dimensionId)
+            .map(MtrDataMapper::buildFareAreas)
+            .orElseGet(Collections::emptyList);
     }
 
     @Override
     public NodePage fetchNodes(String dimensionId, String cursor, int limit) {
-        NodePage fallback = new NodePage(dimensionId == null ? "" : dimensionId, Collections.emptyList(), null);
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            return findSnapshot(snapshots, dimensionId)
-                .map(snapshot -> MtrDataMapper.buildNodePage(snapshot, cursor, limit))
-                .orElse(fallback);
-        }, fallback);
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        return findSnapshot(snapshots, dimensionId)
+            .map(snapshot -> MtrDataMapper.buildNodePage(snapshot, cursor, limit))
+            .orElseGet(() -> new NodePage(dimensionId == null ? "" : dimensionId, Collections.emptyList(), null));
     }
 
     @Override
     public Optional<StationTimetable> fetchStationTimetable(String dimensionId, long stationId, Long platformId) {
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            return findSnapshot(snapshots, dimensionId)
-                .flatMap(snapshot -> MtrDataMapper.buildStationTimetable(snapshot, stationId, platformId));
-        }, Optional.empty());
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        return findSnapshot(snapshots, dimensionId)
+            .flatMap(snapshot -> MtrDataMapper.buildStationTimetable(snapshot, stationId, platformId));
     }
 
     @Override
     public List<StationInfo> fetchStations(String dimensionId) {
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            if (dimensionId == null || dimensionId.isEmpty()) {
-                return snapshots.stream()
-                    .flatMap(snapshot -> MtrDataMapper.buildStations(snapshot).stream())
-                    .collect(Collectors.toList());
-            }
-            return findSnapshot(snapshots, dimensionId)
-                .map(MtrDataMapper::buildStations)
-                .orElseGet(Collections::emptyList);
-        }, Collections.emptyList());
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        if (dimensionId == null || dimensionId.isEmpty()) {
+            return snapshots.stream()
+                .flatMap(snapshot -> MtrDataMapper.buildStations(snapshot).stream())
+                .collect(Collectors.toList());
+        }
+        return findSnapshot(snapshots, dimensionId)
+            .map(MtrDataMapper::buildStations)
+            .orElseGet(Collections::emptyList);
     }
 
     @Override
     public List<TrainStatus> fetchRouteTrains(String dimensionId, long routeId) {
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            return snapshots.stream()
-                .filter(snapshot -> dimensionId == null || dimensionId.isEmpty()
-                    || snapshot.getDimensionId().equals(dimensionId))
-                .flatMap(snapshot -> MtrDataMapper.buildRouteTrains(snapshot, routeId).stream())
-                .collect(Collectors.toList());
-        }, Collections.emptyList());
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        return snapshots.stream()
+            .filter(snapshot -> dimensionId == null || dimensionId.isEmpty()
+                || snapshot.getDimensionId().equals(dimensionId))
+            .flatMap(snapshot -> MtrDataMapper.buildRouteTrains(snapshot, routeId).stream())
+            .collect(Collectors.toList());
     }
 
     @Override
     public List<TrainStatus> fetchDepotTrains(String dimensionId, long depotId) {
-        return executeOnServer(() -> {
-            List<MtrDimensionSnapshot> snapshots = captureSnapshots();
-            return findSnapshot(snapshots, dimensionId)
-                .map(snapshot -> MtrDataMapper.buildDepotTrains(snapshot, depotId))
-                .orElseGet(Collections::emptyList);
-        }, Collections.emptyList());
+        List<MtrDimensionSnapshot> snapshots = captureSnapshots();
+        return findSnapshot(snapshots, dimensionId)
+            .map(snapshot -> MtrDataMapper.buildDepotTrains(snapshot, depotId))
+            .orElseGet(Collections::emptyList);
     }
 
     @Override
     public List<MtrDimensionSnapshot> fetchSnapshots() {
-        return executeOnServer(this::captureSnapshots, Collections.emptyList());
+        return captureSnapshots();
     }
 
     private List<MtrDimensionSnapshot> captureSnapshots() {
         return snapshotCache.get();
     }
 
+    /**
+     * @return {@code null} if the server thread did not run the capture in time; see {@link MtrSnapshotCache}.
+     */
     private List<MtrDimensionSnapshot> captureSnapshotsNow() {
         MinecraftServer server = serverSupplier.get();
         if (server == null) {
             return Collections.emptyList();
         }
+        if (!server.isSameThread()) {
+            return ServerThreadCall.call(server, this::captureSnapshotsNow, null);
+        }
         List<MtrDimensionSnapshot> snapshots = new ArrayList<>();
         try {
             for (ServerLevel level : server.getAllLevels()) {
@@ -186,28 +174,4 @@ public final class ForgeMtrQueryGateway implements MtrQueryGateway {
             .filter(snapshot -> snapshot.getDimensionId().equals(dimensionId))
             .findFirst();
     }
-
-    private <T> T executeOnServer(Supplier<T> supplier, T fallback) {
-        MinecraftServer server = serverSupplier.get();
-        if (server == null) {
-            return fallback;
-        }
-        CompletableFuture<T> future = server.submit(() -> {
-            try {
-                return supplier.get();
-            } catch (Throwable throwable) {
-                throw new RuntimeException(throwable);
-            }
-        });
-        try {
-            T result = future.get();
-            return result == null ? fallback : result;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LOGGER.warn("Interrupted while executing MTR query on server thread", e);
-        } catch (ExecutionException e) {
-            LOGGER.warn("Failed to execute MTR query on server thread", e.getCause());
-        }
-        return fallback;
-    }
 }
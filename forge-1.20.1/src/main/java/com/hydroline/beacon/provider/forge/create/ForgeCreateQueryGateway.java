@@ -4,8 +4,11 @@ import com.hydroline.beacon.provider.BeaconProviderMod;
 import com.hydroline.beacon.provider.create.CreateDatabase;
 import com.hydroline.beacon.provider.create.CreateNetworkSnapshot;
 import com.hydroline.beacon.provider.create.CreateQueryGateway;
+import com.hydroline.beacon.provider.create.CreateQueryRegistry;
 import com.hydroline.beacon.provider.create.CreateRealtimeSnapshot;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
@@ -34,7 +37,10 @@ public final class ForgeCreateQueryGateway implements CreateQueryGateway {
         } catch (Exception ex) {
             BeaconProviderMod.LOGGER.warn("Failed to initialize Create cache database", ex);
         }
-        this.realtimeChannel = new CreateRealtimeChannel(serverSupplier, snapshot -> ready.set(snapshot != null));
+        this.realtimeChannel = new CreateRealtimeChannel(serverSupplier, snapshot -> {
+            ready.set(snapshot != null);
+            CreateQueryRegistry.publishRealtime(snapshot);
+        });
         this.staticSnapshotService = new CreateStaticSnapshotService(serverSupplier, database);
         realtimeChannel.start();
         staticSnapshotService.start();
@@ -80,6 +86,15 @@ public final class ForgeCreateQueryGateway implements CreateQueryGateway {
         return Optional.of(current.queryNetworkSnapshot(graphId, includePolylines));
     }
 
+    @Override
+    public Map<String, Integer> fetchGraphChecksums() {
+        CreateDatabase current = database;
+        if (current == null) {
+            return Collections.emptyMap();
+        }
+        return current.loadGraphChecksums();
+    }
+
     @Override
     public CreateRealtimeSnapshot fetchRealtimeSnapshot() {
         CreateRealtimeChannel channel = realtimeChannel;
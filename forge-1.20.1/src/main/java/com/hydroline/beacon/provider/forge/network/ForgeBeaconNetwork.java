@@ -1,9 +1,7 @@
 package com.hydroline.beacon.provider.forge.network;
 
 import com.hydroline.beacon.provider.gateway.BeaconGatewayManager;
-import com.hydroline.beacon.provider.protocol.BeaconResponse;
 import com.hydroline.beacon.provider.protocol.ChannelConstants;
-import com.hydroline.beacon.provider.protocol.MessageSerializer;
 import com.hydroline.beacon.provider.service.BeaconProviderService;
 import com.hydroline.beacon.provider.service.BeaconServiceFactory;
 import com.hydroline.beacon.provider.transport.ChannelMessageRouter;
@@ -29,6 +27,7 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.server.ServerStartingEvent;
 import net.minecraftforge.event.server.ServerStoppedEvent;
@@ -83,6 +82,15 @@ public final class ForgeBeaconNetwork {
             createGateway = null;
         }
         gatewayManager.stop();
+        router.shutdown();
+        service.close();
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            router.tick();
+        }
     }
 
     @SubscribeEvent
@@ -96,6 +104,7 @@ public final class ForgeBeaconNetwork {
     public void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
         if (event.getEntity() instanceof ServerPlayer player) {
             detachHandler(player);
+            router.forget(player.getUUID());
         }
     }
 
@@ -158,9 +167,8 @@ public final class ForgeBeaconNetwork {
             }
             byte[] bytes = new byte[payload.readableBytes()];
             payload.readBytes(bytes);
-            MinecraftServer server = messenger.getServer();
-            if (server != null) {
-                server.execute(() -> router.handleIncoming(playerUuid, bytes));
+            if (messenger.getServer() != null) {
+                router.handleIncoming(playerUuid, bytes);
             }
         }
 
@@ -182,19 +190,19 @@ public final class ForgeBeaconNetwork {
         }
 
         @Override
-        public void reply(UUID playerUuid, BeaconResponse response) {
+        public boolean send(UUID playerUuid, byte[] packet) {
             MinecraftServer current = server;
             if (current == null) {
-                return;
+                return false;
             }
             ServerPlayer player = current.getPlayerList().getPlayer(playerUuid);
             if (player == null) {
-                return;
+                return false;
             }
-            byte[] bytes = MessageSerializer.serialize(response);
-            FriendlyByteBuf reply = new FriendlyByteBuf(Unpooled.buffer(bytes.length));
-            reply.writeBytes(bytes);
+            FriendlyByteBuf reply = new FriendlyByteBuf(Unpooled.buffer(packet.length));
+            reply.writeBytes(packet);
             player.connection.send(new ClientboundCustomPayloadPacket(CHANNEL_ID, reply));
+            return true;
         }
     }
 }